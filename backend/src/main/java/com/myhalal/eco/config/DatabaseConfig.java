@@ -33,18 +33,59 @@ public class DatabaseConfig {
     @Value("${spring.datasource.driver-class-name}")
     private String driverClassName;
 
+    @Value("${spring.datasource.replica.url:}")
+    private String replicaJdbcUrl;
+
+    @Value("${spring.datasource.replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${spring.datasource.replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${spring.datasource.replica.maximum-pool-size:20}")
+    private int replicaMaximumPoolSize;
+
+    @Value("${spring.datasource.replica.minimum-idle:5}")
+    private int replicaMinimumIdle;
+
+    @Value("${spring.datasource.replica.read-your-writes-ms:2000}")
+    private long readYourWritesMillis;
+
+    @Value("${cache.second-level.enabled:true}")
+    private boolean secondLevelCacheEnabled;
+
+    @Value("${cache.second-level.config:ehcache.xml}")
+    private String cacheConfig;
+
+    @Value("${cache.second-level.statistics-enabled:true}")
+    private boolean cacheStatisticsEnabled;
+
+    // Without a replica URL everything shares the one pool; with one, read-only transactions go to the replica
     @Bean
     @Primary
     public DataSource dataSource() {
+        HikariDataSource primary = pool("primary", jdbcUrl, username, password, 20, 5, false);
+        if (replicaJdbcUrl.isBlank()) {
+            return primary;
+        }
+        HikariDataSource replica = pool("replica", replicaJdbcUrl, replicaUsername, replicaPassword,
+            replicaMaximumPoolSize, replicaMinimumIdle, true);
+        return new ReadWriteRoutingDataSource(primary, replica, readYourWritesMillis);
+    }
+
+    private HikariDataSource pool(String name, String url, String user, String pass, int maximumPoolSize,
+                                  int minimumIdle, boolean readOnly) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(jdbcUrl);
-        config.setUsername(username);
-        config.setPassword(password);
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(pass);
         config.setDriverClassName(driverClassName);
+        config.setReadOnly(readOnly);
         
         // Connection pool settings
-        config.setMinimumIdle(5);
-        config.setMaximumPoolSize(20);
+        config.setMinimumIdle(minimumIdle);
+        config.setMaximumPoolSize(maximumPoolSize);
         config.setIdleTimeout(300000);
         config.setConnectionTimeout(20000);
         config.setMaxLifetime(1200000);
@@ -83,11 +124,27 @@ public class DatabaseConfig {
         properties.put("hibernate.show_sql", "true");
         properties.put("hibernate.format_sql", "true");
         properties.put("hibernate.jdbc.time_zone", "UTC");
-        
+
+        // The vendor adapter would hold a session's connection until the session closes; under
+        // open-in-view a read-only call would then pin the request's later writes to the replica
+        properties.put("hibernate.connection.handling_mode", "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+
         // H2 performance optimizations
         properties.put("hibernate.jdbc.batch_size", "25");
         properties.put("hibernate.order_inserts", "true");
         properties.put("hibernate.order_updates", "true");
+
+        // Entity and query caches; only @Cacheable entities and queries with the cacheable hint take part,
+        // and a region missing from the cache config fails startup rather than running unbounded
+        properties.put("hibernate.cache.use_second_level_cache", Boolean.toString(secondLevelCacheEnabled));
+        properties.put("hibernate.cache.use_query_cache", Boolean.toString(secondLevelCacheEnabled));
+        if (secondLevelCacheEnabled) {
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+            properties.put("hibernate.javax.cache.uri", cacheConfig);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        }
+        properties.put("hibernate.generate_statistics", Boolean.toString(cacheStatisticsEnabled));
         
         return properties;
     }
@@ -0,0 +1,63 @@
+package com.myhalal.eco.config;
+
+import com.myhalal.eco.storage.DocumentStore;
+import com.myhalal.eco.storage.FileSystemDocumentStore;
+import com.myhalal.eco.storage.InMemoryDocumentStore;
+import com.myhalal.eco.storage.S3DocumentStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+
+@Configuration
+public class DocumentStorageConfig {
+
+    @Value("${documents.storage.root:uploads/vendor-documents}")
+    private String storageRoot;
+
+    @Bean
+    @ConditionalOnProperty(name = "documents.storage.type", havingValue = "filesystem", matchIfMissing = true)
+    public DocumentStore fileSystemDocumentStore() {
+        return new FileSystemDocumentStore(storageRoot);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "documents.storage.type", havingValue = "memory")
+    public DocumentStore inMemoryDocumentStore(
+            @Value("${documents.storage.memory.max-bytes:1073741824}") long maxBytes) {
+        return new InMemoryDocumentStore(maxBytes);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "documents.storage.type", havingValue = "s3")
+    public DocumentStore s3DocumentStore(
+            @Value("${documents.storage.s3.endpoint:}") String endpoint,
+            @Value("${documents.storage.s3.region:us-east-1}") String region,
+            @Value("${documents.storage.s3.bucket}") String bucket,
+            @Value("${documents.storage.s3.prefix:blobs}") String prefix,
+            @Value("${documents.storage.s3.access-key:}") String accessKey,
+            @Value("${documents.storage.s3.secret-key:}") String secretKey) {
+        S3ClientBuilder builder = S3Client.builder().region(Region.of(region));
+        
+        // Local stand-ins such as MinIO need an explicit endpoint and path-style addressing
+        if (!endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        if (!accessKey.isEmpty()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        
+        return new S3DocumentStore(builder.build(), bucket, prefix);
+    }
+}
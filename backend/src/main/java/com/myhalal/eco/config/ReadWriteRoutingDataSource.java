@@ -0,0 +1,139 @@
+package com.myhalal.eco.config;
+
+import com.myhalal.eco.service.TransactionCallbacks;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sends read-only transactions to the replica pool and everything else to the primary. The lazy
+// proxy holds back the physical connection until the first statement, by which time the
+// transaction's read-only flag is known. After a read-write transaction commits, the client gets a
+// short-lived cookie and its reads stay on the primary until the window passes, so it always sees
+// its own writes even if the replica lags.
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final String LAST_WRITE_COOKIE = "ECO_LAST_WRITE";
+
+    private static final String LAST_WRITE_ATTRIBUTE = ReadWriteRoutingDataSource.class.getName() + ".lastWrite";
+
+    private enum Target { PRIMARY, REPLICA }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final long readYourWritesMillis;
+
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, HikariDataSource replica, long readYourWritesMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.readYourWritesMillis = readYourWritesMillis;
+
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return route();
+            }
+        };
+        router.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primaryConnections", primaryConnections.sum());
+        stats.put("replicaConnections", replicaConnections.sum());
+        stats.put("readsPinnedToPrimary", pinnedReads.sum());
+        stats.put("primaryActive", primary.getHikariPoolMXBean().getActiveConnections());
+        stats.put("replicaActive", replica.getHikariPoolMXBean().getActiveConnections());
+        stats.put("readYourWritesMillis", readYourWritesMillis);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+
+    private Target route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive() && readYourWritesMillis > 0) {
+                TransactionCallbacks.afterCommit(this::recordWrite);
+            }
+            primaryConnections.increment();
+            return Target.PRIMARY;
+        }
+        if (wroteRecently()) {
+            pinnedReads.increment();
+            primaryConnections.increment();
+            return Target.PRIMARY;
+        }
+        replicaConnections.increment();
+        return Target.REPLICA;
+    }
+
+    // Scheduled jobs and other work outside a request have no client to be consistent for
+    private boolean wroteRecently() {
+        if (readYourWritesMillis <= 0
+                || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        Object lastWrite = attributes.getAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (lastWrite == null) {
+            lastWrite = cookieValue(attributes.getRequest());
+            attributes.setAttribute(LAST_WRITE_ATTRIBUTE, lastWrite, RequestAttributes.SCOPE_REQUEST);
+        }
+        // The cookie comes from the client: a stamp further out than one window either side of now is
+        // not one this node wrote, so a forged far-future value cannot pin every read to the primary
+        return Math.abs(System.currentTimeMillis() - (Long) lastWrite) < readYourWritesMillis;
+    }
+
+    private void recordWrite() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        attributes.setAttribute(LAST_WRITE_ATTRIBUTE, now, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(LAST_WRITE_COOKIE, Long.toString(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (readYourWritesMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    private static Long cookieValue(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0L;
+                    }
+                }
+            }
+        }
+        return 0L;
+    }
+}
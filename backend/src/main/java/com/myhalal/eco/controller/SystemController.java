@@ -0,0 +1,71 @@
+package com.myhalal.eco.controller;
+
+import com.myhalal.eco.config.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/system")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class SystemController {
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${cache.second-level.enabled:true}")
+    private boolean secondLevelCacheEnabled;
+
+    @GetMapping("/datasource")
+    public ResponseEntity<Map<String, Object>> getDataSourceStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("readReplica", dataSource instanceof ReadWriteRoutingDataSource);
+        if (dataSource instanceof ReadWriteRoutingDataSource routing) {
+            stats.putAll(routing.getStats());
+        } else if (dataSource instanceof HikariDataSource pool) {
+            stats.put("primaryActive", pool.getHikariPoolMXBean().getActiveConnections());
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    // Hit/miss/put counts per second-level cache region since startup, including the query result and
+    // update-timestamps regions; all zero when cache statistics are disabled
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long lookups = region.getHitCount() + region.getMissCount();
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("hits", region.getHitCount());
+            view.put("misses", region.getMissCount());
+            view.put("puts", region.getPutCount());
+            view.put("hitRatio", lookups == 0 ? 0.0 : Math.round(region.getHitCount() * 1000.0 / lookups) / 1000.0);
+            regions.put(regionName, view);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", secondLevelCacheEnabled);
+        stats.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        stats.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        stats.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        stats.put("regions", regions);
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -1,6 +1,11 @@
 package com.myhalal.eco.controller;
 
+import com.myhalal.eco.dto.VendorSummary;
 import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.export.RecordStreamWriter;
+import com.myhalal.eco.service.ComplianceService;
+import com.myhalal.eco.service.ReverificationService;
+import com.myhalal.eco.service.VendorImportService;
 import com.myhalal.eco.service.VendorService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,8 +16,11 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -25,7 +33,13 @@ import java.util.Optional;
 @Slf4j
 public class VendorController {
 
+    private static final int MAX_ATTENTION_PAGE_SIZE = 100;
+
     private final VendorService vendorService;
+    private final ReverificationService reverificationService;
+    private final ComplianceService complianceService;
+    private final VendorImportService vendorImportService;
+    private final RecordStreamWriter recordStreamWriter;
 
     @PostMapping
     public ResponseEntity<?> createVendor(@Valid @RequestBody Vendor vendor) {
@@ -40,7 +54,7 @@ public class VendorController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<Vendor>> getAllVendors(
+    public ResponseEntity<Page<VendorSummary>> getAllVendors(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdDate") String sortBy,
@@ -50,7 +64,7 @@ public class VendorController {
                    Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Vendor> vendors = vendorService.getVendorsWithFilters(null, null, null, null, pageable);
+        Page<VendorSummary> vendors = vendorService.getVendorsWithFilters(null, null, null, null, pageable);
         return ResponseEntity.ok(vendors);
     }
 
@@ -118,58 +132,77 @@ public class VendorController {
     }
 
     @GetMapping("/recent")
-    public ResponseEntity<List<Vendor>> getRecentVendors(@RequestParam(defaultValue = "10") int limit) {
-        List<Vendor> recentVendors = vendorService.getRecentVendors(limit);
+    public ResponseEntity<List<VendorSummary>> getRecentVendors(@RequestParam(defaultValue = "10") int limit) {
+        List<VendorSummary> recentVendors = vendorService.getRecentVendors(limit);
         return ResponseEntity.ok(recentVendors);
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<Page<Vendor>> getVendorsByCategory(
+    public ResponseEntity<Page<VendorSummary>> getVendorsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Vendor> vendors = vendorService.getVendorsByCategory(category, pageable);
+        Page<VendorSummary> vendors = vendorService.getVendorsByCategory(category, pageable);
         return ResponseEntity.ok(vendors);
     }
 
+    // Streams every vendor as NDJSON or CSV; heap use does not depend on how many there are
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportVendors(@RequestParam(defaultValue = "ndjson") String format) {
+        return recordStreamWriter.respond(format, "vendors", vendorService::exportAllVendors);
+    }
+
+    @GetMapping(value = "/verified", params = "format")
+    public ResponseEntity<StreamingResponseBody> exportVerifiedVendors(@RequestParam String format) {
+        return recordStreamWriter.respond(format, "verified-vendors", vendorService::exportVerifiedVendors);
+    }
+
     @GetMapping("/verified")
-    public ResponseEntity<List<Vendor>> getVerifiedVendors() {
-        List<Vendor> verifiedVendors = vendorService.getVerifiedVendors();
+    public ResponseEntity<List<VendorSummary>> getVerifiedVendors() {
+        List<VendorSummary> verifiedVendors = vendorService.getVerifiedVendors();
         return ResponseEntity.ok(verifiedVendors);
     }
 
+    @GetMapping(value = "/top-rated", params = "format")
+    public ResponseEntity<StreamingResponseBody> exportTopRatedVendors(
+            @RequestParam(defaultValue = "4.0") BigDecimal minRating,
+            @RequestParam String format) {
+        return recordStreamWriter.respond(format, "top-rated-vendors",
+            (exportFormat, output) -> vendorService.exportTopRatedVendors(minRating, exportFormat, output));
+    }
+
     @GetMapping("/top-rated")
-    public ResponseEntity<List<Vendor>> getTopRatedVendors(
+    public ResponseEntity<List<VendorSummary>> getTopRatedVendors(
             @RequestParam(defaultValue = "4.0") BigDecimal minRating) {
-        List<Vendor> topRatedVendors = vendorService.getTopRatedVendors(minRating);
+        List<VendorSummary> topRatedVendors = vendorService.getTopRatedVendors(minRating);
         return ResponseEntity.ok(topRatedVendors);
     }
 
     @GetMapping("/top-performing")
-    public ResponseEntity<Page<Vendor>> getTopPerformingVendors(
+    public ResponseEntity<Page<VendorSummary>> getTopPerformingVendors(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Vendor> topVendors = vendorService.getTopPerformingVendors(pageable);
+        Page<VendorSummary> topVendors = vendorService.getTopPerformingVendors(pageable);
         return ResponseEntity.ok(topVendors);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Page<Vendor>> searchVendors(
+    public ResponseEntity<Page<VendorSummary>> searchVendors(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Vendor> vendors = vendorService.searchVendors(query, pageable);
+        Page<VendorSummary> vendors = vendorService.searchVendors(query, pageable);
         return ResponseEntity.ok(vendors);
     }
 
     @GetMapping("/filter")
-    public ResponseEntity<Page<Vendor>> getVendorsWithFilters(
+    public ResponseEntity<Page<VendorSummary>> getVendorsWithFilters(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) BigDecimal minRating,
             @RequestParam(required = false) String city,
@@ -183,7 +216,7 @@ public class VendorController {
                    Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Vendor> vendors = vendorService.getVendorsWithFilters(category, minRating, city, state, pageable);
+        Page<VendorSummary> vendors = vendorService.getVendorsWithFilters(category, minRating, city, state, pageable);
         return ResponseEntity.ok(vendors);
     }
 
@@ -229,12 +262,72 @@ public class VendorController {
         }
     }
 
+    @GetMapping("/{id}/compliance")
+    public ResponseEntity<?> getVendorCompliance(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(complianceService.describe(id));
+        } catch (RuntimeException e) {
+            log.error("Error checking compliance for vendor {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/compliance/evaluate")
+    public ResponseEntity<?> evaluateCompliance(@RequestBody List<Long> vendorIds) {
+        try {
+            return ResponseEntity.ok(complianceService.evaluate(vendorIds));
+        } catch (RuntimeException e) {
+            log.error("Error evaluating vendor compliance: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // The body is read as a stream; format comes from the query parameter or else the content type
+    @PostMapping("/import")
+    public ResponseEntity<?> importVendors(
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "import") String importedBy,
+            HttpServletRequest request) throws IOException {
+        try {
+            return ResponseEntity.ok(vendorImportService.importVendors(request.getInputStream(),
+                format != null ? format : request.getContentType(), importedBy));
+        } catch (RuntimeException e) {
+            log.error("Error importing vendors: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/imports")
+    public ResponseEntity<List<Map<String, Object>>> getImports() {
+        return ResponseEntity.ok(vendorImportService.getImports());
+    }
+
+    @GetMapping("/imports/{importId}")
+    public ResponseEntity<?> getImport(@PathVariable String importId) {
+        try {
+            return ResponseEntity.ok(vendorImportService.getImport(importId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/needing-attention")
-    public ResponseEntity<List<Vendor>> getVendorsNeedingAttention() {
-        List<Vendor> vendors = vendorService.getVendorsNeedingAttention();
+    public ResponseEntity<Page<VendorSummary>> getVendorsNeedingAttention(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_ATTENTION_PAGE_SIZE)),
+            Sort.by("vendorId"));
+        Page<VendorSummary> vendors = vendorService.getVendorsNeedingAttention(pageable);
         return ResponseEntity.ok(vendors);
     }
 
+    @GetMapping("/reverification/status")
+    public ResponseEntity<Map<String, Object>> getReverificationStatus() {
+        return ResponseEntity.ok(reverificationService.getStatus());
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Long>> getVendorStats() {
         Map<String, Long> stats = Map.of(
@@ -1,23 +1,49 @@
 package com.myhalal.eco.controller;
 
+import com.myhalal.eco.dto.VendorDocumentSummary;
 import com.myhalal.eco.entity.VendorDocument;
+import com.myhalal.eco.export.RecordStreamWriter;
+import com.myhalal.eco.service.ChunkedUploadService;
+import com.myhalal.eco.service.DocumentArchiveService;
+import com.myhalal.eco.service.DocumentBlobService;
+import com.myhalal.eco.service.DocumentPreviewService;
+import com.myhalal.eco.service.DocumentProcessingPipeline;
+import com.myhalal.eco.service.DocumentSearchService;
 import com.myhalal.eco.service.VendorDocumentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/vendor-documents")
@@ -26,7 +52,16 @@ import java.util.Map;
 @Slf4j
 public class VendorDocumentController {
 
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
     private final VendorDocumentService documentService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final DocumentProcessingPipeline processingPipeline;
+    private final DocumentBlobService blobService;
+    private final DocumentPreviewService previewService;
+    private final DocumentArchiveService archiveService;
+    private final DocumentSearchService searchService;
+    private final RecordStreamWriter recordStreamWriter;
 
     @PostMapping("/upload")
     public ResponseEntity<?> uploadDocument(
@@ -42,6 +77,71 @@ public class VendorDocumentController {
         }
     }
 
+    @PostMapping("/uploads")
+    public ResponseEntity<?> initChunkedUpload(
+            @RequestParam("vendorId") Long vendorId,
+            @RequestParam("documentType") String documentType,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "mimeType", required = false) String mimeType,
+            @RequestParam("totalSize") long totalSize,
+            @RequestParam(value = "chunkSize", defaultValue = "8388608") long chunkSize) {
+        try {
+            Map<String, Object> upload = chunkedUploadService.initUpload(
+                vendorId, documentType, fileName, mimeType, totalSize, chunkSize);
+            return ResponseEntity.ok(upload);
+        } catch (RuntimeException e) {
+            log.error("Error initialising chunked upload for vendor {}: {}", vendorId, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping(value = "/uploads/{uploadId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            HttpServletRequest request) throws IOException {
+        try {
+            Map<String, Object> upload = chunkedUploadService.writeChunk(
+                uploadId, index, request.getContentLengthLong(), request.getInputStream());
+            return ResponseEntity.ok(upload);
+        } catch (RuntimeException e) {
+            log.error("Error writing chunk {} of upload {}: {}", index, uploadId, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getChunkedUploadStatus(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.getStatus(uploadId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeChunkedUpload(
+            @PathVariable String uploadId,
+            @RequestParam(value = "sha256", required = false) String sha256) {
+        try {
+            VendorDocument document = chunkedUploadService.completeUpload(uploadId, sha256);
+            return ResponseEntity.ok(document);
+        } catch (RuntimeException e) {
+            log.error("Error completing upload {}: {}", uploadId, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> abortChunkedUpload(@PathVariable String uploadId) {
+        try {
+            chunkedUploadService.abortUpload(uploadId);
+            return ResponseEntity.ok(Map.of("message", "Upload aborted"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getDocument(@PathVariable Long id) {
         try {
@@ -54,33 +154,199 @@ public class VendorDocumentController {
     }
 
     @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable Long id) {
+    public void downloadDocument(
+            @PathVariable Long id,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        VendorDocument document;
+        long fileLength;
         try {
-            Resource resource = documentService.downloadDocument(id);
-            VendorDocument document = documentService.getDocument(id);
-            
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(document.getMimeType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                        "attachment; filename=\"" + document.getDocumentName() + "\"")
-                .body(resource);
+            document = documentService.getDocument(id);
+            fileLength = documentService.getContentLength(document);
         } catch (RuntimeException e) {
             log.error("Error downloading document {}: {}", id, e.getMessage());
-            return ResponseEntity.notFound().build();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        String eTag = document.getContentHash() != null
+            ? "\"" + document.getContentHash() + "\""
+            : "W/\"" + document.getDocumentId() + "-" + fileLength + "\"";
+        
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        
+        if (eTagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        
+        long start = 0;
+        long end = fileLength - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        boolean honourRange = rangeHeader != null && (ifRange == null || (ifRange.equals(eTag) && !eTag.startsWith("W/")));
+        
+        if (honourRange) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Multi-range responses are optional in RFC 7233; serve the full entity instead
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(fileLength);
+                    end = range.getRangeEnd(fileLength);
+                } catch (IllegalArgumentException e) {
+                    start = fileLength;
+                }
+                if (start >= fileLength || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileLength);
+            }
+        }
+        
+        long contentLength = fileLength == 0 ? 0 : end - start + 1;
+        response.setContentType(document.getMimeType() != null
+            ? document.getMimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(contentLength);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(document.getDocumentName(), StandardCharsets.UTF_8).build().toString());
+        
+        if ("HEAD".equals(request.getMethod()) || contentLength == 0) {
+            return;
+        }
+        
+        Optional<Path> localPath = documentService.getLocalPath(document);
+        if (localPath.isEmpty()) {
+            try (InputStream content = documentService.openContent(document, start, contentLength)) {
+                content.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+        
+        Path filePath = localPath.get();
+        // Let Tomcat push the file straight from the page cache to the socket when it can
+        if (contentLength >= SENDFILE_THRESHOLD
+                && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", filePath.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+        
+        try (FileChannel source = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = contentLength;
+            while (remaining > 0) {
+                long transferred = source.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
         }
     }
 
+    private boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag) || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Previews are derived from immutable content, so clients and proxies may keep them for a year
+    @GetMapping("/{id}/preview")
+    public ResponseEntity<?> getPreview(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "thumbnail") String size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        DocumentPreviewService.Variant variant;
+        try {
+            variant = DocumentPreviewService.Variant.valueOf(size.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Size must be thumbnail or page"));
+        }
+
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+        DocumentPreviewService.Preview preview;
+        try {
+            String eTag = previewService.getPreviewETag(id, variant);
+            if (eTagMatches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .build();
+            }
+            preview = previewService.getPreview(id, variant);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Error rendering preview for document {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.IMAGE_PNG)
+            .eTag(preview.eTag())
+            .cacheControl(cacheControl)
+            .body(new FileSystemResource(preview.file()));
+    }
+
+    @GetMapping("/preview/metrics")
+    public ResponseEntity<Map<String, Object>> getPreviewMetrics() {
+        return ResponseEntity.ok(previewService.getMetrics());
+    }
+
     @GetMapping("/vendor/{vendorId}")
-    public ResponseEntity<List<VendorDocument>> getVendorDocuments(@PathVariable Long vendorId) {
-        List<VendorDocument> documents = documentService.getVendorDocuments(vendorId);
+    public ResponseEntity<List<VendorDocumentSummary>> getVendorDocuments(@PathVariable Long vendorId) {
+        List<VendorDocumentSummary> documents = documentService.getVendorDocuments(vendorId);
         return ResponseEntity.ok(documents);
     }
 
+    @GetMapping("/vendor/{vendorId}/archive")
+    public void downloadVendorArchive(@PathVariable Long vendorId, HttpServletResponse response) throws IOException {
+        try {
+            archiveService.checkVendor(vendorId);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Length is unknown up front, so the archive goes out chunked
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename("vendor-" + vendorId + "-documents.zip")
+            .build()
+            .toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-store");
+        archiveService.writeArchive(vendorId, response.getOutputStream());
+    }
+
     @GetMapping("/vendor/{vendorId}/type/{documentType}")
-    public ResponseEntity<List<VendorDocument>> getVendorDocumentsByType(
+    public ResponseEntity<List<VendorDocumentSummary>> getVendorDocumentsByType(
             @PathVariable Long vendorId,
             @PathVariable String documentType) {
-        List<VendorDocument> documents = documentService.getVendorDocumentsByType(vendorId, documentType);
+        List<VendorDocumentSummary> documents = documentService.getVendorDocumentsByType(vendorId, documentType);
         return ResponseEntity.ok(documents);
     }
 
@@ -113,24 +379,29 @@ public class VendorDocumentController {
     }
 
     @GetMapping("/pending-verification")
-    public ResponseEntity<Page<VendorDocument>> getPendingVerificationDocuments(
+    public ResponseEntity<Page<VendorDocumentSummary>> getPendingVerificationDocuments(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<VendorDocument> documents = documentService.getPendingVerificationDocuments(pageable);
+        Page<VendorDocumentSummary> documents = documentService.getPendingVerificationDocuments(pageable);
         return ResponseEntity.ok(documents);
     }
 
     @GetMapping("/expiring")
-    public ResponseEntity<List<VendorDocument>> getExpiringDocuments(
+    public ResponseEntity<List<VendorDocumentSummary>> getExpiringDocuments(
             @RequestParam(defaultValue = "30") int daysThreshold) {
-        List<VendorDocument> documents = documentService.getExpiringDocuments(daysThreshold);
+        List<VendorDocumentSummary> documents = documentService.getExpiringDocuments(daysThreshold);
         return ResponseEntity.ok(documents);
     }
 
+    @GetMapping(value = "/expired", params = "format")
+    public ResponseEntity<StreamingResponseBody> exportExpiredDocuments(@RequestParam String format) {
+        return recordStreamWriter.respond(format, "expired-documents", documentService::exportExpiredDocuments);
+    }
+
     @GetMapping("/expired")
-    public ResponseEntity<List<VendorDocument>> getExpiredDocuments() {
-        List<VendorDocument> documents = documentService.getExpiredDocuments();
+    public ResponseEntity<List<VendorDocumentSummary>> getExpiredDocuments() {
+        List<VendorDocumentSummary> documents = documentService.getExpiredDocuments();
         return ResponseEntity.ok(documents);
     }
 
@@ -164,6 +435,54 @@ public class VendorDocumentController {
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<?> searchDocuments(
+            @RequestParam String q,
+            @RequestParam(required = false) Long vendorId,
+            @RequestParam(required = false) String documentType,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Query must not be empty"));
+        }
+        try {
+            return ResponseEntity.ok(searchService.search(q, vendorId, documentType, limit));
+        } catch (IOException e) {
+            log.error("Error searching documents: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", "Search is unavailable"));
+        }
+    }
+
+    @GetMapping("/search/metrics")
+    public ResponseEntity<Map<String, Object>> getSearchMetrics() throws IOException {
+        return ResponseEntity.ok(searchService.getMetrics());
+    }
+
+    @PostMapping("/search/reindex")
+    public ResponseEntity<Map<String, Object>> reindexDocuments() {
+        boolean started = searchService.rebuildAsync();
+        return ResponseEntity.accepted().body(Map.of("started", started));
+    }
+
+    @GetMapping("/storage/stats")
+    public ResponseEntity<Map<String, Object>> getStorageStats() {
+        return ResponseEntity.ok(blobService.getStorageStats());
+    }
+
+    @GetMapping("/processing/metrics")
+    public ResponseEntity<Map<String, Object>> getProcessingMetrics() {
+        return ResponseEntity.ok(processingPipeline.getMetrics());
+    }
+
+    @PostMapping("/{id}/reprocess")
+    public ResponseEntity<?> reprocessDocument(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(processingPipeline.reprocess(id));
+        } catch (RuntimeException e) {
+            log.error("Error reprocessing document {}: {}", id, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/stats/verification")
     public ResponseEntity<Map<String, Long>> getVerificationStats() {
         Map<String, Long> stats = documentService.getVerificationStats();
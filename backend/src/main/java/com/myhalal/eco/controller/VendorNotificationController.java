@@ -68,6 +68,18 @@ public class VendorNotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    @GetMapping("/vendor/{vendorId}/changes")
+    public ResponseEntity<?> getChangesSince(
+            @PathVariable Long vendorId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit) {
+        if (since < 0 || limit < 1 || limit > 5000) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid since or limit"));
+        }
+        Map<String, Object> changes = notificationService.getChangesSince(vendorId, since, limit);
+        return ResponseEntity.ok(changes);
+    }
+
     @PutMapping("/{id}/read")
     public ResponseEntity<?> markAsRead(@PathVariable Long id) {
         try {
@@ -127,6 +139,17 @@ public class VendorNotificationController {
         return ResponseEntity.ok(stats);
     }
 
+    @DeleteMapping("/retention")
+    public ResponseEntity<?> purgeReadPartitions(@RequestParam(defaultValue = "12") int olderThanMonths) {
+        try {
+            Map<String, Object> result = notificationService.purgeReadPartitions(olderThanMonths);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            log.error("Error purging notification partitions: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteNotification(@PathVariable Long id) {
         try {
@@ -1,12 +1,21 @@
 package com.myhalal.eco.controller;
 
+import com.myhalal.eco.dto.BulkCompleteRequest;
+import com.myhalal.eco.dto.BulkInitiateRequest;
 import com.myhalal.eco.entity.VendorVerification;
+import com.myhalal.eco.entity.VerificationReviewer;
+import com.myhalal.eco.export.RecordStreamWriter;
+import com.myhalal.eco.service.ReviewerAssignmentService;
 import com.myhalal.eco.service.VendorVerificationService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +27,8 @@ import java.util.Map;
 public class VendorVerificationController {
 
     private final VendorVerificationService verificationService;
+    private final ReviewerAssignmentService reviewerAssignment;
+    private final RecordStreamWriter recordStreamWriter;
 
     @PostMapping("/vendor/{vendorId}")
     public ResponseEntity<?> initiateVerification(
@@ -34,6 +45,26 @@ public class VendorVerificationController {
         }
     }
 
+    @PostMapping("/bulk/initiate")
+    public ResponseEntity<?> initiateVerifications(@Valid @RequestBody BulkInitiateRequest request) {
+        try {
+            return ResponseEntity.ok(verificationService.initiateVerifications(request));
+        } catch (RuntimeException e) {
+            log.error("Error bulk initiating verifications: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/bulk/complete")
+    public ResponseEntity<?> completeVerifications(@Valid @RequestBody BulkCompleteRequest request) {
+        try {
+            return ResponseEntity.ok(verificationService.completeVerifications(request));
+        } catch (RuntimeException e) {
+            log.error("Error bulk completing verifications: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getVerification(@PathVariable Long id) {
         try {
@@ -69,10 +100,11 @@ public class VendorVerificationController {
             @PathVariable Long id,
             @RequestParam boolean approved,
             @RequestParam String verifiedBy,
-            @RequestParam(required = false) String notes) {
+            @RequestParam(required = false) String notes,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime expiryDate) {
         try {
             VendorVerification verification = verificationService.completeVerification(
-                id, approved, verifiedBy, notes);
+                id, approved, verifiedBy, notes, expiryDate);
             return ResponseEntity.ok(verification);
         } catch (RuntimeException e) {
             log.error("Error completing verification {}: {}", id, e.getMessage());
@@ -93,6 +125,12 @@ public class VendorVerificationController {
         }
     }
 
+    @GetMapping(value = "/overdue", params = "format")
+    public ResponseEntity<StreamingResponseBody> exportOverdueVerifications(@RequestParam String format) {
+        return recordStreamWriter.respond(format, "overdue-verifications",
+            verificationService::exportOverdueVerifications);
+    }
+
     @GetMapping("/overdue")
     public ResponseEntity<List<VendorVerification>> getOverdueVerifications() {
         List<VendorVerification> verifications = verificationService.getOverdueVerifications();
@@ -113,6 +151,63 @@ public class VendorVerificationController {
         return ResponseEntity.ok(verifications);
     }
 
+    @PostMapping("/claim")
+    public ResponseEntity<?> claimNextVerification(@RequestParam String reviewer) {
+        return verificationService.claimNextVerification(reviewer)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/queue")
+    public ResponseEntity<List<Map<String, Object>>> getVerificationQueue(
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(verificationService.getVerificationQueue(limit));
+    }
+
+    @GetMapping("/reviewers")
+    public ResponseEntity<List<VerificationReviewer>> getReviewers() {
+        return ResponseEntity.ok(reviewerAssignment.getReviewers());
+    }
+
+    @PutMapping("/reviewers/{username}")
+    public ResponseEntity<?> saveReviewer(
+            @PathVariable String username,
+            @Valid @RequestBody VerificationReviewer reviewer) {
+        try {
+            return ResponseEntity.ok(reviewerAssignment.saveReviewer(username, reviewer));
+        } catch (RuntimeException e) {
+            log.error("Error saving reviewer {}: {}", username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/reviewers/{username}")
+    public ResponseEntity<?> deactivateReviewer(@PathVariable String username) {
+        try {
+            reviewerAssignment.deactivateReviewer(username);
+            return ResponseEntity.ok(Map.of("message", "Reviewer deactivated successfully"));
+        } catch (RuntimeException e) {
+            log.error("Error deactivating reviewer {}: {}", username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/reviewers/load")
+    public ResponseEntity<List<Map<String, Object>>> getReviewerLoads() {
+        return ResponseEntity.ok(reviewerAssignment.getReviewerLoads());
+    }
+
+    @GetMapping("/assignment/metrics")
+    public ResponseEntity<Map<String, Object>> getAssignmentMetrics() {
+        return ResponseEntity.ok(reviewerAssignment.getMetrics());
+    }
+
+    @GetMapping("/sla/metrics")
+    public ResponseEntity<Map<String, Object>> getSlaMetrics(
+            @RequestParam(required = false) Integer windowMinutes) {
+        return ResponseEntity.ok(verificationService.getSlaMetrics(windowMinutes));
+    }
+
     @GetMapping("/stats/vendor/{vendorId}")
     public ResponseEntity<Map<String, Object>> getVerificationStats(@PathVariable Long vendorId) {
         Map<String, Object> stats = verificationService.getVerificationStats(vendorId);
@@ -0,0 +1,18 @@
+package com.myhalal.eco.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record BulkCompleteRequest(
+    @NotEmpty(message = "At least one verification ID is required")
+    List<Long> verificationIds,
+    boolean approved,
+    @NotBlank(message = "Verified by is required")
+    String verifiedBy,
+    String notes,
+    LocalDateTime expiryDate
+) {
+}
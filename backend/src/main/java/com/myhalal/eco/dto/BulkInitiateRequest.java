@@ -0,0 +1,20 @@
+package com.myhalal.eco.dto;
+
+import com.myhalal.eco.entity.VendorVerification;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkInitiateRequest(
+    @NotEmpty(message = "At least one vendor ID is required")
+    List<Long> vendorIds,
+    @NotBlank(message = "Verification type is required")
+    @Size(max = 50, message = "Verification type must not exceed 50 characters")
+    String verificationType,
+    @NotBlank(message = "Initiated by is required")
+    String initiatedBy,
+    VendorVerification.Priority priority
+) {
+}
@@ -0,0 +1,30 @@
+package com.myhalal.eco.dto;
+
+import com.myhalal.eco.entity.VendorDocument;
+
+import java.time.LocalDateTime;
+
+// List view of a document; built by JPQL constructor expressions so DOCUMENT_CONTENT is never selected
+public record VendorDocumentSummary(
+    Long documentId,
+    Long vendorId,
+    String documentType,
+    String documentName,
+    Long fileSize,
+    String mimeType,
+    String contentHash,
+    VendorDocument.DocumentStatus status,
+    VendorDocument.VerificationStatus verificationStatus,
+    VendorDocument.ProcessingStatus processingStatus,
+    Integer pageCount,
+    String verifiedBy,
+    LocalDateTime verifiedDate,
+    LocalDateTime expiryDate,
+    LocalDateTime createdDate,
+    LocalDateTime updatedDate
+) {
+    public static final String SELECT = "SELECT new com.myhalal.eco.dto.VendorDocumentSummary(" +
+        "d.documentId, d.vendor.vendorId, d.documentType, d.documentName, d.fileSize, d.mimeType, " +
+        "d.contentHash, d.status, d.verificationStatus, d.processingStatus, d.pageCount, d.verifiedBy, " +
+        "d.verifiedDate, d.expiryDate, d.createdDate, d.updatedDate) FROM VendorDocument d ";
+}
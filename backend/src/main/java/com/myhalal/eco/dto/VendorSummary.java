@@ -0,0 +1,52 @@
+package com.myhalal.eco.dto;
+
+import com.myhalal.eco.entity.Vendor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// List view of a vendor; never touches the lazy BUSINESS_LICENSE LOB
+public record VendorSummary(
+    Long vendorId,
+    String name,
+    String contactEmail,
+    String phone,
+    String website,
+    String city,
+    String state,
+    String country,
+    String businessCategory,
+    Vendor.VendorStatus status,
+    Boolean isVerified,
+    LocalDateTime verifiedDate,
+    BigDecimal averageRating,
+    Integer totalReviews,
+    Integer totalSales,
+    LocalDateTime createdDate
+) {
+    public static final String SELECT = "SELECT new com.myhalal.eco.dto.VendorSummary(" +
+        "v.vendorId, v.name, v.contactEmail, v.phone, v.website, v.city, v.state, v.country, " +
+        "v.businessCategory, v.status, v.isVerified, v.verifiedDate, v.averageRating, v.totalReviews, " +
+        "v.totalSales, v.createdDate) FROM Vendor v ";
+
+    public static VendorSummary from(Vendor vendor) {
+        return new VendorSummary(
+            vendor.getVendorId(),
+            vendor.getName(),
+            vendor.getContactEmail(),
+            vendor.getPhone(),
+            vendor.getWebsite(),
+            vendor.getCity(),
+            vendor.getState(),
+            vendor.getCountry(),
+            vendor.getBusinessCategory(),
+            vendor.getStatus(),
+            vendor.getIsVerified(),
+            vendor.getVerifiedDate(),
+            vendor.getAverageRating(),
+            vendor.getTotalReviews(),
+            vendor.getTotalSales(),
+            vendor.getCreatedDate()
+        );
+    }
+}
@@ -0,0 +1,28 @@
+package com.myhalal.eco.dto;
+
+import com.myhalal.eco.entity.VendorVerification;
+
+import java.time.LocalDateTime;
+
+// Export view of a verification; built by a JPQL constructor expression so no entity is ever managed
+public record VendorVerificationSummary(
+    Long verificationId,
+    Long vendorId,
+    String verificationType,
+    VendorVerification.VerificationStatus status,
+    VendorVerification.Priority priority,
+    String initiatedBy,
+    LocalDateTime initiatedDate,
+    String assignedTo,
+    LocalDateTime assignedDate,
+    String completedBy,
+    LocalDateTime completedDate,
+    Integer verificationScore,
+    LocalDateTime expiryDate,
+    LocalDateTime nextReviewDate
+) {
+    public static final String SELECT = "SELECT new com.myhalal.eco.dto.VendorVerificationSummary(" +
+        "v.verificationId, v.vendor.vendorId, v.verificationType, v.status, v.priority, v.initiatedBy, " +
+        "v.initiatedDate, v.assignedTo, v.assignedDate, v.completedBy, v.completedDate, v.verificationScore, " +
+        "v.expiryDate, v.nextReviewDate) FROM VendorVerification v ";
+}
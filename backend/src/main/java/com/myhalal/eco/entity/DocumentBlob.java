@@ -0,0 +1,78 @@
+package com.myhalal.eco.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "DOCUMENT_BLOBS", indexes = {
+    @Index(name = "IDX_DOC_BLOB_TIER", columnList = "STORAGE_FORMAT, LAST_ACCESSED_DATE")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DocumentBlob {
+
+    // Hex SHA-256 of the stored bytes
+    @Id
+    @Column(name = "CONTENT_HASH", length = 64)
+    private String contentHash;
+
+    @Column(name = "STORAGE_PATH", nullable = false, length = 500)
+    private String storagePath;
+
+    // Original (decoded) size in bytes
+    @Column(name = "SIZE", nullable = false)
+    private Long size;
+
+    @Column(name = "STORAGE_FORMAT", nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private StorageFormat storageFormat = StorageFormat.RAW;
+
+    // Bytes actually held by the store after compression
+    @Column(name = "STORED_SIZE")
+    private Long storedSize;
+
+    @Column(name = "LAST_ACCESSED_DATE")
+    private LocalDateTime lastAccessedDate;
+
+    // Format whose object was superseded by a tier move; it is deleted once RETIRED_DATE is older than
+    // the grace period, so reads that started against it can finish
+    @Column(name = "RETIRED_FORMAT", length = 10)
+    @Enumerated(EnumType.STRING)
+    private StorageFormat retiredFormat;
+
+    @Column(name = "RETIRED_DATE")
+    private LocalDateTime retiredDate;
+
+    @Column(name = "REF_COUNT", nullable = false)
+    private Long refCount;
+
+    @CreationTimestamp
+    @Column(name = "CREATED_DATE", nullable = false)
+    private LocalDateTime createdDate;
+
+    // Each format lives under its own store key so a tier move never overwrites bytes being read
+    public enum StorageFormat {
+        RAW(""),
+        HOT(".hz"),
+        COLD(".cz");
+
+        private final String keySuffix;
+
+        StorageFormat(String keySuffix) {
+            this.keySuffix = keySuffix;
+        }
+
+        public String storeKey(String contentHash) {
+            return contentHash + keySuffix;
+        }
+    }
+}
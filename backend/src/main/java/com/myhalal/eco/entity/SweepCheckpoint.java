@@ -0,0 +1,54 @@
+package com.myhalal.eco.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// Progress of a long-running ID-range sweep, so a restart resumes after the last finished chunk
+@Entity
+@Table(name = "SWEEP_CHECKPOINTS")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SweepCheckpoint {
+
+    @Id
+    @Column(name = "SWEEP_NAME", length = 100)
+    private String sweepName;
+
+    @Column(name = "LAST_ID", nullable = false)
+    @Builder.Default
+    private Long lastId = 0L;
+
+    // Candidates are selected against the cutoff fixed when the run started
+    @Column(name = "CUTOFF_DATE")
+    private LocalDateTime cutoffDate;
+
+    @Column(name = "STARTED_DATE")
+    private LocalDateTime startedDate;
+
+    @Column(name = "COMPLETED_DATE")
+    private LocalDateTime completedDate;
+
+    @Column(name = "PROCESSED_COUNT", nullable = false)
+    @Builder.Default
+    private Long processedCount = 0L;
+
+    @Column(name = "INITIATED_COUNT", nullable = false)
+    @Builder.Default
+    private Long initiatedCount = 0L;
+
+    @UpdateTimestamp
+    @Column(name = "UPDATED_DATE")
+    private LocalDateTime updatedDate;
+
+    public boolean isRunning() {
+        return startedDate != null && completedDate == null;
+    }
+}
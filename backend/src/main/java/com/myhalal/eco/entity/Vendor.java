@@ -3,9 +3,13 @@ package com.myhalal.eco.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -15,7 +19,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "VENDORS")
+// Contact emails are stored normalised (see VendorService.normalizeEmail), so this is case-insensitive
+@Table(name = "VENDORS", uniqueConstraints = @UniqueConstraint(name = "UK_VENDORS_CONTACT_EMAIL",
+    columnNames = "CONTACT_EMAIL"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vendors")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,7 +32,7 @@ public class Vendor {
     
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vendor_seq")
-    @SequenceGenerator(name = "vendor_seq", sequenceName = "VENDOR_SEQ", allocationSize = 1)
+    @SequenceGenerator(name = "vendor_seq", sequenceName = "VENDOR_SEQ", allocationSize = 50)
     @Column(name = "VENDOR_ID")
     private Long vendorId;
 
@@ -82,6 +90,9 @@ public class Vendor {
     private LocalDate foundingDate;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @Column(name = "BUSINESS_LICENSE")
     private String businessLicense;
 
@@ -150,6 +161,10 @@ public class Vendor {
     @Column(name = "UPDATED_BY", length = 100)
     private String updatedBy;
 
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
+
     // Legacy field for backward compatibility
     @Column(name = "REG_DATE", nullable = false)
     private LocalDateTime regDate;
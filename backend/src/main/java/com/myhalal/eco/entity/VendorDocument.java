@@ -1,9 +1,12 @@
 package com.myhalal.eco.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import org.hibernate.annotations.CreationTimestamp;
@@ -12,7 +15,10 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "VENDOR_DOCUMENTS")
+@Table(name = "VENDOR_DOCUMENTS", indexes = {
+    @Index(name = "IDX_VENDOR_DOC_CONTENT_HASH", columnList = "CONTENT_HASH"),
+    @Index(name = "IDX_VENDOR_DOC_PROCESSING", columnList = "PROCESSING_STATUS, CREATED_DATE")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,11 +53,18 @@ public class VendorDocument {
     @Min(value = 0, message = "File size must be non-negative")
     private Long fileSize;
 
+    @Column(name = "CONTENT_HASH", length = 64)
+    private String contentHash;
+
     @Column(name = "MIME_TYPE", length = 100)
     @Size(max = 100, message = "MIME type must not exceed 100 characters")
     private String mimeType;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @Column(name = "DOCUMENT_CONTENT")
     private byte[] documentContent;
 
@@ -76,6 +89,31 @@ public class VendorDocument {
     @Size(max = 1000, message = "Notes must not exceed 1000 characters")
     private String notes;
 
+    @Column(name = "PROCESSING_STATUS", length = 20)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private ProcessingStatus processingStatus = ProcessingStatus.QUEUED;
+
+    @Column(name = "DETECTED_MIME_TYPE", length = 100)
+    private String detectedMimeType;
+
+    @Column(name = "PAGE_COUNT")
+    private Integer pageCount;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Column(name = "EXTRACTED_TEXT")
+    private String extractedText;
+
+    @Column(name = "PROCESSING_ERROR", length = 500)
+    private String processingError;
+
+    @Column(name = "PROCESSED_DATE")
+    private LocalDateTime processedDate;
+
     @CreationTimestamp
     @Column(name = "CREATED_DATE", nullable = false)
     private LocalDateTime createdDate;
@@ -108,6 +146,26 @@ public class VendorDocument {
         }
     }
 
+    public enum ProcessingStatus {
+        QUEUED("Waiting for background processing"),
+        SNIFFING("Detecting content type"),
+        VALIDATING("Checking size and page count"),
+        EXTRACTING("Extracting text"),
+        CHECKSUMMING("Verifying stored checksum"),
+        COMPLETED("Processing completed"),
+        FAILED("Processing failed");
+
+        private final String description;
+
+        ProcessingStatus(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
     public enum VerificationStatus {
         NOT_VERIFIED("Not verified"),
         VERIFIED("Verified"),
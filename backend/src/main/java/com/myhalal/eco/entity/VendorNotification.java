@@ -11,7 +11,12 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "VENDOR_NOTIFICATIONS")
+@Table(name = "VENDOR_NOTIFICATIONS", indexes = {
+    @Index(name = "IDX_VENDOR_NOTIF_CHANGE_SEQ", columnList = "VENDOR_ID, CHANGE_SEQ"),
+    // Unread lists and counts seek straight to a vendor's UNREAD rows, never through its read history
+    @Index(name = "IDX_VENDOR_NOTIF_STATUS", columnList = "VENDOR_ID, STATUS, PARTITION_MONTH"),
+    @Index(name = "IDX_NOTIF_PARTITION_STATUS", columnList = "PARTITION_MONTH, STATUS")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -84,6 +89,25 @@ public class VendorNotification {
     @Column(name = "CREATED_BY", length = 100)
     private String createdBy;
 
+    // Bumped from VENDOR_NOTIF_CHANGE_SEQ on insert and every state change, drives delta sync
+    @Column(name = "CHANGE_SEQ")
+    private Long changeSeq;
+
+    // yyyyMM of creation; retention drops and hot queries prune by this key
+    @Column(name = "PARTITION_MONTH", nullable = false, updatable = false)
+    private Integer partitionMonth;
+
+    @PrePersist
+    protected void onCreate() {
+        if (partitionMonth == null) {
+            partitionMonth = partitionOf(createdDate != null ? createdDate : LocalDateTime.now());
+        }
+    }
+
+    public static int partitionOf(LocalDateTime date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
     public enum Priority {
         LOW("Low priority"),
         NORMAL("Normal priority"),
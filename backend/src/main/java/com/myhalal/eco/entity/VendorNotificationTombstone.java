@@ -0,0 +1,36 @@
+package com.myhalal.eco.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "VENDOR_NOTIFICATION_TOMBSTONES", indexes = {
+    @Index(name = "IDX_VENDOR_NOTIF_TOMB_SEQ", columnList = "VENDOR_ID, CHANGE_SEQ")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VendorNotificationTombstone {
+
+    // Shares VENDOR_NOTIF_CHANGE_SEQ with VendorNotification.changeSeq so deletes order with upserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vendor_notif_change_seq")
+    @SequenceGenerator(name = "vendor_notif_change_seq", sequenceName = "VENDOR_NOTIF_CHANGE_SEQ", allocationSize = 1)
+    @Column(name = "CHANGE_SEQ")
+    private Long changeSeq;
+
+    @Column(name = "VENDOR_ID", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "NOTIFICATION_ID", nullable = false)
+    private Long notificationId;
+
+    @Column(name = "DELETED_DATE", nullable = false)
+    private LocalDateTime deletedDate;
+}
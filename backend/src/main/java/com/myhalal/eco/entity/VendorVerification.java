@@ -10,6 +10,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 
 @Entity
 @Table(name = "VENDOR_VERIFICATIONS")
@@ -21,7 +25,7 @@ public class VendorVerification {
     
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vendor_verification_seq")
-    @SequenceGenerator(name = "vendor_verification_seq", sequenceName = "VENDOR_VERIFICATION_SEQ", allocationSize = 1)
+    @SequenceGenerator(name = "vendor_verification_seq", sequenceName = "VENDOR_VERIFICATION_SEQ", allocationSize = 50)
     @Column(name = "VERIFICATION_ID")
     private Long verificationId;
 
@@ -114,6 +118,35 @@ public class VendorVerification {
     @Column(name = "UPDATED_BY", length = 100)
     private String updatedBy;
 
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
+
+    // Statuses in which a verification still needs work
+    public static final Set<VerificationStatus> OPEN_STATUSES = EnumSet.of(VerificationStatus.PENDING,
+        VerificationStatus.IN_PROGRESS, VerificationStatus.ON_HOLD);
+
+    // Status changes the workflow allows; REJECTED, EXPIRED and CANCELLED are final
+    private static final Map<VerificationStatus, Set<VerificationStatus>> TRANSITIONS =
+        new EnumMap<>(VerificationStatus.class);
+
+    static {
+        TRANSITIONS.put(VerificationStatus.PENDING, EnumSet.of(VerificationStatus.IN_PROGRESS,
+            VerificationStatus.ON_HOLD, VerificationStatus.COMPLETED, VerificationStatus.REJECTED,
+            VerificationStatus.FAILED, VerificationStatus.CANCELLED));
+        TRANSITIONS.put(VerificationStatus.IN_PROGRESS, EnumSet.of(VerificationStatus.IN_PROGRESS,
+            VerificationStatus.ON_HOLD, VerificationStatus.COMPLETED, VerificationStatus.REJECTED,
+            VerificationStatus.FAILED, VerificationStatus.CANCELLED));
+        TRANSITIONS.put(VerificationStatus.ON_HOLD, EnumSet.of(VerificationStatus.PENDING,
+            VerificationStatus.IN_PROGRESS, VerificationStatus.CANCELLED));
+        TRANSITIONS.put(VerificationStatus.COMPLETED, EnumSet.of(VerificationStatus.EXPIRED));
+        TRANSITIONS.put(VerificationStatus.FAILED, EnumSet.of(VerificationStatus.PENDING,
+            VerificationStatus.CANCELLED));
+        TRANSITIONS.put(VerificationStatus.REJECTED, EnumSet.noneOf(VerificationStatus.class));
+        TRANSITIONS.put(VerificationStatus.EXPIRED, EnumSet.noneOf(VerificationStatus.class));
+        TRANSITIONS.put(VerificationStatus.CANCELLED, EnumSet.noneOf(VerificationStatus.class));
+    }
+
     public enum VerificationStatus {
         PENDING("Verification pending"),
         IN_PROGRESS("Verification in progress"),
@@ -133,6 +166,10 @@ public class VendorVerification {
         public String getDescription() {
             return description;
         }
+
+        public boolean canTransitionTo(VerificationStatus target) {
+            return TRANSITIONS.get(this).contains(target);
+        }
     }
 
     public enum Priority {
@@ -153,6 +190,14 @@ public class VendorVerification {
     }
 
     // Helper methods
+    public void transitionTo(VerificationStatus target) {
+        VerificationStatus current = status != null ? status : VerificationStatus.PENDING;
+        if (!current.canTransitionTo(target)) {
+            throw new RuntimeException("Cannot change verification status from " + current + " to " + target);
+        }
+        this.status = target;
+    }
+
     public boolean isCompleted() {
         return VerificationStatus.COMPLETED.equals(this.status);
     }
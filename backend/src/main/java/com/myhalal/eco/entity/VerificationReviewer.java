@@ -0,0 +1,68 @@
+package com.myhalal.eco.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Entity
+@Table(name = "VERIFICATION_REVIEWERS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "verification-reviewers")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VerificationReviewer {
+
+    @Id
+    @Column(name = "USERNAME", length = 100)
+    @Size(max = 100, message = "Username must not exceed 100 characters")
+    private String username;
+
+    // Comma-separated verification types this reviewer handles; empty means every type
+    @Column(name = "VERIFICATION_TYPES", length = 500)
+    @Size(max = 500, message = "Verification types must not exceed 500 characters")
+    private String verificationTypes;
+
+    @Column(name = "CAPACITY", nullable = false)
+    @Min(value = 1, message = "Capacity must be at least 1")
+    @Max(value = 1000, message = "Capacity must not exceed 1000")
+    @Builder.Default
+    private Integer capacity = 10;
+
+    @Column(name = "ACTIVE", nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @CreationTimestamp
+    @Column(name = "CREATED_DATE", nullable = false)
+    private LocalDateTime createdDate;
+
+    @UpdateTimestamp
+    @Column(name = "UPDATED_DATE")
+    private LocalDateTime updatedDate;
+
+    @JsonIgnore
+    public Set<String> getSkills() {
+        if (verificationTypes == null || verificationTypes.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(verificationTypes.split(","))
+            .map(String::trim)
+            .filter(type -> !type.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,149 @@
+package com.myhalal.eco.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Writes a forward-only stream of summary records as NDJSON or CSV, one row at a time. Callers pass
+// repository streams of JPQL constructor projections, so nothing accumulates in the persistence
+// context and memory stays flat however many rows the query returns.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RecordStreamWriter {
+
+    // JDBC fetch size for streaming repository queries; rows are pulled from the driver in chunks of this
+    public static final String FETCH_SIZE = "500";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ObjectMapper objectMapper;
+
+    // Rows are written on the async request thread once the handler has returned; a bad format is
+    // answered with the usual {"error": ...} body instead
+    public ResponseEntity<StreamingResponseBody> respond(String format, String baseName, Export export) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.parse(format);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                .body(output -> objectMapper.writeValue(output, Map.of("error", e.getMessage())));
+        }
+        return exportFormat.respond(baseName, output -> {
+            long rows = export.write(exportFormat, output);
+            log.info("Exported {} rows of {} as {}", rows, baseName, exportFormat);
+        });
+    }
+
+    public <T extends Record> long write(Stream<T> rows, Class<T> type, ExportFormat format, OutputStream output)
+            throws IOException {
+        return format == ExportFormat.CSV ? writeCsv(rows.iterator(), type, output) : writeNdjson(rows.iterator(), output);
+    }
+
+    private long writeNdjson(Iterator<? extends Record> rows, OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writer()
+            .without(SerializationFeature.INDENT_OUTPUT)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = writer.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (rows.hasNext()) {
+                writer.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        output.flush();
+        return count;
+    }
+
+    private <T extends Record> long writeCsv(Iterator<T> rows, Class<T> type, OutputStream output) throws IOException {
+        RecordComponent[] components = type.getRecordComponents();
+        Method[] accessors = new Method[components.length];
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        for (int i = 0; i < components.length; i++) {
+            accessors[i] = components[i].getAccessor();
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(components[i].getName());
+        }
+        writer.write("\r\n");
+
+        long count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            for (int i = 0; i < accessors.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, read(accessors[i], row));
+            }
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static Object read(Method accessor, Record row) {
+        try {
+            return accessor.invoke(row);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Could not read " + accessor.getName() + " for export", e);
+        }
+    }
+
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (!(value instanceof Number) && startsFormula(text)) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // Spreadsheets evaluate a cell starting with one of these as a formula, so vendor-supplied text
+    // such as =HYPERLINK(...) is neutralised with a leading quote; numbers are left as they are
+    private static boolean startsFormula(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    @FunctionalInterface
+    public interface Export {
+        long write(ExportFormat format, OutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,53 @@
+package com.myhalal.eco.index;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tracks change sequence numbers held by transactions that have not finished yet. Numbers are taken
+// when a row is written, not when it commits, so N can become visible after N+1; a reader that only
+// serves changes up to the safe high-water mark never moves a client past a change still in flight.
+// A reservation is opened before the number is drawn, so a racing reader is always held below it.
+// Reservations live only in this JVM, so delta sync requires a single application node: with two,
+// one node could serve past a number the other has reserved but not committed, and clients polling
+// it would skip that change for good.
+public class ChangeSeqWindow {
+
+    private final AtomicLong highestAllocated = new AtomicLong();
+    private final Set<Reservation> open = ConcurrentHashMap.newKeySet();
+
+    public Reservation open() {
+        Reservation reservation = new Reservation(highestAllocated.get() + 1);
+        open.add(reservation);
+        return reservation;
+    }
+
+    public void allocated(long seq) {
+        highestAllocated.accumulateAndGet(seq, Math::max);
+    }
+
+    public void close(Reservation reservation) {
+        open.remove(reservation);
+    }
+
+    // Every number at or below this belongs to a transaction that has already committed or rolled back
+    public long safeHighWaterMark() {
+        long mark = highestAllocated.get();
+        for (Reservation reservation : open) {
+            mark = Math.min(mark, reservation.floor - 1);
+        }
+        return mark;
+    }
+
+    public int inFlight() {
+        return open.size();
+    }
+
+    public static final class Reservation {
+        private final long floor;
+
+        private Reservation(long floor) {
+            this.floor = floor;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.myhalal.eco.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Per-vendor compliance flags plus the moment they stop holding, stored in pages of 4096 dense
+// vendor IDs: twelve bytes a vendor and one map lookup per page, with no per-vendor objects.
+// A flags value of zero means the vendor has not been evaluated.
+public class ComplianceIndex {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final Map<Long, Page> pages = new ConcurrentHashMap<>();
+
+    // validUntil is in epoch seconds; Long.MAX_VALUE when nothing is due to lapse
+    public void put(long vendorId, int flags, long validUntil) {
+        Page page = pages.computeIfAbsent(vendorId >>> PAGE_BITS, key -> new Page());
+        int slot = (int) (vendorId & PAGE_MASK);
+        // Written before the flags so a reader that sees the new flags also sees their deadline
+        page.validUntil.set(slot, validUntil);
+        page.flags.set(slot, flags);
+    }
+
+    public int flags(long vendorId) {
+        Page page = pages.get(vendorId >>> PAGE_BITS);
+        return page != null ? page.flags.get((int) (vendorId & PAGE_MASK)) : 0;
+    }
+
+    public long validUntil(long vendorId) {
+        Page page = pages.get(vendorId >>> PAGE_BITS);
+        return page != null ? page.validUntil.get((int) (vendorId & PAGE_MASK)) : 0;
+    }
+
+    public void clear() {
+        pages.clear();
+    }
+
+    private static final class Page {
+
+        private final AtomicIntegerArray flags = new AtomicIntegerArray(PAGE_SIZE);
+        private final AtomicLongArray validUntil = new AtomicLongArray(PAGE_SIZE);
+    }
+}
@@ -0,0 +1,16 @@
+package com.myhalal.eco.index;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+public record ExpiryEntry(Long id, Long vendorId, LocalDateTime expiryDate) implements Comparable<ExpiryEntry> {
+
+    private static final Comparator<ExpiryEntry> ORDER = Comparator
+        .comparing(ExpiryEntry::expiryDate)
+        .thenComparing(ExpiryEntry::id);
+
+    @Override
+    public int compareTo(ExpiryEntry other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,66 @@
+package com.myhalal.eco.index;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Entries ordered by (expiryDate, id) so due ranges are a sub-set walk instead of a table scan.
+// byId keeps the current entry per row so a changed expiry date replaces the old position.
+public class ExpiryIndex {
+
+    private static final long MAX_ID = Long.MAX_VALUE;
+
+    private final NavigableSet<ExpiryEntry> byExpiry = new ConcurrentSkipListSet<>();
+    private final Map<Long, ExpiryEntry> byId = new ConcurrentHashMap<>();
+
+    public void put(Long id, Long vendorId, LocalDateTime expiryDate) {
+        if (expiryDate == null) {
+            remove(id);
+            return;
+        }
+        ExpiryEntry entry = new ExpiryEntry(id, vendorId, expiryDate);
+        byId.compute(id, (key, previous) -> {
+            if (previous != null) {
+                byExpiry.remove(previous);
+            }
+            byExpiry.add(entry);
+            return entry;
+        });
+    }
+
+    public void remove(Long id) {
+        byId.computeIfPresent(id, (key, previous) -> {
+            byExpiry.remove(previous);
+            return null;
+        });
+    }
+
+    // Entries with fromExclusive < expiryDate <= toInclusive, oldest first; a null lower bound means unbounded
+    public List<ExpiryEntry> range(LocalDateTime fromExclusive, LocalDateTime toInclusive, int limit) {
+        NavigableSet<ExpiryEntry> due = fromExclusive == null
+            ? byExpiry.headSet(new ExpiryEntry(MAX_ID, null, toInclusive), true)
+            : byExpiry.subSet(new ExpiryEntry(MAX_ID, null, fromExclusive), false,
+                new ExpiryEntry(MAX_ID, null, toInclusive), true);
+
+        List<ExpiryEntry> result = new ArrayList<>(Math.min(limit, 1024));
+        for (ExpiryEntry entry : due) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    public List<ExpiryEntry> range(LocalDateTime fromExclusive, LocalDateTime toInclusive) {
+        return range(fromExclusive, toInclusive, Integer.MAX_VALUE);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+}
@@ -0,0 +1,85 @@
+package com.myhalal.eco.index;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// Log-bucketed histogram of millisecond durations in the style of HdrHistogram: each power of two
+// is split into 32 linear sub-buckets, so any recorded value is reported within about 3%.
+// Recording is a couple of bit operations and one atomic increment, with no allocation.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^40 ms is roughly 35 years; anything longer is clamped
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(long millis) {
+        long value = Math.min(Math.max(millis, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        max.accumulate(value);
+    }
+
+    public Map<String, Object> snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        // Bucket upper bounds can overshoot the largest sample, so percentiles are capped at the max
+        long highest = total > 0 ? max.get() : 0;
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("count", total);
+        view.put("p50Seconds", seconds(Math.min(percentile(snapshot, total, 0.50), highest)));
+        view.put("p95Seconds", seconds(Math.min(percentile(snapshot, total, 0.95), highest)));
+        view.put("p99Seconds", seconds(Math.min(percentile(snapshot, total, 0.99), highest)));
+        view.put("maxSeconds", seconds(highest));
+        return view;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+    }
+
+    // Highest value that lands in the bucket, as HdrHistogram reports percentiles
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int mantissa = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + mantissa + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] snapshot, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestValueAt(i);
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    private static double seconds(long millis) {
+        return millis / 1000.0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.myhalal.eco.index;
+
+import com.myhalal.eco.entity.VendorVerification;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+// A pending verification ordered by when its SLA runs out, so urgency and age share one scale
+public record QueuedVerification(
+    Long id,
+    Long vendorId,
+    String verificationType,
+    VendorVerification.Priority priority,
+    LocalDateTime initiatedDate,
+    LocalDateTime dueDate
+) implements Comparable<QueuedVerification> {
+
+    private static final Comparator<QueuedVerification> ORDER = Comparator
+        .comparing(QueuedVerification::dueDate)
+        .thenComparing(QueuedVerification::id);
+
+    @Override
+    public int compareTo(QueuedVerification other) {
+        return ORDER.compare(this, other);
+    }
+}
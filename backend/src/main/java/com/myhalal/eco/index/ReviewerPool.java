@@ -0,0 +1,220 @@
+package com.myhalal.eco.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reviewer load for automatic assignment. Each reviewer holds an atomic in-flight counter bounded
+// by their capacity; acquire() samples two eligible reviewers, takes the less loaded one and
+// reserves a slot with compare-and-set, so the hot path never blocks. Eligibility per verification
+// type is a copy-on-write snapshot rebuilt only when the roster changes.
+public class ReviewerPool {
+
+    private static final Slot[] NONE = new Slot[0];
+    private static final int SAMPLE_ATTEMPTS = 3;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    // Kept apart from the roster: work assigned before a reviewer was deactivated is still counted,
+    // and released, while they are away and when they come back
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), NONE);
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder casRetries = new LongAdder();
+    private final LongAdder selectNanos = new LongAdder();
+
+    // Roster changes are rare and serialised; in-flight counts survive a capacity or skill update
+    public synchronized void register(String username, Set<String> types, int capacity) {
+        Slot slot = new Slot(username, Set.copyOf(types), capacity, counter(username));
+        slots.put(username, slot);
+        rebuild();
+    }
+
+    public synchronized void unregister(String username) {
+        if (slots.remove(username) != null) {
+            rebuild();
+        }
+    }
+
+    public synchronized void reset(Map<String, Integer> counts) {
+        inFlight.keySet().removeIf(username -> !slots.containsKey(username) && !counts.containsKey(username));
+        counts.keySet().forEach(this::counter);
+        inFlight.forEach((username, count) -> count.set(counts.getOrDefault(username, 0)));
+    }
+
+    // Reserves a slot with the least loaded eligible reviewer, or returns null when all are full
+    public String acquire(String verificationType) {
+        long started = System.nanoTime();
+        try {
+            Slot[] candidates = snapshot.eligible(verificationType);
+            Slot chosen = candidates.length == 0 ? null : pick(candidates);
+            if (chosen == null) {
+                rejected.increment();
+                return null;
+            }
+            acquired.increment();
+            return chosen.username;
+        } finally {
+            selectNanos.add(System.nanoTime() - started);
+        }
+    }
+
+    // Manual assignments and claims are always honoured, even past capacity
+    public void forceAcquire(String username) {
+        if (username != null) {
+            counter(username).incrementAndGet();
+        }
+    }
+
+    public void release(String username) {
+        AtomicInteger count = username != null ? inFlight.get(username) : null;
+        if (count != null) {
+            count.updateAndGet(current -> current > 0 ? current - 1 : 0);
+        }
+    }
+
+    public List<Map<String, Object>> loads() {
+        List<Map<String, Object>> loads = new ArrayList<>();
+        for (Slot slot : slots.values()) {
+            Map<String, Object> load = new LinkedHashMap<>();
+            load.put("username", slot.username);
+            load.put("verificationTypes", slot.types);
+            load.put("capacity", slot.capacity);
+            load.put("inFlight", slot.inFlight.get());
+            loads.add(load);
+        }
+        return loads;
+    }
+
+    public Map<String, Object> getMetrics() {
+        long attempts = acquired.sum() + rejected.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("reviewers", slots.size());
+        metrics.put("attempts", attempts);
+        metrics.put("acquired", acquired.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("fallbackScans", fallbacks.sum());
+        metrics.put("casRetries", casRetries.sum());
+        metrics.put("avgSelectMicros", attempts > 0 ? selectNanos.sum() / 1000.0 / attempts : 0.0);
+        return metrics;
+    }
+
+    private AtomicInteger counter(String username) {
+        return inFlight.computeIfAbsent(username, key -> new AtomicInteger());
+    }
+
+    private Slot pick(Slot[] candidates) {
+        if (candidates.length == 1) {
+            return tryAcquire(candidates[0]) ? candidates[0] : null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < SAMPLE_ATTEMPTS; attempt++) {
+            int first = random.nextInt(candidates.length);
+            int second = random.nextInt(candidates.length - 1);
+            if (second >= first) {
+                second++;
+            }
+            Slot a = candidates[first];
+            Slot b = candidates[second];
+            Slot lighter = a.lighterThan(b) ? a : b;
+            Slot heavier = lighter == a ? b : a;
+            if (tryAcquire(lighter)) {
+                return lighter;
+            }
+            if (tryAcquire(heavier)) {
+                return heavier;
+            }
+        }
+
+        // Both samples were full every time; scan for whoever still has room
+        fallbacks.increment();
+        while (true) {
+            Slot best = null;
+            for (Slot slot : candidates) {
+                if (slot.hasRoom() && (best == null || slot.lighterThan(best))) {
+                    best = slot;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            if (tryAcquire(best)) {
+                return best;
+            }
+        }
+    }
+
+    private boolean tryAcquire(Slot slot) {
+        while (true) {
+            int current = slot.inFlight.get();
+            if (current >= slot.capacity) {
+                return false;
+            }
+            if (slot.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    private void rebuild() {
+        List<Slot> generalists = new ArrayList<>();
+        Map<String, List<Slot>> specialists = new HashMap<>();
+        for (Slot slot : slots.values()) {
+            if (slot.types.isEmpty()) {
+                generalists.add(slot);
+            } else {
+                slot.types.forEach(type -> specialists.computeIfAbsent(type, key -> new ArrayList<>()).add(slot));
+            }
+        }
+        Map<String, Slot[]> byType = new HashMap<>();
+        specialists.forEach((type, list) -> {
+            list.addAll(generalists);
+            byType.put(type, list.toArray(NONE));
+        });
+        snapshot = new Snapshot(Map.copyOf(byType), generalists.toArray(NONE));
+    }
+
+    private record Snapshot(Map<String, Slot[]> byType, Slot[] generalists) {
+
+        Slot[] eligible(String verificationType) {
+            Slot[] candidates = verificationType != null ? byType.get(verificationType) : null;
+            return candidates != null ? candidates : generalists;
+        }
+    }
+
+    private static final class Slot {
+
+        private final String username;
+        private final Set<String> types;
+        private final int capacity;
+        private final AtomicInteger inFlight;
+
+        private Slot(String username, Set<String> types, int capacity, AtomicInteger inFlight) {
+            this.username = username;
+            this.types = types;
+            this.capacity = capacity;
+            this.inFlight = inFlight;
+        }
+
+        private boolean hasRoom() {
+            return inFlight.get() < capacity;
+        }
+
+        // Compares utilisation without division: a/capA < b/capB
+        private boolean lighterThan(Slot other) {
+            return (long) inFlight.get() * other.capacity < (long) other.inFlight.get() * capacity;
+        }
+    }
+}
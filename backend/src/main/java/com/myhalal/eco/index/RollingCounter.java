@@ -0,0 +1,38 @@
+package com.myhalal.eco.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Events per minute over the last hour, in a ring of one-minute slots. A slot is recycled by the
+// first writer of a new minute; an increment racing that reset can be lost, which is acceptable
+// for a throughput gauge and keeps the write path to two atomic operations.
+public class RollingCounter {
+
+    public static final int MAX_WINDOW_MINUTES = 60;
+
+    private final AtomicLongArray minutes = new AtomicLongArray(MAX_WINDOW_MINUTES);
+    private final AtomicLongArray counts = new AtomicLongArray(MAX_WINDOW_MINUTES);
+
+    public void increment(long epochMillis) {
+        long minute = epochMillis / 60_000;
+        int slot = (int) (minute % MAX_WINDOW_MINUTES);
+        long current = minutes.get(slot);
+        if (current != minute && minutes.compareAndSet(slot, current, minute)) {
+            counts.set(slot, 0);
+        }
+        counts.incrementAndGet(slot);
+    }
+
+    // Total over the trailing window, including the current partial minute
+    public long sum(long epochMillis, int windowMinutes) {
+        long now = epochMillis / 60_000;
+        int window = Math.min(Math.max(windowMinutes, 1), MAX_WINDOW_MINUTES);
+        long total = 0;
+        for (int slot = 0; slot < MAX_WINDOW_MINUTES; slot++) {
+            long minute = minutes.get(slot);
+            if (minute > now - window && minute <= now) {
+                total += counts.get(slot);
+            }
+        }
+        return total;
+    }
+}
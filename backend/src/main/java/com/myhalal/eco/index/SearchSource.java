@@ -0,0 +1,15 @@
+package com.myhalal.eco.index;
+
+// Everything the search index needs for one document, selected without touching DOCUMENT_CONTENT
+public record SearchSource(
+    Long documentId,
+    Long vendorId,
+    String documentType,
+    String documentName,
+    String contentHash,
+    String text
+) {
+    public static final String SELECT = "SELECT new com.myhalal.eco.index.SearchSource(" +
+        "d.documentId, d.vendor.vendorId, d.documentType, d.documentName, d.contentHash, d.extractedText) " +
+        "FROM VendorDocument d ";
+}
@@ -0,0 +1,80 @@
+package com.myhalal.eco.index;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Earliest-deadline-first queue of pending verifications. Every item ages at the same rate, so
+// ordering by SLA due date is equivalent to ordering by priority weight plus age and never needs
+// re-scoring. byId keeps the current entry per row so priority changes replace the old position.
+public class VerificationQueue {
+
+    private final NavigableSet<QueuedVerification> byDueDate = new ConcurrentSkipListSet<>();
+    private final Map<Long, QueuedVerification> byId = new ConcurrentHashMap<>();
+
+    public void put(QueuedVerification entry) {
+        byId.compute(entry.id(), (key, previous) -> {
+            if (previous != null) {
+                byDueDate.remove(previous);
+            }
+            byDueDate.add(entry);
+            return entry;
+        });
+    }
+
+    public void remove(Long id) {
+        byId.computeIfPresent(id, (key, previous) -> {
+            byDueDate.remove(previous);
+            return null;
+        });
+    }
+
+    // Removes and returns the most urgent entry; concurrent callers never get the same one
+    public QueuedVerification poll() {
+        while (true) {
+            QueuedVerification first = byDueDate.pollFirst();
+            if (first == null) {
+                return null;
+            }
+            if (byId.remove(first.id(), first)) {
+                return first;
+            }
+        }
+    }
+
+    public List<QueuedVerification> peek(int limit) {
+        List<QueuedVerification> result = new ArrayList<>(Math.min(limit, 1024));
+        for (QueuedVerification entry : byDueDate) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    // Drops entries missing from a database snapshot; entries initiated after the snapshot started
+    // may simply not have been visible to it, so they are kept
+    public void retainAll(Set<Long> ids, LocalDateTime snapshotStart) {
+        for (QueuedVerification entry : byId.values()) {
+            if (!ids.contains(entry.id()) && entry.initiatedDate().isBefore(snapshotStart)) {
+                byId.computeIfPresent(entry.id(), (key, current) -> {
+                    if (current != entry) {
+                        return current;
+                    }
+                    byDueDate.remove(current);
+                    return null;
+                });
+            }
+        }
+    }
+
+    public int size() {
+        return byId.size();
+    }
+}
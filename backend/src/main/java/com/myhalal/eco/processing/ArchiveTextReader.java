@@ -0,0 +1,114 @@
+package com.myhalal.eco.processing;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Streams body text out of Word, Excel, PowerPoint and OpenDocument archives without holding
+// the archive or any entry in memory; decompressed bytes are capped to defuse zip bombs
+public final class ArchiveTextReader {
+
+    private static final Set<String> TEXT_ENTRIES = Set.of("word/document.xml", "xl/sharedStrings.xml", "content.xml");
+    private static final Set<String> PARAGRAPH_ENDS = Set.of("p", "si");
+    private static final Set<String> TABS = Set.of("tab");
+
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+
+    static {
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private ArchiveTextReader() {
+    }
+
+    public static String read(InputStream archive, long maxDecodedBytes, int maxChars) throws IOException {
+        StringBuilder text = new StringBuilder();
+        long[] budget = {maxDecodedBytes};
+        try (ZipInputStream zip = new ZipInputStream(archive)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null && text.length() < maxChars && budget[0] > 0) {
+                String name = entry.getName();
+                if (TEXT_ENTRIES.contains(name) || (name.startsWith("ppt/slides/slide") && name.endsWith(".xml"))) {
+                    appendXmlText(new BudgetedInputStream(zip, budget), text, maxChars);
+                }
+            }
+        }
+        return text.isEmpty() ? null : text.length() > maxChars ? text.substring(0, maxChars) : text.toString();
+    }
+
+    private static void appendXmlText(InputStream xml, StringBuilder text, int maxChars) throws IOException {
+        try {
+            XMLStreamReader reader = XML.createXMLStreamReader(xml);
+            try {
+                while (reader.hasNext() && text.length() < maxChars) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(reader.getText());
+                        case XMLStreamConstants.START_ELEMENT -> {
+                            if (TABS.contains(reader.getLocalName())) {
+                                text.append(' ');
+                            }
+                        }
+                        case XMLStreamConstants.END_ELEMENT -> {
+                            if (PARAGRAPH_ENDS.contains(reader.getLocalName())) {
+                                text.append('\n');
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            // A truncated or malformed part still contributes whatever text came before the error
+        }
+    }
+
+    // Charges every byte read from an entry against the archive-wide budget and never closes the zip
+    private static class BudgetedInputStream extends FilterInputStream {
+
+        private final long[] budget;
+
+        BudgetedInputStream(InputStream in, long[] budget) {
+            super(in);
+            this.budget = budget;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (budget[0] <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                budget[0]--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (budget[0] <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, budget[0]));
+            if (read > 0) {
+                budget[0] -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
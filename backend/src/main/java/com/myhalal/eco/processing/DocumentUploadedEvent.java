@@ -0,0 +1,4 @@
+package com.myhalal.eco.processing;
+
+public record DocumentUploadedEvent(Long documentId) {
+}
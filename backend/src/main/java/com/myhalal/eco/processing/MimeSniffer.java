@@ -0,0 +1,131 @@
+package com.myhalal.eco.processing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// Detects the real content type from leading magic bytes instead of trusting the client header
+public final class MimeSniffer {
+
+    public static final int HEADER_SIZE = 8 * 1024;
+
+    public static final String OCTET_STREAM = "application/octet-stream";
+
+    private MimeSniffer() {
+    }
+
+    public static String detect(byte[] header, int length) {
+        if (length <= 0) {
+            return null;
+        }
+        if (startsWith(header, length, "%PDF-")) {
+            return "application/pdf";
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, length, "GIF87a") || startsWith(header, length, "GIF89a")) {
+            return "image/gif";
+        }
+        if (startsWith(header, length, 'I', 'I', 0x2A, 0x00) || startsWith(header, length, 'M', 'M', 0x00, 0x2A)) {
+            return "image/tiff";
+        }
+        if (startsWith(header, length, "RIFF") && length >= 12 && header[8] == 'W' && header[9] == 'E'
+                && header[10] == 'B' && header[11] == 'P') {
+            return "image/webp";
+        }
+        if (startsWith(header, length, 'P', 'K', 0x03, 0x04)) {
+            return "application/zip";
+        }
+        if (isText(header, length)) {
+            return "text/plain";
+        }
+        return null;
+    }
+
+    // Containers and text are reported generically, so accept the more specific declared type
+    public static boolean isCompatible(String declared, String detected) {
+        String declaredType = normalise(declared);
+        if (declaredType == null || declaredType.equals(OCTET_STREAM)) {
+            return true;
+        }
+        if (declaredType.equals(detected)) {
+            return true;
+        }
+        return switch (detected) {
+            case "application/zip" -> declaredType.endsWith("+zip")
+                || declaredType.startsWith("application/vnd.openxmlformats-officedocument.")
+                || declaredType.startsWith("application/vnd.oasis.opendocument.")
+                || declaredType.equals("application/x-zip-compressed");
+            case "text/plain" -> declaredType.startsWith("text/")
+                || declaredType.equals("application/json")
+                || declaredType.equals("application/xml");
+            case "image/jpeg" -> declaredType.equals("image/jpg") || declaredType.equals("image/pjpeg");
+            default -> false;
+        };
+    }
+
+    public static String normalise(String mimeType) {
+        if (mimeType == null || mimeType.isBlank()) {
+            return null;
+        }
+        int separator = mimeType.indexOf(';');
+        String type = separator >= 0 ? mimeType.substring(0, separator) : mimeType;
+        return type.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean startsWith(byte[] header, int length, String magic) {
+        if (length < magic.length()) {
+            return false;
+        }
+        for (int i = 0; i < magic.length(); i++) {
+            if (header[i] != (byte) magic.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != (byte) magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isText(byte[] header, int length) {
+        for (int i = 0; i < length; i++) {
+            int b = header[i] & 0xFF;
+            if (b == 0 || (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f')) {
+                return false;
+            }
+        }
+        // The header may cut a multi-byte sequence in half, so only the complete prefix has to decode
+        int end = length;
+        while (end > 0 && length - end < 3 && (header[end - 1] & 0xC0) == 0x80) {
+            end--;
+        }
+        if (end > 0 && (header[end - 1] & 0xC0) == 0xC0) {
+            end--;
+        }
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(header, 0, end));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
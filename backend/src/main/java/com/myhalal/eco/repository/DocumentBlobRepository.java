@@ -0,0 +1,84 @@
+package com.myhalal.eco.repository;
+
+import com.myhalal.eco.entity.DocumentBlob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DocumentBlobRepository extends JpaRepository<DocumentBlob, String> {
+
+    // Taking, dropping and purging a reference all go through this row lock, one content hash at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM DocumentBlob b WHERE b.contentHash = :contentHash")
+    Optional<DocumentBlob> findForUpdate(@Param("contentHash") String contentHash);
+
+    @Query("SELECT b.contentHash FROM DocumentBlob b WHERE b.refCount = 0 AND b.createdDate < :createdBefore " +
+           "ORDER BY b.createdDate")
+    List<String> findUnreferenced(@Param("createdBefore") LocalDateTime createdBefore, Pageable pageable);
+
+    // Native DML without declared query spaces would evict every second-level cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "DOCUMENT_BLOBS"))
+    @Query(value = "INSERT INTO DOCUMENT_BLOBS (CONTENT_HASH, STORAGE_PATH, SIZE, STORAGE_FORMAT, STORED_SIZE, " +
+           "REF_COUNT, LAST_ACCESSED_DATE, CREATED_DATE) VALUES (:contentHash, :storagePath, :size, :storageFormat, " +
+           ":storedSize, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int insertUnreferenced(
+        @Param("contentHash") String contentHash,
+        @Param("storagePath") String storagePath,
+        @Param("size") long size,
+        @Param("storageFormat") String storageFormat,
+        @Param("storedSize") long storedSize
+    );
+    
+    @Modifying
+    @Query("UPDATE DocumentBlob b SET b.lastAccessedDate = :accessedDate WHERE b.contentHash IN :contentHashes")
+    int markAccessed(
+        @Param("contentHashes") Collection<String> contentHashes,
+        @Param("accessedDate") LocalDateTime accessedDate
+    );
+    
+    @Query("SELECT b.contentHash FROM DocumentBlob b WHERE b.storageFormat = :storageFormat " +
+           "AND b.lastAccessedDate < :cutoff AND b.refCount > 0 ORDER BY b.lastAccessedDate")
+    List<String> findIdleBlobs(
+        @Param("storageFormat") DocumentBlob.StorageFormat storageFormat,
+        @Param("cutoff") LocalDateTime cutoff,
+        Pageable pageable
+    );
+    
+    // Conditional on the old format so a concurrent move or release is not overwritten; the old object
+    // is only marked retired here and deleted later by purgeRetiredObjects
+    @Modifying
+    @Query("UPDATE DocumentBlob b SET b.storageFormat = :newFormat, b.storedSize = :storedSize, " +
+           "b.storagePath = :storagePath, b.retiredFormat = :oldFormat, b.retiredDate = :retiredDate " +
+           "WHERE b.contentHash = :contentHash AND b.storageFormat = :oldFormat")
+    int changeFormat(
+        @Param("contentHash") String contentHash,
+        @Param("oldFormat") DocumentBlob.StorageFormat oldFormat,
+        @Param("newFormat") DocumentBlob.StorageFormat newFormat,
+        @Param("storedSize") long storedSize,
+        @Param("storagePath") String storagePath,
+        @Param("retiredDate") LocalDateTime retiredDate
+    );
+
+    @Query("SELECT b.contentHash FROM DocumentBlob b WHERE b.retiredFormat IS NOT NULL " +
+           "AND b.retiredDate < :retiredBefore ORDER BY b.retiredDate")
+    List<String> findRetiredBefore(@Param("retiredBefore") LocalDateTime retiredBefore, Pageable pageable);
+    
+    @Query("SELECT b.storageFormat, COUNT(b), SUM(b.size), SUM(b.storedSize) FROM DocumentBlob b " +
+           "GROUP BY b.storageFormat")
+    List<Object[]> getFormatTotals();
+}
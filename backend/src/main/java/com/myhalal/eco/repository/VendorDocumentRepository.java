@@ -1,13 +1,27 @@
 package com.myhalal.eco.repository;
 
+import com.myhalal.eco.dto.VendorDocumentSummary;
 import com.myhalal.eco.entity.VendorDocument;
+import com.myhalal.eco.export.RecordStreamWriter;
+import com.myhalal.eco.index.ExpiryEntry;
+import com.myhalal.eco.index.SearchSource;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VendorDocumentRepository extends JpaRepository<VendorDocument, Long> {
@@ -42,4 +56,147 @@ public interface VendorDocumentRepository extends JpaRepository<VendorDocument,
         String documentType, 
         VendorDocument.VerificationStatus verificationStatus
     );
+    
+    @Query(VendorDocumentSummary.SELECT + "WHERE d.vendor.vendorId = :vendorId ORDER BY d.createdDate DESC")
+    List<VendorDocumentSummary> findSummariesByVendorId(@Param("vendorId") Long vendorId);
+    
+    @Query(VendorDocumentSummary.SELECT + "WHERE d.vendor.vendorId = :vendorId AND d.documentId > :afterId " +
+           "ORDER BY d.documentId")
+    List<VendorDocumentSummary> findSummariesByVendorIdAfter(
+        @Param("vendorId") Long vendorId,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+    
+    @Query(VendorDocumentSummary.SELECT + "WHERE d.vendor.vendorId = :vendorId " +
+           "AND d.documentType = :documentType ORDER BY d.createdDate DESC")
+    List<VendorDocumentSummary> findSummariesByVendorIdAndDocumentType(
+        @Param("vendorId") Long vendorId,
+        @Param("documentType") String documentType
+    );
+    
+    @Query(value = VendorDocumentSummary.SELECT + "WHERE d.verificationStatus = :verificationStatus",
+           countQuery = "SELECT COUNT(d) FROM VendorDocument d WHERE d.verificationStatus = :verificationStatus")
+    Page<VendorDocumentSummary> findSummariesByVerificationStatus(
+        @Param("verificationStatus") VendorDocument.VerificationStatus verificationStatus,
+        Pageable pageable
+    );
+    
+    @Query(VendorDocumentSummary.SELECT + "WHERE d.expiryDate <= :date")
+    List<VendorDocumentSummary> findExpiredSummaries(@Param("date") LocalDateTime date);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RecordStreamWriter.FETCH_SIZE))
+    @Query(VendorDocumentSummary.SELECT + "WHERE d.expiryDate <= :date ORDER BY d.expiryDate, d.documentId")
+    Stream<VendorDocumentSummary> streamExpiredSummaries(@Param("date") LocalDateTime date);
+    
+    @Query(VendorDocumentSummary.SELECT + "WHERE d.expiryDate BETWEEN :startDate AND :endDate")
+    List<VendorDocumentSummary> findExpiringSummaries(
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate
+    );
+    
+    @Query(VendorDocumentSummary.SELECT + "WHERE d.documentId IN :documentIds")
+    List<VendorDocumentSummary> findSummariesByIds(@Param("documentIds") Collection<Long> documentIds);
+    
+    @Query("SELECT new com.myhalal.eco.index.ExpiryEntry(d.documentId, d.vendor.vendorId, d.expiryDate) " +
+           "FROM VendorDocument d WHERE d.expiryDate IS NOT NULL")
+    List<ExpiryEntry> findExpiryEntries();
+    
+    @Query(SearchSource.SELECT + "WHERE d.documentId = :documentId AND d.processingStatus = :status")
+    Optional<SearchSource> findSearchSource(
+        @Param("documentId") Long documentId,
+        @Param("status") VendorDocument.ProcessingStatus status
+    );
+    
+    @Query(SearchSource.SELECT + "WHERE d.processingStatus = :status AND d.documentId > :afterId " +
+           "ORDER BY d.documentId")
+    List<SearchSource> findSearchSources(
+        @Param("status") VendorDocument.ProcessingStatus status,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+    
+    long countByProcessingStatus(VendorDocument.ProcessingStatus processingStatus);
+    
+    @Query("SELECT d.documentId FROM VendorDocument d WHERE d.processingStatus IN :statuses " +
+           "AND d.createdDate < :cutoff ORDER BY d.documentId")
+    List<Long> findDocumentIdsByProcessingStatus(
+        @Param("statuses") Collection<VendorDocument.ProcessingStatus> statuses,
+        @Param("cutoff") LocalDateTime cutoff,
+        Pageable pageable
+    );
+    
+    // Pipeline workers run outside any service transaction, so these updates carry their own
+    @Modifying
+    @Transactional
+    @Query("UPDATE VendorDocument d SET d.processingStatus = :status, d.processingError = :error " +
+           "WHERE d.documentId = :documentId")
+    int updateProcessingStatus(
+        @Param("documentId") Long documentId,
+        @Param("status") VendorDocument.ProcessingStatus status,
+        @Param("error") String error
+    );
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE VendorDocument d SET d.processingStatus = :completed, d.mimeType = :mimeType, " +
+           "d.detectedMimeType = :detectedMimeType, d.pageCount = :pageCount, d.extractedText = :extractedText, " +
+           "d.processingError = NULL, d.processedDate = CURRENT_TIMESTAMP " +
+           "WHERE d.documentId = :documentId")
+    int completeProcessing(
+        @Param("documentId") Long documentId,
+        @Param("completed") VendorDocument.ProcessingStatus completed,
+        @Param("mimeType") String mimeType,
+        @Param("detectedMimeType") String detectedMimeType,
+        @Param("pageCount") Integer pageCount,
+        @Param("extractedText") String extractedText
+    );
+    
+    // Only documents nobody has reviewed yet are auto-rejected
+    @Modifying
+    @Transactional
+    @Query("UPDATE VendorDocument d SET d.processingStatus = :failed, d.detectedMimeType = :detectedMimeType, " +
+           "d.processingError = :error, d.processedDate = CURRENT_TIMESTAMP, " +
+           "d.status = CASE WHEN d.status = :pending THEN :rejected ELSE d.status END, " +
+           "d.updatedDate = CURRENT_TIMESTAMP WHERE d.documentId = :documentId")
+    int failProcessing(
+        @Param("documentId") Long documentId,
+        @Param("failed") VendorDocument.ProcessingStatus failed,
+        @Param("detectedMimeType") String detectedMimeType,
+        @Param("error") String error,
+        @Param("pending") VendorDocument.DocumentStatus pending,
+        @Param("rejected") VendorDocument.DocumentStatus rejected
+    );
+    
+    // Only documents nobody has reviewed yet; the row count tells the caller whether the status moved
+    @Modifying
+    @Transactional
+    @Query("UPDATE VendorDocument d SET d.verificationStatus = :to, d.updatedDate = CURRENT_TIMESTAMP " +
+           "WHERE d.documentId = :documentId AND d.verificationStatus = :from")
+    int changeVerificationStatus(
+        @Param("documentId") Long documentId,
+        @Param("from") VendorDocument.VerificationStatus from,
+        @Param("to") VendorDocument.VerificationStatus to
+    );
+    
+    @Query("SELECT d.vendor.vendorId, d.verificationStatus, COUNT(d) FROM VendorDocument d " +
+           "GROUP BY d.vendor.vendorId, d.verificationStatus")
+    List<Object[]> countByVendorAndVerificationStatus();
+    
+    @Query("SELECT d.vendor.vendorId, d.documentType, COUNT(d) FROM VendorDocument d " +
+           "WHERE d.vendor.vendorId IN :vendorIds AND d.verificationStatus = :verificationStatus " +
+           "GROUP BY d.vendor.vendorId, d.documentType")
+    List<Object[]> countByVendorAndTypeWithVerificationStatus(
+        @Param("vendorIds") Collection<Long> vendorIds,
+        @Param("verificationStatus") VendorDocument.VerificationStatus verificationStatus
+    );
+    
+    // Earliest expiry among a vendor's current documents; replaced documents no longer count
+    @Query("SELECT d.vendor.vendorId, MIN(d.expiryDate) FROM VendorDocument d " +
+           "WHERE d.vendor.vendorId IN :vendorIds AND d.expiryDate IS NOT NULL AND d.status <> :excluded " +
+           "GROUP BY d.vendor.vendorId")
+    List<Object[]> findEarliestExpiryByVendor(
+        @Param("vendorIds") Collection<Long> vendorIds,
+        @Param("excluded") VendorDocument.DocumentStatus excluded
+    );
 }
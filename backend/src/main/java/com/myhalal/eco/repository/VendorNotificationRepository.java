@@ -1,25 +1,38 @@
 package com.myhalal.eco.repository;
 
 import com.myhalal.eco.entity.VendorNotification;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface VendorNotificationRepository extends JpaRepository<VendorNotification, Long> {
     
-    Page<VendorNotification> findByVendorId(Long vendorId, Pageable pageable);
+    @Query("SELECT n FROM VendorNotification n WHERE n.vendor.id = :vendorId")
+    Page<VendorNotification> findByVendorId(@Param("vendorId") Long vendorId, Pageable pageable);
     
-    List<VendorNotification> findByVendorIdAndStatus(Long vendorId, VendorNotification.NotificationStatus status);
+    @Query("SELECT n FROM VendorNotification n WHERE n.vendor.id = :vendorId AND n.status = :status")
+    List<VendorNotification> findByVendorIdAndStatus(
+        @Param("vendorId") Long vendorId,
+        @Param("status") VendorNotification.NotificationStatus status
+    );
     
-    List<VendorNotification> findByVendorIdAndPriority(Long vendorId, VendorNotification.Priority priority);
+    @Query("SELECT n FROM VendorNotification n WHERE n.vendor.id = :vendorId AND n.priority = :priority")
+    List<VendorNotification> findByVendorIdAndPriority(
+        @Param("vendorId") Long vendorId,
+        @Param("priority") VendorNotification.Priority priority
+    );
     
     @Query("SELECT n FROM VendorNotification n WHERE n.vendor.id = :vendorId " +
            "AND n.status = 'UNREAD' ORDER BY n.priority DESC, n.createdDate DESC")
@@ -70,21 +83,63 @@ public interface VendorNotificationRepository extends JpaRepository<VendorNotifi
     );
     
     @Modifying
-    @Query("UPDATE VendorNotification n SET n.status = 'READ', n.readDate = :readDate " +
-           "WHERE n.id = :notificationId")
-    void markAsRead(@Param("notificationId") Long notificationId, @Param("readDate") LocalDateTime readDate);
+    @Query("UPDATE VendorNotification n SET n.status = 'READ', n.readDate = :readDate, " +
+           "n.changeSeq = :changeSeq WHERE n.id = :notificationId")
+    void markAsRead(
+        @Param("notificationId") Long notificationId,
+        @Param("readDate") LocalDateTime readDate,
+        @Param("changeSeq") Long changeSeq
+    );
     
     @Modifying
-    @Query("UPDATE VendorNotification n SET n.status = 'read', n.readDate = :readDate " +
-           "WHERE n.vendor.id = :vendorId AND n.status = 'UNREAD'")
-    void markAllAsRead(@Param("vendorId") Long vendorId, @Param("readDate") LocalDateTime readDate);
+    @Query("UPDATE VendorNotification n SET n.status = 'READ', n.readDate = :readDate, " +
+           "n.changeSeq = :changeSeq WHERE n.vendor.id = :vendorId AND n.status = 'UNREAD'")
+    void markAllAsRead(
+        @Param("vendorId") Long vendorId,
+        @Param("readDate") LocalDateTime readDate,
+        @Param("changeSeq") Long changeSeq
+    );
     
     @Modifying
     @Query("UPDATE VendorNotification n SET n.actionCompleted = true, " +
-           "n.actionCompletedDate = :completedDate WHERE n.id = :notificationId")
+           "n.actionCompletedDate = :completedDate, n.changeSeq = :changeSeq " +
+           "WHERE n.id = :notificationId")
     void markActionCompleted(
         @Param("notificationId") Long notificationId, 
-        @Param("completedDate") LocalDateTime completedDate
+        @Param("completedDate") LocalDateTime completedDate,
+        @Param("changeSeq") Long changeSeq
+    );
+    
+    @Query("SELECT n.relatedEntityId, n.actionDeadline FROM VendorNotification n " +
+           "WHERE n.type = :type AND n.relatedEntityType = :relatedEntityType " +
+           "AND n.relatedEntityId IN :relatedEntityIds")
+    List<Object[]> findRelatedDeadlines(
+        @Param("type") String type,
+        @Param("relatedEntityType") String relatedEntityType,
+        @Param("relatedEntityIds") Collection<Long> relatedEntityIds
+    );
+    
+    @Query(value = "SELECT NEXT VALUE FOR VENDOR_NOTIF_CHANGE_SEQ", nativeQuery = true)
+    Long nextChangeSeq();
+    
+    @Query("SELECT n.changeSeq FROM VendorNotification n WHERE n.vendor.id = :vendorId " +
+           "AND n.changeSeq > :since AND n.changeSeq <= :upTo ORDER BY n.changeSeq ASC")
+    List<Long> findChangeSeqsSince(
+        @Param("vendorId") Long vendorId,
+        @Param("since") Long since,
+        @Param("upTo") Long upTo,
+        Pageable pageable
+    );
+    
+    @Query("SELECT MAX(n.changeSeq) FROM VendorNotification n")
+    Long findMaxChangeSeq();
+    
+    @Query("SELECT n FROM VendorNotification n WHERE n.vendor.id = :vendorId " +
+           "AND n.changeSeq > :since AND n.changeSeq <= :upTo ORDER BY n.changeSeq ASC")
+    List<VendorNotification> findChangedNotifications(
+        @Param("vendorId") Long vendorId,
+        @Param("since") Long since,
+        @Param("upTo") Long upTo
     );
     
     @Query("SELECT n.type, COUNT(n) FROM VendorNotification n " +
@@ -99,4 +154,30 @@ public interface VendorNotificationRepository extends JpaRepository<VendorNotifi
         @Param("startDate") LocalDateTime startDate,
         @Param("endDate") LocalDateTime endDate
     );
+    
+    @Query("SELECT MAX(n.changeSeq) FROM VendorNotification n WHERE n.partitionMonth < :cutoffMonth " +
+           "AND n.status IN ('READ', 'ARCHIVED', 'DELETED')")
+    Long findMaxPurgeableChangeSeq(@Param("cutoffMonth") Integer cutoffMonth);
+    
+    // Only partitions that actually hold rows the purge below will delete
+    @Query("SELECT DISTINCT n.partitionMonth FROM VendorNotification n WHERE n.partitionMonth < :cutoffMonth " +
+           "AND n.status IN ('READ', 'ARCHIVED', 'DELETED') AND n.changeSeq <= :upTo ORDER BY n.partitionMonth ASC")
+    List<Integer> findPurgeablePartitions(@Param("cutoffMonth") Integer cutoffMonth, @Param("upTo") Long upTo);
+    
+    // Deletes and writes a delta-sync tombstone for each deleted row in one statement, so exactly the
+    // purged rows reach clients as deletes. Rows changed after upTo was read are left for the next run.
+    @Modifying
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "VENDOR_NOTIFICATIONS"),
+        @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "VENDOR_NOTIFICATION_TOMBSTONES")
+    })
+    @Query(value = "INSERT INTO VENDOR_NOTIFICATION_TOMBSTONES (CHANGE_SEQ, VENDOR_ID, NOTIFICATION_ID, DELETED_DATE) " +
+           "SELECT NEXT VALUE FOR VENDOR_NOTIF_CHANGE_SEQ, VENDOR_ID, NOTIFICATION_ID, :deletedDate " +
+           "FROM OLD TABLE (DELETE FROM VENDOR_NOTIFICATIONS WHERE PARTITION_MONTH < :cutoffMonth " +
+           "AND STATUS IN ('READ', 'ARCHIVED', 'DELETED') AND CHANGE_SEQ <= :upTo)", nativeQuery = true)
+    int purgeReadPartitionsBefore(
+        @Param("cutoffMonth") Integer cutoffMonth,
+        @Param("upTo") Long upTo,
+        @Param("deletedDate") LocalDateTime deletedDate
+    );
 }
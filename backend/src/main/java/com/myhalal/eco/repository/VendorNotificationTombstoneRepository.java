@@ -0,0 +1,43 @@
+package com.myhalal.eco.repository;
+
+import com.myhalal.eco.entity.VendorNotificationTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VendorNotificationTombstoneRepository extends JpaRepository<VendorNotificationTombstone, Long> {
+
+    @Query("SELECT t.changeSeq FROM VendorNotificationTombstone t WHERE t.vendorId = :vendorId " +
+           "AND t.changeSeq > :since AND t.changeSeq <= :upTo ORDER BY t.changeSeq ASC")
+    List<Long> findChangeSeqsSince(
+        @Param("vendorId") Long vendorId,
+        @Param("since") Long since,
+        @Param("upTo") Long upTo,
+        Pageable pageable
+    );
+
+    @Query("SELECT MAX(t.changeSeq) FROM VendorNotificationTombstone t")
+    Long findMaxChangeSeq();
+
+    @Query("SELECT t.notificationId FROM VendorNotificationTombstone t WHERE t.vendorId = :vendorId " +
+           "AND t.changeSeq > :since AND t.changeSeq <= :upTo ORDER BY t.changeSeq ASC")
+    List<Long> findDeletedNotificationIds(
+        @Param("vendorId") Long vendorId,
+        @Param("since") Long since,
+        @Param("upTo") Long upTo
+    );
+
+    @Query("SELECT MAX(t.changeSeq) FROM VendorNotificationTombstone t WHERE t.deletedDate < :cutoffDate")
+    Long findMaxChangeSeqOlderThan(@Param("cutoffDate") LocalDateTime cutoffDate);
+
+    @Modifying
+    @Query("DELETE FROM VendorNotificationTombstone t WHERE t.deletedDate < :cutoffDate AND t.changeSeq <= :upTo")
+    int deleteOlderThan(@Param("cutoffDate") LocalDateTime cutoffDate, @Param("upTo") Long upTo);
+}
@@ -1,18 +1,25 @@
 package com.myhalal.eco.repository;
 
+import com.myhalal.eco.dto.VendorSummary;
 import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.export.RecordStreamWriter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VendorRepository extends JpaRepository<Vendor, Long> {
@@ -24,6 +31,7 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
     @Query("SELECT v FROM Vendor v WHERE v.name LIKE %:name%")
     List<Vendor> findByNameContaining(@Param("name") String name);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(v) FROM Vendor v WHERE v.status = :status")
     Long countByStatus(@Param("status") Vendor.VendorStatus status);
     
@@ -48,14 +56,27 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
            "ORDER BY v.averageRating DESC, v.totalSales DESC")
     Page<Vendor> findTopPerformingVendors(Pageable pageable);
     
-    @Query("SELECT v FROM Vendor v WHERE v.verifiedDate IS NOT NULL " +
-           "AND v.verifiedDate <= :expiryDate")
-    List<Vendor> findVendorsNeedingReverification(@Param("expiryDate") LocalDateTime expiryDate);
+    @Query(value = "SELECT v FROM Vendor v WHERE v.verifiedDate IS NOT NULL " +
+                   "AND v.verifiedDate <= :expiryDate",
+           countQuery = "SELECT COUNT(v) FROM Vendor v WHERE v.verifiedDate IS NOT NULL " +
+                        "AND v.verifiedDate <= :expiryDate")
+    Page<Vendor> findVendorsNeedingReverification(@Param("expiryDate") LocalDateTime expiryDate, Pageable pageable);
+    
+    // Keyset page of candidate IDs: each call is a forward range scan on the primary key
+    @Query("SELECT v.vendorId FROM Vendor v WHERE v.vendorId > :afterId AND v.verifiedDate IS NOT NULL " +
+           "AND v.verifiedDate <= :expiryDate ORDER BY v.vendorId")
+    List<Long> findReverificationCandidateIds(
+        @Param("expiryDate") LocalDateTime expiryDate,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT v.businessCategory, COUNT(v) FROM Vendor v " +
            "WHERE v.status = 'ACTIVE' GROUP BY v.businessCategory")
     List<Object[]> getVendorCategoryDistribution();
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT v.status, COUNT(v) FROM Vendor v GROUP BY v.status")
     List<Object[]> getVendorStatusDistribution();
     
@@ -63,12 +84,13 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
            "AND v.totalRevenue >= :minRevenue")
     List<Vendor> findPremiumVendors(@Param("minRevenue") BigDecimal minRevenue);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT DISTINCT v.city, v.state, COUNT(v) FROM Vendor v " +
            "WHERE v.status = 'ACTIVE' GROUP BY v.city, v.state")
     List<Object[]> getVendorGeographicDistribution();
     
     @Modifying
-    @Query("UPDATE Vendor v SET v.status = :newStatus, " +
+    @Query("UPDATE Vendor v SET v.status = :newStatus, v.version = v.version + 1, " +
            "v.updatedDate = CURRENT_TIMESTAMP, v.updatedBy = :updatedBy " +
            "WHERE v.id = :vendorId")
     void updateVendorStatus(
@@ -78,7 +100,7 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
     );
     
     @Modifying
-    @Query("UPDATE Vendor v SET v.isVerified = true, " +
+    @Query("UPDATE Vendor v SET v.isVerified = true, v.version = v.version + 1, " +
            "v.verifiedDate = CURRENT_TIMESTAMP, v.verifiedBy = :verifiedBy, " +
            "v.updatedDate = CURRENT_TIMESTAMP, v.updatedBy = :updatedBy " +
            "WHERE v.id = :vendorId")
@@ -88,6 +110,41 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
         @Param("updatedBy") String updatedBy
     );
     
+    @Query("SELECT v.vendorId FROM Vendor v WHERE v.vendorId > :afterId ORDER BY v.vendorId")
+    List<Long> findVendorIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RecordStreamWriter.FETCH_SIZE))
+    @Query(VendorSummary.SELECT + "ORDER BY v.vendorId")
+    Stream<VendorSummary> streamAllSummaries();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RecordStreamWriter.FETCH_SIZE))
+    @Query(VendorSummary.SELECT + "WHERE v.isVerified = true ORDER BY v.vendorId")
+    Stream<VendorSummary> streamVerifiedSummaries();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RecordStreamWriter.FETCH_SIZE))
+    @Query(VendorSummary.SELECT + "WHERE v.averageRating >= :minRating ORDER BY v.vendorId")
+    Stream<VendorSummary> streamSummariesByMinimumRating(@Param("minRating") BigDecimal minRating);
+
+    @Query("SELECT v.vendorId, v.contactEmail FROM Vendor v WHERE v.vendorId > :afterId ORDER BY v.vendorId")
+    List<Object[]> findContactEmailsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT v.vendorId, v.isVerified FROM Vendor v WHERE v.vendorId IN :vendorIds")
+    List<Object[]> findVerifiedFlags(@Param("vendorIds") Collection<Long> vendorIds);
+    
+    // Set-based form of VendorService.verifyVendor for bulk completions
+    @Modifying
+    @Query("UPDATE Vendor v SET v.isVerified = true, v.verifiedDate = :verifiedDate, v.verifiedBy = :verifiedBy, " +
+           "v.status = CASE WHEN v.status = :approved THEN :active ELSE v.status END, " +
+           "v.updatedDate = :verifiedDate, v.updatedBy = :verifiedBy, v.version = v.version + 1 " +
+           "WHERE v.vendorId IN :vendorIds")
+    int markVendorsAsVerified(
+        @Param("vendorIds") Collection<Long> vendorIds,
+        @Param("verifiedBy") String verifiedBy,
+        @Param("verifiedDate") LocalDateTime verifiedDate,
+        @Param("approved") Vendor.VendorStatus approved,
+        @Param("active") Vendor.VendorStatus active
+    );
+    
     @Query("SELECT v FROM Vendor v WHERE " +
            "LOWER(v.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(v.businessDescription) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
@@ -15,9 +15,14 @@ import java.util.List;
 @Repository
 public interface VendorReviewRepository extends JpaRepository<VendorReview, Long> {
     
-    Page<VendorReview> findByVendorId(Long vendorId, Pageable pageable);
+    @Query("SELECT r FROM VendorReview r WHERE r.vendor.id = :vendorId")
+    Page<VendorReview> findByVendorId(@Param("vendorId") Long vendorId, Pageable pageable);
     
-    List<VendorReview> findByVendorIdAndStatus(Long vendorId, VendorReview.ReviewStatus status);
+    @Query("SELECT r FROM VendorReview r WHERE r.vendor.id = :vendorId AND r.status = :status")
+    List<VendorReview> findByVendorIdAndStatus(
+        @Param("vendorId") Long vendorId,
+        @Param("status") VendorReview.ReviewStatus status
+    );
     
     @Query("SELECT r FROM VendorReview r WHERE r.vendor.id = :vendorId AND r.rating >= :minRating")
     List<VendorReview> findPositiveReviews(
@@ -73,9 +78,11 @@ public interface VendorReviewRepository extends JpaRepository<VendorReview, Long
            "AND r.vendorResponse IS NULL AND r.status = 'APPROVED'")
     List<VendorReview> findPendingResponseReviews(@Param("vendorId") Long vendorId);
     
+    @Query("SELECT COUNT(r) > 0 FROM VendorReview r WHERE r.vendor.id = :vendorId " +
+           "AND r.customerEmail = :customerEmail AND r.status = :status")
     boolean existsByVendorIdAndCustomerEmailAndStatus(
-        Long vendorId, 
-        String customerEmail, 
-        VendorReview.ReviewStatus status
+        @Param("vendorId") Long vendorId, 
+        @Param("customerEmail") String customerEmail, 
+        @Param("status") VendorReview.ReviewStatus status
     );
 }
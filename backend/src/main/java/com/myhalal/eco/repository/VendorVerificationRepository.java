@@ -1,21 +1,39 @@
 package com.myhalal.eco.repository;
 
+import com.myhalal.eco.dto.VendorVerificationSummary;
 import com.myhalal.eco.entity.VendorVerification;
+import com.myhalal.eco.export.RecordStreamWriter;
+import com.myhalal.eco.index.ExpiryEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VendorVerificationRepository extends JpaRepository<VendorVerification, Long> {
     
-    List<VendorVerification> findByVendorId(Long vendorId);
+    @Query("SELECT v FROM VendorVerification v WHERE v.vendor.id = :vendorId")
+    List<VendorVerification> findByVendorId(@Param("vendorId") Long vendorId);
     
-    List<VendorVerification> findByVendorIdAndVerificationType(Long vendorId, String verificationType);
+    // Bulk completion reads each vendor's verified state, so the vendors come in the same statement
+    @Query("SELECT v FROM VendorVerification v JOIN FETCH v.vendor WHERE v.verificationId IN :verificationIds")
+    List<VendorVerification> findAllWithVendorByIdIn(@Param("verificationIds") Collection<Long> verificationIds);
+    
+    @Query("SELECT v FROM VendorVerification v WHERE v.vendor.id = :vendorId AND v.verificationType = :verificationType")
+    List<VendorVerification> findByVendorIdAndVerificationType(
+        @Param("vendorId") Long vendorId,
+        @Param("verificationType") String verificationType
+    );
     
     List<VendorVerification> findByStatus(VendorVerification.VerificationStatus status);
     
@@ -32,6 +50,10 @@ public interface VendorVerificationRepository extends JpaRepository<VendorVerifi
     
     @Query("SELECT v FROM VendorVerification v WHERE v.nextReviewDate <= :date")
     List<VendorVerification> findOverdueVerifications(@Param("date") LocalDateTime date);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RecordStreamWriter.FETCH_SIZE))
+    @Query(VendorVerificationSummary.SELECT + "WHERE v.nextReviewDate <= :date ORDER BY v.nextReviewDate, v.verificationId")
+    Stream<VendorVerificationSummary> streamOverdueSummaries(@Param("date") LocalDateTime date);
     
     @Query("SELECT v FROM VendorVerification v WHERE v.expiryDate BETWEEN :startDate AND :endDate")
     List<VendorVerification> findExpiringVerifications(
@@ -47,6 +69,14 @@ public interface VendorVerificationRepository extends JpaRepository<VendorVerifi
            "AND v.status IN ('PENDING', 'IN_PROGRESS')")
     Long countPendingVerifications(@Param("vendorId") Long vendorId);
     
+    @Query("SELECT DISTINCT v.vendor.vendorId FROM VendorVerification v WHERE v.vendor.vendorId IN :vendorIds " +
+           "AND v.verificationType = :verificationType AND v.status IN :statuses")
+    List<Long> findVendorIdsWithVerification(
+        @Param("vendorIds") Collection<Long> vendorIds,
+        @Param("verificationType") String verificationType,
+        @Param("statuses") Collection<VendorVerification.VerificationStatus> statuses
+    );
+    
     @Query("SELECT AVG(v.verificationScore) FROM VendorVerification v " +
            "WHERE v.vendor.id = :vendorId AND v.status = 'COMPLETED' " +
            "AND v.verificationScore IS NOT NULL")
@@ -72,9 +102,45 @@ public interface VendorVerificationRepository extends JpaRepository<VendorVerifi
            "GROUP BY v.verificationType")
     List<Object[]> getVerificationTypeDistribution(@Param("vendorId") Long vendorId);
     
+    @Query("SELECT COUNT(v) > 0 FROM VendorVerification v WHERE v.vendor.id = :vendorId " +
+           "AND v.verificationType = :verificationType AND v.status = :status")
     boolean existsByVendorIdAndVerificationTypeAndStatus(
-        Long vendorId, 
-        String verificationType, 
-        VendorVerification.VerificationStatus status
+        @Param("vendorId") Long vendorId, 
+        @Param("verificationType") String verificationType, 
+        @Param("status") VendorVerification.VerificationStatus status
     );
+    
+    @Query("SELECT new com.myhalal.eco.index.ExpiryEntry(v.verificationId, v.vendor.vendorId, v.expiryDate) " +
+           "FROM VendorVerification v WHERE v.expiryDate IS NOT NULL")
+    List<ExpiryEntry> findExpiryEntries();
+    
+    @Query("SELECT v.verificationId, v.vendor.vendorId, v.verificationType, v.priority, v.initiatedDate " +
+           "FROM VendorVerification v WHERE v.status = :status")
+    List<Object[]> findQueueEntries(@Param("status") VendorVerification.VerificationStatus status);
+    
+    // Succeeds for exactly one reviewer per verification, whichever node its queue entry came from
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE VendorVerification v SET v.status = :inProgress, v.assignedTo = :assignedTo, " +
+           "v.assignedDate = :assignedDate, v.updatedDate = :assignedDate, v.version = v.version + 1 " +
+           "WHERE v.verificationId = :verificationId AND v.status = :pending")
+    int claim(
+        @Param("verificationId") Long verificationId,
+        @Param("assignedTo") String assignedTo,
+        @Param("assignedDate") LocalDateTime assignedDate,
+        @Param("pending") VendorVerification.VerificationStatus pending,
+        @Param("inProgress") VendorVerification.VerificationStatus inProgress
+    );
+    
+    // Per vendor and type: latest expiry, row count and rows with an expiry (fewer means one never expires)
+    @Query("SELECT v.vendor.vendorId, v.verificationType, MAX(v.expiryDate), COUNT(v), COUNT(v.expiryDate) " +
+           "FROM VendorVerification v WHERE v.vendor.vendorId IN :vendorIds AND v.status = :status " +
+           "GROUP BY v.vendor.vendorId, v.verificationType")
+    List<Object[]> findValidityByVendorAndType(
+        @Param("vendorIds") Collection<Long> vendorIds,
+        @Param("status") VendorVerification.VerificationStatus status
+    );
+    
+    @Query("SELECT v.assignedTo, COUNT(v) FROM VendorVerification v " +
+           "WHERE v.status = :status AND v.assignedTo IS NOT NULL GROUP BY v.assignedTo")
+    List<Object[]> countAssignedByReviewer(@Param("status") VendorVerification.VerificationStatus status);
 }
@@ -0,0 +1,17 @@
+package com.myhalal.eco.repository;
+
+import com.myhalal.eco.entity.VerificationReviewer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VerificationReviewerRepository extends JpaRepository<VerificationReviewer, String> {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<VerificationReviewer> findByActiveTrue();
+}
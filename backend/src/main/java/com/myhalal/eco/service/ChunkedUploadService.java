@@ -0,0 +1,428 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.DocumentBlob;
+import com.myhalal.eco.entity.VendorDocument;
+import com.myhalal.eco.repository.VendorRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long MIN_CHUNK_SIZE = 64L * 1024;
+    private static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    private final VendorRepository vendorRepository;
+    private final VendorDocumentService documentService;
+    private final DocumentBlobService blobService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${documents.storage.root:uploads/vendor-documents}")
+    private String storageRoot;
+
+    @Value("${documents.chunked-upload.max-size:10737418240}")
+    private long maxUploadSize;
+
+    @Value("${documents.chunked-upload.idle-timeout-hours:24}")
+    private long idleTimeoutHours;
+
+    @Value("${documents.chunked-upload.max-sessions:1000}")
+    private int maxSessions;
+
+    // Sessions live only in memory, so after a restart nothing can resume into a leftover staging file
+    @PostConstruct
+    void sweepStaleStagingFiles() {
+        Path uploadDir = stagingDir();
+        if (!Files.isDirectory(uploadDir)) {
+            return;
+        }
+        int removed = 0;
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(uploadDir, "*.part")) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+                removed++;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep chunked upload staging files: {}", e.getMessage());
+        }
+        if (removed > 0) {
+            log.info("Removed {} stale chunked upload staging files", removed);
+        }
+    }
+
+    public Map<String, Object> initUpload(Long vendorId, String documentType, String fileName,
+                                          String mimeType, long totalSize, long chunkSize) {
+        log.info("Initialising chunked upload for vendor ID: {}, size: {}", vendorId, totalSize);
+
+        if (!vendorRepository.existsById(vendorId)) {
+            throw new RuntimeException("Vendor not found");
+        }
+        if (totalSize <= 0 || totalSize > maxUploadSize) {
+            throw new RuntimeException("Invalid upload size");
+        }
+        if (chunkSize > MAX_CHUNK_SIZE || (chunkSize < MIN_CHUNK_SIZE && chunkSize < totalSize)) {
+            throw new RuntimeException("Chunk size must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE + " bytes");
+        }
+        if (sessions.size() >= maxSessions) {
+            throw new RuntimeException("Too many uploads in progress, try again later");
+        }
+        long chunkCount = (totalSize + chunkSize - 1) / chunkSize;
+
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            Path uploadDir = stagingDir();
+            Files.createDirectories(uploadDir);
+            Path stagingFile = uploadDir.resolve(uploadId + ".part");
+
+            FileChannel channel = FileChannel.open(stagingFile,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Preallocate so chunks can land at their offsets in any order
+            channel.write(ByteBuffer.wrap(new byte[1]), totalSize - 1);
+
+            UploadSession session = new UploadSession(uploadId, vendorId, documentType, fileName, mimeType,
+                totalSize, chunkSize, (int) chunkCount, stagingFile, channel);
+            sessions.put(uploadId, session);
+            return session.toProgress();
+        } catch (IOException e) {
+            log.error("Error initialising chunked upload: {}", e.getMessage());
+            throw new RuntimeException("Failed to initialise upload: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> writeChunk(String uploadId, int index, long contentLength, InputStream body) {
+        UploadSession session = getSession(uploadId);
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new RuntimeException("Chunk index out of range");
+        }
+
+        long offset = index * session.getChunkSize();
+        long expected = Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new RuntimeException("Chunk " + index + " must be " + expected + " bytes");
+        }
+
+        session.beginWrite(index);
+        boolean received = false;
+        long written = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_SIZE, expected));
+        try (ReadableByteChannel source = Channels.newChannel(body)) {
+            while (written < expected) {
+                buffer.limit((int) Math.min(buffer.capacity(), expected - written));
+                int read = source.read(buffer);
+                if (read == -1) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    written += session.getChannel().write(buffer, offset + written);
+                }
+                buffer.clear();
+            }
+            if (written != expected || source.read(ByteBuffer.allocate(1)) != -1) {
+                throw new RuntimeException("Chunk " + index + " must be " + expected + " bytes");
+            }
+            received = true;
+        } catch (IOException e) {
+            log.error("Error writing chunk {} of upload {}: {}", index, uploadId, e.getMessage());
+            throw new RuntimeException("Failed to write chunk: " + e.getMessage());
+        } finally {
+            session.endWrite(index, received);
+        }
+        return session.toProgress();
+    }
+
+    public Map<String, Object> getStatus(String uploadId) {
+        return getSession(uploadId).toStatus();
+    }
+
+    // Hashing a multi-gigabyte staging file happens before any transaction is opened; only linking the
+    // blob and registering the document run in one. A failed hash or checksum leaves the upload
+    // receiving so chunks can be resent, and a failed link keeps the verified hash so a retry goes
+    // straight back to the short transaction.
+    public VendorDocument completeUpload(String uploadId, String expectedSha256) {
+        UploadSession session = getSession(uploadId);
+        String contentHash = session.beginCompletion();
+
+        boolean completed = false;
+        try {
+            if (contentHash == null) {
+                contentHash = finalizeStaging(session, expectedSha256);
+            }
+            String verifiedHash = contentHash;
+            VendorDocument document = new TransactionTemplate(transactionManager).execute(status -> {
+                try {
+                    DocumentBlob blob = blobService.link(verifiedHash, session.getStagingFile(), session.getTotalSize());
+                    return documentService.registerDocument(session.getVendorId(),
+                        session.getDocumentType(), session.getFileName(), session.getMimeType(), blob);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to complete upload: " + e.getMessage());
+                }
+            });
+            completed = true;
+
+            session.close();
+            sessions.remove(uploadId);
+            discard(session);
+            log.info("Chunked upload {} completed as document ID: {}", uploadId, document.getDocumentId());
+            return document;
+        } catch (RuntimeException e) {
+            log.error("Error completing upload {}: {}", uploadId, e.getMessage());
+            throw e;
+        } finally {
+            if (!completed) {
+                session.endCompletion(contentHash);
+            }
+        }
+    }
+
+    private String finalizeStaging(UploadSession session, String expectedSha256) {
+        try {
+            session.getChannel().force(false);
+            String contentHash = sha256(session.getChannel(), session.getTotalSize());
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(contentHash)) {
+                throw new RuntimeException("Checksum mismatch");
+            }
+            closeQuietly(session);
+            return contentHash;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to complete upload: " + e.getMessage());
+        }
+    }
+
+    private void closeQuietly(UploadSession session) {
+        try {
+            session.getChannel().close();
+        } catch (IOException e) {
+            log.warn("Failed to close staging file of upload {}: {}", session.getUploadId(), e.getMessage());
+        }
+    }
+
+    public void abortUpload(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            return;
+        }
+        if (!session.abort()) {
+            throw new RuntimeException("Upload is being completed");
+        }
+        sessions.remove(uploadId);
+        discard(session);
+    }
+    @Scheduled(fixedDelayString = "${documents.chunked-upload.sweep-interval-ms:3600000}")
+    public void expireIdleUploads() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(idleTimeoutHours);
+        sessions.values().removeIf(session -> {
+            if (!session.expire(cutoff)) {
+                return false;
+            }
+            log.info("Expiring idle chunked upload {}", session.getUploadId());
+            discard(session);
+            return true;
+        });
+    }
+
+    private Path stagingDir() {
+        return Paths.get(storageRoot, "chunked");
+    }
+
+    private UploadSession getSession(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw new RuntimeException("Upload not found");
+        }
+        return session;
+    }
+
+    private void discard(UploadSession session) {
+        try {
+            session.getChannel().close();
+            Files.deleteIfExists(session.getStagingFile());
+        } catch (IOException e) {
+            log.warn("Failed to discard upload {}: {}", session.getUploadId(), e.getMessage());
+        }
+    }
+
+    private String sha256(FileChannel channel, long size) throws IOException {
+        MessageDigest digest = DocumentBlobService.sha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = 0;
+        while (position < size) {
+            int read = channel.read(buffer, position);
+            if (read == -1) {
+                break;
+            }
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+            position += read;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // RECEIVING accepts chunks; COMPLETING is hashing or linking and accepts nothing; VERIFIED has a
+    // closed, hashed staging file waiting for a (retried) link; CLOSED is completed, aborted or expired
+    enum UploadState { RECEIVING, COMPLETING, VERIFIED, CLOSED }
+
+    @Getter
+    private static class UploadSession {
+        private final String uploadId;
+        private final Long vendorId;
+        private final String documentType;
+        private final String fileName;
+        private final String mimeType;
+        private final long totalSize;
+        private final long chunkSize;
+        private final int chunkCount;
+        private final Path stagingFile;
+        private final FileChannel channel;
+        private final BitSet received;
+        private int receivedCount;
+        private UploadState state = UploadState.RECEIVING;
+        private int writesInFlight;
+        private String contentHash;
+        private LocalDateTime lastActivity = LocalDateTime.now();
+
+        UploadSession(String uploadId, Long vendorId, String documentType, String fileName, String mimeType,
+                      long totalSize, long chunkSize, int chunkCount, Path stagingFile, FileChannel channel) {
+            this.uploadId = uploadId;
+            this.vendorId = vendorId;
+            this.documentType = documentType;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+            this.chunkCount = chunkCount;
+            this.stagingFile = stagingFile;
+            this.channel = channel;
+            this.received = new BitSet(chunkCount);
+        }
+
+        // A chunk being rewritten counts as missing until its write finishes
+        synchronized void beginWrite(int index) {
+            if (state != UploadState.RECEIVING) {
+                throw new RuntimeException("Upload is no longer accepting chunks");
+            }
+            writesInFlight++;
+            if (received.get(index)) {
+                received.clear(index);
+                receivedCount--;
+            }
+            lastActivity = LocalDateTime.now();
+        }
+
+        synchronized void endWrite(int index, boolean succeeded) {
+            writesInFlight--;
+            if (succeeded && !received.get(index)) {
+                received.set(index);
+                receivedCount++;
+            }
+            lastActivity = LocalDateTime.now();
+        }
+
+        // Returns the hash already verified by an earlier attempt, or null if the file still needs hashing
+        synchronized String beginCompletion() {
+            switch (state) {
+                case COMPLETING -> throw new RuntimeException("Upload is already being completed");
+                case CLOSED -> throw new RuntimeException("Upload not found");
+                case RECEIVING -> {
+                    if (writesInFlight > 0) {
+                        throw new RuntimeException("Upload has chunk writes in progress");
+                    }
+                    if (receivedCount != chunkCount) {
+                        throw new RuntimeException("Upload is missing " + (chunkCount - receivedCount) + " chunks");
+                    }
+                }
+                case VERIFIED -> { }
+            }
+            String verifiedHash = state == UploadState.VERIFIED ? contentHash : null;
+            state = UploadState.COMPLETING;
+            lastActivity = LocalDateTime.now();
+            return verifiedHash;
+        }
+
+        synchronized void endCompletion(String verifiedHash) {
+            contentHash = verifiedHash;
+            state = verifiedHash != null ? UploadState.VERIFIED : UploadState.RECEIVING;
+            lastActivity = LocalDateTime.now();
+        }
+
+        synchronized boolean abort() {
+            if (state == UploadState.COMPLETING) {
+                return false;
+            }
+            state = UploadState.CLOSED;
+            return true;
+        }
+
+        synchronized void close() {
+            state = UploadState.CLOSED;
+        }
+
+        synchronized boolean expire(LocalDateTime cutoff) {
+            if (state == UploadState.COMPLETING || writesInFlight > 0 || lastActivity.isAfter(cutoff)) {
+                return false;
+            }
+            state = UploadState.CLOSED;
+            return true;
+        }
+
+        // Constant-size answer for every chunk PUT; only the status GET lists the missing indexes
+        synchronized Map<String, Object> toProgress() {
+            Map<String, Object> status = new HashMap<>();
+            status.put("uploadId", uploadId);
+            status.put("state", state);
+            status.put("totalSize", totalSize);
+            status.put("chunkSize", chunkSize);
+            status.put("chunkCount", chunkCount);
+            status.put("receivedChunks", receivedCount);
+            return status;
+        }
+
+        synchronized Map<String, Object> toStatus() {
+            Map<String, Object> status = toProgress();
+            status.put("missingChunks", missingIndexes());
+            return status;
+        }
+
+        private int[] missingIndexes() {
+            int[] missing = new int[chunkCount - receivedCount];
+            int i = 0;
+            for (int index = received.nextClearBit(0); index < chunkCount; index = received.nextClearBit(index + 1)) {
+                missing[i++] = index;
+            }
+            return missing;
+        }
+    }
+}
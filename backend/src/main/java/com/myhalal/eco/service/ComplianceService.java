@@ -0,0 +1,279 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.VendorDocument;
+import com.myhalal.eco.entity.VendorVerification;
+import com.myhalal.eco.index.ComplianceIndex;
+import com.myhalal.eco.repository.VendorDocumentRepository;
+import com.myhalal.eco.repository.VendorRepository;
+import com.myhalal.eco.repository.VendorVerificationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Vendor compliance (vendor verified, verified licence on file, no expired documents, a current
+// completed verification of every required type) kept as a bitset per vendor. Document and
+// verification changes mark the vendor dirty after commit; dirty, unknown and lapsed vendors are
+// re-derived in batches with grouped queries, so evaluating thousands of IDs is normally a
+// memory walk.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ComplianceService {
+
+    private static final int KNOWN = 1 << 31;
+    private static final int VERIFIED = 1;
+    private static final int LICENSE_VERIFIED = 1 << 1;
+    private static final int NO_EXPIRED_DOCUMENTS = 1 << 2;
+    private static final int FIRST_TYPE_BIT = 3;
+    private static final int MAX_REQUIRED_TYPES = 31 - FIRST_TYPE_BIT;
+    private static final String ANY_TYPE = "*";
+
+    private final VendorRepository vendorRepository;
+    private final VendorDocumentRepository documentRepository;
+    private final VendorVerificationRepository verificationRepository;
+
+    private final ComplianceIndex index = new ComplianceIndex();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded;
+    private int requiredMask;
+    private List<String> requiredTypes;
+
+    // Empty means a verified document of any type
+    @Value("${compliance.license-document-types:}")
+    private Set<String> licenseDocumentTypes;
+
+    // Empty means a completed verification of any type
+    @Value("${compliance.required-verification-types:}")
+    private List<String> requiredVerificationTypes;
+
+    @Value("${compliance.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${compliance.max-evaluate:10000}")
+    private int maxEvaluate;
+
+    @PostConstruct
+    void configure() {
+        requiredTypes = requiredVerificationTypes.stream().map(String::trim).filter(type -> !type.isEmpty()).toList();
+        if (requiredTypes.isEmpty()) {
+            requiredTypes = List.of(ANY_TYPE);
+        }
+        if (requiredTypes.size() > MAX_REQUIRED_TYPES) {
+            throw new IllegalStateException("At most " + MAX_REQUIRED_TYPES + " required verification types are supported");
+        }
+        licenseDocumentTypes = licenseDocumentTypes.stream().map(String::trim).filter(type -> !type.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+        requiredMask = KNOWN | VERIFIED | LICENSE_VERIFIED | NO_EXPIRED_DOCUMENTS;
+        for (int i = 0; i < requiredTypes.size(); i++) {
+            requiredMask |= 1 << (FIRST_TYPE_BIT + i);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = 0;
+        int total = 0;
+        List<Long> page;
+        do {
+            page = vendorRepository.findVendorIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (!page.isEmpty()) {
+                refresh(page);
+                afterId = page.get(page.size() - 1);
+                total += page.size();
+            }
+        } while (page.size() == batchSize);
+        loaded = true;
+        log.info("Compliance index loaded for {} vendors", total);
+    }
+
+    public void vendorChanged(Long vendorId) {
+        if (vendorId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> dirty.add(vendorId));
+    }
+
+    public boolean isCompliant(Long vendorId) {
+        int flags = current(List.of(vendorId))[0];
+        if (flags == 0) {
+            throw new RuntimeException("Vendor not found");
+        }
+        return (flags & requiredMask) == requiredMask;
+    }
+
+    public Map<String, Object> evaluate(List<Long> vendorIds) {
+        if (vendorIds.size() > maxEvaluate) {
+            throw new RuntimeException("At most " + maxEvaluate + " vendor IDs can be evaluated at once");
+        }
+        int[] flags = current(vendorIds);
+        List<Long> compliant = new ArrayList<>();
+        List<Long> nonCompliant = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i] == 0) {
+                notFound.add(vendorIds.get(i));
+            } else if ((flags[i] & requiredMask) == requiredMask) {
+                compliant.add(vendorIds.get(i));
+            } else {
+                nonCompliant.add(vendorIds.get(i));
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("compliant", compliant);
+        result.put("nonCompliant", nonCompliant);
+        result.put("notFound", notFound);
+        return result;
+    }
+
+    public Map<String, Object> describe(Long vendorId) {
+        int flags = current(List.of(vendorId))[0];
+        if (flags == 0) {
+            throw new RuntimeException("Vendor not found");
+        }
+        Map<String, Boolean> verifications = new LinkedHashMap<>();
+        for (int i = 0; i < requiredTypes.size(); i++) {
+            verifications.put(requiredTypes.get(i), (flags & 1 << (FIRST_TYPE_BIT + i)) != 0);
+        }
+        long validUntil = index.validUntil(vendorId);
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("vendorId", vendorId);
+        view.put("compliant", (flags & requiredMask) == requiredMask);
+        view.put("vendorVerified", (flags & VERIFIED) != 0);
+        view.put("licenseVerified", (flags & LICENSE_VERIFIED) != 0);
+        view.put("noExpiredDocuments", (flags & NO_EXPIRED_DOCUMENTS) != 0);
+        view.put("completedVerifications", verifications);
+        view.put("validUntil", validUntil == Long.MAX_VALUE ? null
+            : LocalDateTime.ofEpochSecond(validUntil, 0, ZoneOffset.UTC));
+        return view;
+    }
+
+    @Scheduled(fixedDelayString = "${compliance.refresh-interval-ms:5000}")
+    public void refreshDirty() {
+        if (loaded && !dirty.isEmpty()) {
+            refresh(new ArrayList<>(dirty));
+        }
+    }
+
+    // Flags for each ID in order, re-deriving any that are unknown, dirty or past their deadline
+    private int[] current(List<Long> vendorIds) {
+        long now = epochSecond(LocalDateTime.now());
+        List<Long> stale = new ArrayList<>();
+        for (Long vendorId : vendorIds) {
+            if (vendorId != null && (index.flags(vendorId) == 0 || dirty.contains(vendorId)
+                    || index.validUntil(vendorId) <= now)) {
+                stale.add(vendorId);
+            }
+        }
+        if (!stale.isEmpty()) {
+            refresh(stale);
+        }
+        int[] flags = new int[vendorIds.size()];
+        for (int i = 0; i < flags.length; i++) {
+            Long vendorId = vendorIds.get(i);
+            flags[i] = vendorId != null ? index.flags(vendorId) : 0;
+        }
+        return flags;
+    }
+
+    private void refresh(List<Long> vendorIds) {
+        for (int start = 0; start < vendorIds.size(); start += batchSize) {
+            List<Long> chunk = vendorIds.subList(start, Math.min(start + batchSize, vendorIds.size()));
+            // Cleared first: a change committed while the queries run marks the vendor dirty again
+            chunk.forEach(dirty::remove);
+            refreshChunk(chunk);
+        }
+    }
+
+    private void refreshChunk(List<Long> vendorIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, int[]> flags = new HashMap<>();
+        Map<Long, long[]> validUntil = new HashMap<>();
+        for (Object[] row : vendorRepository.findVerifiedFlags(vendorIds)) {
+            Long vendorId = (Long) row[0];
+            flags.put(vendorId, new int[] {KNOWN | (Boolean.TRUE.equals(row[1]) ? VERIFIED : 0) | NO_EXPIRED_DOCUMENTS});
+            validUntil.put(vendorId, new long[] {Long.MAX_VALUE});
+        }
+
+        for (Object[] row : documentRepository.countByVendorAndTypeWithVerificationStatus(vendorIds,
+                VendorDocument.VerificationStatus.VERIFIED)) {
+            int[] vendorFlags = flags.get((Long) row[0]);
+            if (vendorFlags != null && (licenseDocumentTypes.isEmpty() || licenseDocumentTypes.contains((String) row[1]))) {
+                vendorFlags[0] |= LICENSE_VERIFIED;
+            }
+        }
+
+        for (Object[] row : documentRepository.findEarliestExpiryByVendor(vendorIds,
+                VendorDocument.DocumentStatus.REPLACED)) {
+            Long vendorId = (Long) row[0];
+            LocalDateTime earliest = (LocalDateTime) row[1];
+            if (!flags.containsKey(vendorId) || earliest == null) {
+                continue;
+            }
+            if (earliest.isAfter(now)) {
+                lower(validUntil.get(vendorId), earliest);
+            } else {
+                flags.get(vendorId)[0] &= ~NO_EXPIRED_DOCUMENTS;
+            }
+        }
+
+        // Latest validity per vendor and required type; a type is met until its best verification lapses
+        Map<Long, LocalDateTime[]> typeValidity = new HashMap<>();
+        LocalDateTime forever = LocalDateTime.MAX;
+        for (Object[] row : verificationRepository.findValidityByVendorAndType(vendorIds,
+                VendorVerification.VerificationStatus.COMPLETED)) {
+            Long vendorId = (Long) row[0];
+            if (!flags.containsKey(vendorId)) {
+                continue;
+            }
+            int position = requiredTypes.get(0).equals(ANY_TYPE) ? 0 : requiredTypes.indexOf((String) row[1]);
+            if (position < 0) {
+                continue;
+            }
+            boolean neverExpires = ((Number) row[3]).longValue() > ((Number) row[4]).longValue();
+            LocalDateTime until = neverExpires ? forever : (LocalDateTime) row[2];
+            LocalDateTime[] validity = typeValidity.computeIfAbsent(vendorId, id -> new LocalDateTime[requiredTypes.size()]);
+            if (until != null && (validity[position] == null || until.isAfter(validity[position]))) {
+                validity[position] = until;
+            }
+        }
+        typeValidity.forEach((vendorId, validity) -> {
+            for (int i = 0; i < validity.length; i++) {
+                if (validity[i] != null && validity[i].isAfter(now)) {
+                    flags.get(vendorId)[0] |= 1 << (FIRST_TYPE_BIT + i);
+                    if (validity[i] != forever) {
+                        lower(validUntil.get(vendorId), validity[i]);
+                    }
+                }
+            }
+        });
+
+        flags.forEach((vendorId, vendorFlags) -> index.put(vendorId, vendorFlags[0], validUntil.get(vendorId)[0]));
+    }
+
+    private static void lower(long[] validUntil, LocalDateTime candidate) {
+        validUntil[0] = Math.min(validUntil[0], epochSecond(candidate));
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
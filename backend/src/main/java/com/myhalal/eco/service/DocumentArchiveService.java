@@ -0,0 +1,157 @@
+package com.myhalal.eco.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myhalal.eco.dto.VendorDocumentSummary;
+import com.myhalal.eco.repository.VendorDocumentRepository;
+import com.myhalal.eco.repository.VendorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Streams a vendor's documents as a ZIP straight to the response. Documents are read page by page
+// and copied through a fixed buffer, so memory stays flat however large the dossier is.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentArchiveService {
+
+    private static final String MANIFEST_NAME = "manifest.json";
+
+    private final VendorRepository vendorRepository;
+    private final VendorDocumentRepository documentRepository;
+    private final VendorDocumentService documentService;
+    private final DocumentBlobService blobService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${documents.archive.page-size:200}")
+    private int pageSize;
+
+    @Value("${documents.archive.buffer-size:65536}")
+    private int bufferSize;
+
+    // Already-compressed formats are stored at level 0 rather than spending CPU on deflating them again
+    @Value("${documents.archive.compressible-types:text/plain,text/csv,application/json,application/xml,image/bmp,image/tiff}")
+    private Set<String> compressibleTypes;
+
+    public void checkVendor(Long vendorId) {
+        if (!vendorRepository.existsById(vendorId)) {
+            throw new RuntimeException("Vendor not found");
+        }
+    }
+
+    public void writeArchive(Long vendorId, OutputStream output) throws IOException {
+        List<Map<String, Object>> manifest = new ArrayList<>();
+        byte[] buffer = new byte[bufferSize];
+        ZipOutputStream zip = new ZipOutputStream(output);
+
+        long afterId = 0;
+        List<VendorDocumentSummary> page;
+        do {
+            page = documentRepository.findSummariesByVendorIdAfter(vendorId, afterId, PageRequest.of(0, pageSize));
+            for (VendorDocumentSummary document : page) {
+                manifest.add(writeDocument(zip, document, buffer));
+                afterId = document.documentId();
+            }
+        } while (page.size() == pageSize);
+
+        Map<String, Object> contents = new LinkedHashMap<>();
+        contents.put("vendorId", vendorId);
+        contents.put("generatedAt", LocalDateTime.now());
+        contents.put("hashAlgorithm", "SHA-256");
+        contents.put("documentCount", manifest.size());
+        contents.put("documents", manifest);
+        zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+        zip.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(contents));
+        zip.closeEntry();
+        zip.finish();
+        output.flush();
+        log.info("Streamed archive of {} documents for vendor {}", manifest.size(), vendorId);
+    }
+
+    private Map<String, Object> writeDocument(ZipOutputStream zip, VendorDocumentSummary document, byte[] buffer)
+            throws IOException {
+        String name = entryName(document);
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("path", name);
+        entry.put("documentId", document.documentId());
+        entry.put("documentType", document.documentType());
+        entry.put("documentName", document.documentName());
+        entry.put("mimeType", document.mimeType());
+        entry.put("verificationStatus", document.verificationStatus());
+        entry.put("expiryDate", document.expiryDate());
+
+        InputStream content;
+        try {
+            content = open(document);
+        } catch (NoSuchFileException | RuntimeException e) {
+            log.warn("Skipping document {} in archive: {}", document.documentId(), e.getMessage());
+            entry.put("path", null);
+            entry.put("error", "Content not available");
+            return entry;
+        }
+
+        // Blob-backed documents already carry their SHA-256; legacy files are hashed on the way through
+        MessageDigest digest = document.contentHash() == null ? DocumentBlobService.sha256() : null;
+        long size = 0;
+        try (InputStream input = digest != null ? new DigestInputStream(content, digest) : content) {
+            ZipEntry zipEntry = new ZipEntry(name);
+            if (document.createdDate() != null) {
+                zipEntry.setTime(document.createdDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            zip.setLevel(isCompressible(document.mimeType()) ? Deflater.BEST_SPEED : Deflater.NO_COMPRESSION);
+            zip.putNextEntry(zipEntry);
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                zip.write(buffer, 0, read);
+                size += read;
+            }
+            zip.closeEntry();
+        }
+
+        entry.put("size", size);
+        entry.put("sha256", digest != null ? HexFormat.of().formatHex(digest.digest()) : document.contentHash());
+        return entry;
+    }
+
+    private InputStream open(VendorDocumentSummary document) throws IOException {
+        if (document.contentHash() != null) {
+            return blobService.open(document.contentHash());
+        }
+        return documentService.openContent(documentService.getDocument(document.documentId()), 0, Long.MAX_VALUE);
+    }
+
+    private boolean isCompressible(String mimeType) {
+        return mimeType != null && compressibleTypes.contains(mimeType.toLowerCase());
+    }
+
+    // The document id keeps names unique; everything that could act as a path separator is dropped
+    private static String entryName(VendorDocumentSummary document) {
+        String base = document.documentName() != null ? document.documentName() : "document";
+        String safe = base.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").replaceAll("^\\.+", "_");
+        String type = document.documentType() != null
+            ? document.documentType().replaceAll("[^A-Za-z0-9_-]", "_")
+            : "OTHER";
+        return type + "/" + document.documentId() + "-" + safe;
+    }
+}
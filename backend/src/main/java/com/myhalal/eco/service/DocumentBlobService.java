@@ -0,0 +1,551 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.DocumentBlob;
+import com.myhalal.eco.processing.MimeSniffer;
+import com.myhalal.eco.repository.DocumentBlobRepository;
+import com.myhalal.eco.storage.CompressionStats;
+import com.myhalal.eco.storage.DocumentStore;
+import com.myhalal.eco.storage.FramedCompression;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class DocumentBlobService {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int LINK_ATTEMPTS = 3;
+    private static final int TIER_BATCH_SIZE = 100;
+    private static final int INDEX_CACHE_SIZE = 1024;
+    private static final int COMPRESSION_SAMPLE_FRAMES = 16;
+
+    private final DocumentBlobRepository blobRepository;
+    private final DocumentStore documentStore;
+    private final PlatformTransactionManager transactionManager;
+
+    private final CompressionStats compressionStats = new CompressionStats();
+    private final Set<String> accessed = ConcurrentHashMap.newKeySet();
+    private final Map<String, FramedCompression.Index> indexCache = Collections.synchronizedMap(
+        new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FramedCompression.Index> eldest) {
+                return size() > INDEX_CACHE_SIZE;
+            }
+        });
+
+    @Value("${documents.storage.root:uploads/vendor-documents}")
+    private String storageRoot;
+
+    @Value("${documents.storage.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${documents.storage.compression.mime-types:application/pdf,text/plain,image/tiff,application/octet-stream}")
+    private Set<String> compressibleTypes;
+
+    @Value("${documents.storage.compression.min-savings:0.1}")
+    private double minSavings;
+
+    @Value("${documents.storage.compression.hot-level:1}")
+    private int hotLevel;
+
+    @Value("${documents.storage.compression.hot-frame-size:262144}")
+    private int hotFrameSize;
+
+    @Value("${documents.storage.compression.cold-level:9}")
+    private int coldLevel;
+
+    @Value("${documents.storage.compression.cold-frame-size:1048576}")
+    private int coldFrameSize;
+
+    @Value("${documents.storage.compression.cold-after-days:30}")
+    private int coldAfterDays;
+
+    @Value("${documents.storage.compression.retired-grace-minutes:60}")
+    private long retiredGraceMinutes;
+
+    @Value("${documents.storage.orphan-grace-minutes:60}")
+    private long orphanGraceMinutes;
+
+    // Hashes while streaming to a local temp file, then dedupes against the store by SHA-256
+    public DocumentBlob store(InputStream input) {
+        Path tempFile = null;
+        try {
+            Path tempDir = Paths.get(storageRoot, "tmp");
+            Files.createDirectories(tempDir);
+            tempFile = tempDir.resolve(UUID.randomUUID() + ".part");
+
+            MessageDigest digest = sha256();
+            long size = 0;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            try (ReadableByteChannel source = Channels.newChannel(input);
+                 FileChannel target = FileChannel.open(tempFile,
+                     StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        size += target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                target.force(false);
+            }
+
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            return link(contentHash, tempFile, size);
+        } catch (IOException e) {
+            log.error("Error storing document blob: {}", e.getMessage());
+            throw new RuntimeException("Failed to store file: " + e.getMessage());
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    // The reference is taken under the blob's row lock, the same lock release and purge take, so an
+    // object is never reused while a purge of it is deciding whether to delete it. The row exists
+    // (unreferenced) before any object is written, so a failed upload always leaves something the
+    // orphan sweep can find.
+    public DocumentBlob link(String contentHash, Path stagedFile, long size) throws IOException {
+        for (int attempt = 0; attempt < LINK_ATTEMPTS; attempt++) {
+            DocumentBlob blob = blobRepository.findForUpdate(contentHash).orElse(null);
+            if (blob == null) {
+                createUnreferenced(contentHash, size);
+                continue;
+            }
+
+            if (blob.getRefCount() > 0 && documentStore.exists(blob.getStorageFormat().storeKey(contentHash))) {
+                log.info("Deduplicated upload against existing blob {}", contentHash);
+            } else {
+                StoredObject stored = storeObject(contentHash, stagedFile, size);
+                blob.setStorageFormat(stored.format());
+                blob.setStoredSize(stored.storedSize());
+                blob.setStoragePath(documentStore.location(stored.format().storeKey(contentHash)));
+                TransactionCallbacks.onRollback(() -> purgeIfUnreferenced(contentHash));
+            }
+            blob.setRefCount(blob.getRefCount() + 1);
+            return blob;
+        }
+        throw new RuntimeException("Failed to link blob " + contentHash);
+    }
+
+    // Reuses an object left by an earlier attempt, otherwise compresses when the MIME policy and
+    // the achieved ratio both say it is worth it, and falls back to the raw bytes
+    private StoredObject storeObject(String contentHash, Path stagedFile, long size) throws IOException {
+        for (DocumentBlob.StorageFormat format : DocumentBlob.StorageFormat.values()) {
+            String key = format.storeKey(contentHash);
+            if (documentStore.exists(key)) {
+                return new StoredObject(format, documentStore.size(key));
+            }
+        }
+
+        if (compressionEnabled && size > 0 && compressibleTypes.contains(sniff(stagedFile))
+                && worthCompressing(stagedFile, size)) {
+            Path framed = stagedFile.resolveSibling(stagedFile.getFileName() + ".hz");
+            try {
+                long storedSize = encode(stagedFile, size, framed, hotLevel, hotFrameSize);
+                if (storedSize <= size * (1 - minSavings)) {
+                    documentStore.put(DocumentBlob.StorageFormat.HOT.storeKey(contentHash), framed);
+                    return new StoredObject(DocumentBlob.StorageFormat.HOT, storedSize);
+                }
+            } finally {
+                deleteQuietly(framed);
+            }
+        }
+
+        documentStore.put(contentHash, stagedFile);
+        return new StoredObject(DocumentBlob.StorageFormat.RAW, size);
+    }
+
+    // Concurrent first uploads of the same content race on the primary key, so the row is
+    // created unreferenced in its own transaction and every uploader then takes a reference
+    private void createUnreferenced(String contentHash, long size) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            requiresNew.executeWithoutResult(status -> blobRepository.insertUnreferenced(contentHash,
+                documentStore.location(contentHash), size, DocumentBlob.StorageFormat.RAW.name(), size));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Blob {} was created by a concurrent upload", contentHash);
+        }
+    }
+
+    // The object is only removed after the last reference is gone and the transaction commits, and
+    // only if nobody has taken a new reference by the time the purge holds the row lock
+    public void release(String contentHash) {
+        DocumentBlob blob = blobRepository.findForUpdate(contentHash).orElse(null);
+        if (blob == null) {
+            return;
+        }
+        blob.setRefCount(Math.max(0, blob.getRefCount() - 1));
+        if (blob.getRefCount() > 0) {
+            return;
+        }
+
+        TransactionCallbacks.afterCommit(() -> purgeIfUnreferenced(contentHash));
+        log.info("Released last reference to blob {}", contentHash);
+    }
+
+    // Unreferenced rows are left by rolled-back or interrupted uploads and by purges that could not
+    // delete every object; the grace period keeps the sweep off rows an upload is about to lock
+    @Scheduled(fixedDelayString = "${documents.storage.orphan-sweep-interval-ms:3600000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void sweepOrphans() {
+        LocalDateTime createdBefore = LocalDateTime.now().minusMinutes(orphanGraceMinutes);
+        int purged = 0;
+        int purgedFromPage;
+        List<String> unreferenced;
+        do {
+            unreferenced = blobRepository.findUnreferenced(createdBefore, PageRequest.of(0, TIER_BATCH_SIZE));
+            purgedFromPage = 0;
+            for (String contentHash : unreferenced) {
+                if (purgeIfUnreferenced(contentHash)) {
+                    purgedFromPage++;
+                }
+            }
+            purged += purgedFromPage;
+            // A row whose objects could not be deleted stays, so stop rather than re-read the same page
+        } while (unreferenced.size() == TIER_BATCH_SIZE && purgedFromPage > 0);
+        if (purged > 0) {
+            log.info("Orphan sweep purged {} unreferenced blobs", purged);
+        }
+    }
+
+    private boolean purgeIfUnreferenced(String contentHash) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return Boolean.TRUE.equals(requiresNew.execute(status -> {
+                DocumentBlob blob = blobRepository.findForUpdate(contentHash).orElse(null);
+                if (blob == null || blob.getRefCount() > 0 || !deleteAllFormats(contentHash)) {
+                    return false;
+                }
+                blobRepository.delete(blob);
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge blob {}: {}", contentHash, e.getMessage());
+            return false;
+        }
+    }
+
+    // Zero-copy serving is only possible when the stored bytes are the document bytes
+    public Optional<Path> localPath(String contentHash) {
+        DocumentBlob blob = blobRepository.findById(contentHash).orElse(null);
+        if (blob == null || blob.getStorageFormat() != DocumentBlob.StorageFormat.RAW) {
+            return Optional.empty();
+        }
+        accessed.add(contentHash);
+        return documentStore.localPath(contentHash);
+    }
+
+    public long size(String contentHash) throws IOException {
+        return getBlob(contentHash).getSize();
+    }
+
+    public InputStream open(String contentHash) throws IOException {
+        DocumentBlob blob = getBlob(contentHash);
+        accessed.add(contentHash);
+        if (blob.getStorageFormat() == DocumentBlob.StorageFormat.RAW) {
+            return documentStore.get(contentHash);
+        }
+        InputStream stored = documentStore.get(blob.getStorageFormat().storeKey(contentHash));
+        FramedCompression.Index index = FramedCompression.readIndex(stored);
+        return FramedCompression.decode(stored, index, 0, 0, index.originalSize(), compressionStats);
+    }
+
+    // Only the frames overlapping the range are fetched and inflated
+    public InputStream openRange(String contentHash, long offset, long length) throws IOException {
+        DocumentBlob blob = getBlob(contentHash);
+        accessed.add(contentHash);
+        if (blob.getStorageFormat() == DocumentBlob.StorageFormat.RAW) {
+            return documentStore.getRange(contentHash, offset, length);
+        }
+        String key = blob.getStorageFormat().storeKey(contentHash);
+        FramedCompression.Index index = frameIndex(key);
+        long end = Math.min(offset + length, index.originalSize());
+        if (end <= offset) {
+            return InputStream.nullInputStream();
+        }
+        int firstFrame = (int) (offset / index.frameSize());
+        int lastFrame = (int) ((end - 1) / index.frameSize());
+        InputStream frames = documentStore.getRange(key, index.dataStart() + index.frameOffset(firstFrame),
+            index.storedSpan(firstFrame, lastFrame));
+        return FramedCompression.decode(frames, index, firstFrame,
+            offset - (long) firstFrame * index.frameSize(), end - offset, compressionStats);
+    }
+
+    @Scheduled(fixedDelayString = "${documents.storage.compression.access-flush-interval-ms:600000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void flushAccessTimes() {
+        if (accessed.isEmpty()) {
+            return;
+        }
+        List<String> hashes = new ArrayList<>(accessed);
+        accessed.removeAll(hashes);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        for (int start = 0; start < hashes.size(); start += TIER_BATCH_SIZE) {
+            List<String> batch = hashes.subList(start, Math.min(start + TIER_BATCH_SIZE, hashes.size()));
+            transaction.executeWithoutResult(status -> blobRepository.markAccessed(batch, now));
+        }
+    }
+
+    // Re-encodes hot blobs nobody has read for a while with the slower, higher-ratio settings.
+    // Inflate speed barely depends on the deflate level, so reads of cold blobs stay as fast.
+    @Scheduled(cron = "${documents.storage.compression.cold-tier-cron:0 15 2 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void moveIdleBlobsToColdTier() {
+        if (!compressionEnabled) {
+            return;
+        }
+        flushAccessTimes();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(coldAfterDays);
+        int moved = 0;
+        Set<String> failed = new HashSet<>();
+        List<String> idle;
+        do {
+            // Failed blobs stay HOT and idle, so each page is widened past the ones already skipped
+            idle = blobRepository.findIdleBlobs(DocumentBlob.StorageFormat.HOT, cutoff,
+                PageRequest.of(0, TIER_BATCH_SIZE + failed.size()));
+            idle = idle.stream().filter(contentHash -> !failed.contains(contentHash)).toList();
+            for (String contentHash : idle) {
+                try {
+                    moveToColdTier(contentHash);
+                    moved++;
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Failed to move blob {} to cold tier: {}", contentHash, e.getMessage());
+                    failed.add(contentHash);
+                }
+            }
+        } while (idle.size() == TIER_BATCH_SIZE);
+        if (moved > 0 || !failed.isEmpty()) {
+            log.info("Moved {} idle blobs to the cold tier, {} failed", moved, failed.size());
+        }
+    }
+
+    // Objects superseded by a tier move outlive it by a grace period so downloads and range reads that
+    // resolved the old format keep working; the row lock keeps this off blobs being linked or purged
+    @Scheduled(fixedDelayString = "${documents.storage.orphan-sweep-interval-ms:3600000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void purgeRetiredObjects() {
+        LocalDateTime retiredBefore = LocalDateTime.now().minusMinutes(retiredGraceMinutes);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int purged = 0;
+        int purgedFromPage;
+        List<String> retired;
+        do {
+            retired = blobRepository.findRetiredBefore(retiredBefore, PageRequest.of(0, TIER_BATCH_SIZE));
+            purgedFromPage = 0;
+            for (String contentHash : retired) {
+                try {
+                    if (Boolean.TRUE.equals(transaction.execute(status -> purgeRetired(contentHash)))) {
+                        purgedFromPage++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to purge retired object of blob {}: {}", contentHash, e.getMessage());
+                }
+            }
+            purged += purgedFromPage;
+        } while (retired.size() == TIER_BATCH_SIZE && purgedFromPage > 0);
+        if (purged > 0) {
+            log.info("Purged {} retired blob objects", purged);
+        }
+    }
+
+    private boolean purgeRetired(String contentHash) {
+        DocumentBlob blob = blobRepository.findForUpdate(contentHash).orElse(null);
+        if (blob == null || blob.getRetiredFormat() == null) {
+            return false;
+        }
+        // A relink may have reused the retired object as the current one
+        if (blob.getRetiredFormat() != blob.getStorageFormat()) {
+            String key = blob.getRetiredFormat().storeKey(contentHash);
+            try {
+                documentStore.delete(key);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to delete " + key + ": " + e.getMessage(), e);
+            }
+            indexCache.remove(key);
+        }
+        blob.setRetiredFormat(null);
+        blob.setRetiredDate(null);
+        return true;
+    }
+
+    private void moveToColdTier(String contentHash) throws IOException {
+        Path tempDir = Paths.get(storageRoot, "tmp");
+        Files.createDirectories(tempDir);
+        Path decoded = tempDir.resolve(UUID.randomUUID() + ".part");
+        Path framed = tempDir.resolve(UUID.randomUUID() + ".cz");
+        String coldKey = DocumentBlob.StorageFormat.COLD.storeKey(contentHash);
+        try {
+            long size;
+            try (InputStream input = open(contentHash)) {
+                size = Files.copy(input, decoded);
+            }
+            long storedSize = encode(decoded, size, framed, coldLevel, coldFrameSize);
+            documentStore.put(coldKey, framed);
+
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            Integer updated = transaction.execute(status -> blobRepository.changeFormat(contentHash,
+                DocumentBlob.StorageFormat.HOT, DocumentBlob.StorageFormat.COLD, storedSize,
+                documentStore.location(coldKey), LocalDateTime.now()));
+            // The HOT object is retired, not deleted; a cold copy is only dropped when the blob moved on
+            // (purged or relinked) while it was being encoded
+            if ((updated == null || updated != 1) && blobRepository.findById(contentHash)
+                    .map(blob -> blob.getStorageFormat() != DocumentBlob.StorageFormat.COLD).orElse(true)) {
+                documentStore.delete(coldKey);
+                indexCache.remove(coldKey);
+            }
+        } finally {
+            deleteQuietly(decoded);
+            deleteQuietly(framed);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStorageStats() {
+        long totalOriginal = 0;
+        long totalStored = 0;
+        Map<String, Object> formats = new LinkedHashMap<>();
+        for (Object[] row : blobRepository.getFormatTotals()) {
+            long original = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+            long stored = row[3] != null ? ((Number) row[3]).longValue() : original;
+            totalOriginal += original;
+            totalStored += stored;
+            formats.put(row[0].toString(), Map.of(
+                "blobs", row[1],
+                "originalBytes", original,
+                "storedBytes", stored,
+                "compressionRatio", ratio(original, stored)
+            ));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("originalBytes", totalOriginal);
+        stats.put("storedBytes", totalStored);
+        stats.put("compressionRatio", ratio(totalOriginal, totalStored));
+        stats.put("formats", formats);
+        stats.put("codec", compressionStats.snapshot());
+        return stats;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private DocumentBlob getBlob(String contentHash) throws IOException {
+        return blobRepository.findById(contentHash)
+            .orElseThrow(() -> new NoSuchFileException(contentHash));
+    }
+
+    private FramedCompression.Index frameIndex(String key) throws IOException {
+        FramedCompression.Index index = indexCache.get(key);
+        if (index == null) {
+            index = FramedCompression.readIndex(documentStore, key);
+            indexCache.put(key, index);
+        }
+        return index;
+    }
+
+    private long encode(Path source, long size, Path target, int level, int frameSize) throws IOException {
+        long started = System.nanoTime();
+        long storedSize = FramedCompression.compress(source, size, target, level, frameSize);
+        compressionStats.recordEncode(size, System.nanoTime() - started);
+        return storedSize;
+    }
+
+    // A sniffed type only says the content may compress; large files are sampled first so that
+    // incompressible content is not deflated end to end only to be stored raw
+    private boolean worthCompressing(Path stagedFile, long size) throws IOException {
+        if (size <= (long) hotFrameSize * COMPRESSION_SAMPLE_FRAMES) {
+            return true;
+        }
+        return FramedCompression.sampleSavings(stagedFile, size, hotLevel, hotFrameSize,
+            COMPRESSION_SAMPLE_FRAMES) >= minSavings;
+    }
+
+    private String sniff(Path file) throws IOException {
+        byte[] header;
+        try (InputStream input = Files.newInputStream(file)) {
+            header = input.readNBytes(MimeSniffer.HEADER_SIZE);
+        }
+        String detected = MimeSniffer.detect(header, header.length);
+        return detected != null ? detected : MimeSniffer.OCTET_STREAM;
+    }
+
+    private static double ratio(long original, long stored) {
+        return stored == 0 ? 1.0 : Math.round(original * 1000.0 / stored) / 1000.0;
+    }
+
+    private boolean deleteAllFormats(String contentHash) {
+        boolean deleted = true;
+        for (DocumentBlob.StorageFormat format : DocumentBlob.StorageFormat.values()) {
+            String key = format.storeKey(contentHash);
+            try {
+                documentStore.delete(key);
+                indexCache.remove(key);
+            } catch (IOException e) {
+                log.warn("Failed to delete blob {}: {}", key, e.getMessage());
+                deleted = false;
+            }
+        }
+        return deleted;
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record StoredObject(DocumentBlob.StorageFormat format, long storedSize) {
+    }
+}
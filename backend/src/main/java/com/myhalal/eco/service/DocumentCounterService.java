@@ -0,0 +1,197 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.VendorDocument;
+import com.myhalal.eco.repository.VendorDocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Document counts per verification status, globally and per vendor, kept current from the
+// document service after each commit so the stats endpoints never scan the table.
+// A scheduled reconciliation compares them with a GROUP BY and repairs any drift.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentCounterService {
+
+    private static final VendorDocument.VerificationStatus[] STATUSES = VendorDocument.VerificationStatus.values();
+
+    private final VendorDocumentRepository documentRepository;
+
+    private final AtomicLongArray global = new AtomicLongArray(STATUSES.length);
+    private final Map<Long, AtomicLongArray> byVendor = new ConcurrentHashMap<>();
+
+    // Updates registered but not yet applied, and updates applied so far; reconciliation only
+    // trusts a snapshot taken while neither moved
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+
+    private volatile boolean loaded;
+    private int skippedReconciles;
+
+    @Value("${documents.counters.max-skipped-reconciles:3}")
+    private int maxSkippedReconciles;
+
+    // Loaded as a difference against the counters read before the query, so updates applied while
+    // the query ran are kept instead of being overwritten
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        Map<Long, long[]> before = currentCounts();
+        Map<Long, long[]> counts = queryCounts();
+        applyDifference(counts, before);
+        loaded = true;
+        log.info("Document status counters loaded for {} vendors", counts.size());
+    }
+
+    public void documentCreated(Long vendorId, VendorDocument.VerificationStatus status) {
+        afterCommit(() -> add(vendorId, status, 1));
+    }
+
+    public void documentDeleted(Long vendorId, VendorDocument.VerificationStatus status) {
+        afterCommit(() -> add(vendorId, status, -1));
+    }
+
+    public void statusChanged(Long vendorId, VendorDocument.VerificationStatus from,
+                              VendorDocument.VerificationStatus to) {
+        if (from == to) {
+            return;
+        }
+        afterCommit(() -> {
+            add(vendorId, from, -1);
+            add(vendorId, to, 1);
+        });
+    }
+
+    public Map<VendorDocument.VerificationStatus, Long> getGlobalCounts() {
+        ensureLoaded();
+        return toMap(global);
+    }
+
+    public Map<VendorDocument.VerificationStatus, Long> getVendorCounts(Long vendorId) {
+        ensureLoaded();
+        AtomicLongArray counts = byVendor.get(vendorId);
+        return counts != null ? toMap(counts) : toMap(new AtomicLongArray(STATUSES.length));
+    }
+
+    // A snapshot taken while no updates moved is exact. Under constant load the counters are corrected
+    // anyway after a bounded number of skipped runs; a difference that straddled the snapshot is then
+    // left for the next run to repair.
+    @Scheduled(cron = "${documents.counters.reconcile-cron:0 */15 * * * *}")
+    public synchronized void reconcile() {
+        if (!loaded) {
+            return;
+        }
+        long appliedBefore = applied.sum();
+        boolean quiet = pending.sum() == 0;
+        Map<Long, long[]> before = currentCounts();
+        Map<Long, long[]> counts = queryCounts();
+        quiet = quiet && pending.sum() == 0 && applied.sum() == appliedBefore;
+        if (!quiet && skippedReconciles < maxSkippedReconciles) {
+            skippedReconciles++;
+            log.debug("Skipping counter reconciliation, documents changed during the snapshot");
+            return;
+        }
+        skippedReconciles = 0;
+
+        int drifted = applyDifference(counts, before);
+        if (drifted > 0) {
+            log.warn("Repaired {} drifted document status counters", drifted);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private Map<Long, long[]> queryCounts() {
+        Map<Long, long[]> counts = new HashMap<>();
+        List<Object[]> rows = documentRepository.countByVendorAndVerificationStatus();
+        for (Object[] row : rows) {
+            if (row[1] == null) {
+                continue;
+            }
+            long[] values = counts.computeIfAbsent((Long) row[0], id -> new long[STATUSES.length]);
+            values[((VendorDocument.VerificationStatus) row[1]).ordinal()] = ((Number) row[2]).longValue();
+        }
+        return counts;
+    }
+
+    private Map<Long, long[]> currentCounts() {
+        Map<Long, long[]> counts = new HashMap<>();
+        byVendor.forEach((vendorId, vendorCounts) -> {
+            long[] values = new long[STATUSES.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = vendorCounts.get(i);
+            }
+            counts.put(vendorId, values);
+        });
+        return counts;
+    }
+
+    // Moves each counter by (queried - before); updates applied since 'before' was read are preserved
+    private int applyDifference(Map<Long, long[]> counts, Map<Long, long[]> before) {
+        int changed = 0;
+        long[] none = new long[STATUSES.length];
+        for (Long vendorId : before.keySet()) {
+            counts.putIfAbsent(vendorId, none);
+        }
+        for (Map.Entry<Long, long[]> entry : counts.entrySet()) {
+            long[] expected = entry.getValue();
+            long[] previous = before.getOrDefault(entry.getKey(), none);
+            AtomicLongArray vendorCounts = vendorCounts(entry.getKey());
+            for (int i = 0; i < STATUSES.length; i++) {
+                long delta = expected[i] - previous[i];
+                if (delta != 0) {
+                    vendorCounts.addAndGet(i, delta);
+                    global.addAndGet(i, delta);
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private void add(Long vendorId, VendorDocument.VerificationStatus status, long delta) {
+        if (vendorId == null || status == null) {
+            return;
+        }
+        vendorCounts(vendorId).addAndGet(status.ordinal(), delta);
+        global.addAndGet(status.ordinal(), delta);
+    }
+
+    private AtomicLongArray vendorCounts(Long vendorId) {
+        return byVendor.computeIfAbsent(vendorId, id -> new AtomicLongArray(STATUSES.length));
+    }
+
+    private static Map<VendorDocument.VerificationStatus, Long> toMap(AtomicLongArray counts) {
+        Map<VendorDocument.VerificationStatus, Long> values = new EnumMap<>(VendorDocument.VerificationStatus.class);
+        for (VendorDocument.VerificationStatus status : STATUSES) {
+            values.put(status, Math.max(0, counts.get(status.ordinal())));
+        }
+        return values;
+    }
+
+    // Pending covers the whole window from registration to completion, so a rollback also clears it
+    private void afterCommit(Runnable update) {
+        pending.increment();
+        TransactionCallbacks.afterCommit(() -> {
+            update.run();
+            applied.increment();
+        });
+        TransactionCallbacks.afterCompletion(pending::decrement);
+    }
+}
@@ -0,0 +1,406 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.VendorDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Lazily rendered thumbnails and first-page previews, cached on disk by content hash.
+// Renders run on a small bounded pool; concurrent requests for the same preview share one render.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentPreviewService {
+
+    private static final String PDF = "application/pdf";
+    private static final int MAX_FORM_DEPTH = 8;
+    private static final Set<String> IMAGE_TYPES = Set.of(
+        "image/png", "image/jpeg", "image/gif", "image/bmp", "image/tiff"
+    );
+
+    private final VendorDocumentService documentService;
+
+    private final Map<String, CompletableFuture<Path>> rendering = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private ThreadPoolExecutor executor;
+
+    @Value("${documents.preview.root:uploads/previews}")
+    private String previewRoot;
+
+    @Value("${documents.preview.workers:2}")
+    private int workers;
+
+    @Value("${documents.preview.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${documents.preview.thumbnail-size:256}")
+    private int thumbnailSize;
+
+    @Value("${documents.preview.page-size:1024}")
+    private int pageSize;
+
+    @Value("${documents.preview.render-timeout-seconds:20}")
+    private long renderTimeoutSeconds;
+
+    @Value("${documents.preview.max-source-bytes:104857600}")
+    private long maxSourceBytes;
+
+    @Value("${documents.preview.max-image-pixels:100000000}")
+    private long maxImagePixels;
+
+    @Value("${documents.preview.max-cache-bytes:536870912}")
+    private long maxCacheBytes;
+
+    public enum Variant {
+        THUMBNAIL, PAGE
+    }
+
+    public record Preview(Path file, String eTag) {
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(Paths.get(previewRoot, "tmp"));
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "doc-preview-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Known without rendering, so a revalidating client can be answered before any work is queued
+    public String getPreviewETag(Long documentId, Variant variant) {
+        VendorDocument document = documentService.getDocument(documentId);
+        if (previewType(document) == null) {
+            throw new RuntimeException("Preview not available for this document type");
+        }
+        return "\"" + cacheKey(document, variant) + "\"";
+    }
+
+    public Preview getPreview(Long documentId, Variant variant) {
+        VendorDocument document = documentService.getDocument(documentId);
+        String type = previewType(document);
+        if (type == null) {
+            throw new RuntimeException("Preview not available for this document type");
+        }
+
+        String key = cacheKey(document, variant);
+        Path target = Paths.get(previewRoot, key + ".png");
+        if (Files.exists(target)) {
+            hits.increment();
+            touch(target);
+            return new Preview(target, "\"" + key + "\"");
+        }
+
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> pending = rendering.putIfAbsent(key, created);
+        if (pending == null) {
+            pending = created;
+            try {
+                executor.execute(() -> render(document, type, variant, target, key, created));
+            } catch (RejectedExecutionException e) {
+                rendering.remove(key, created);
+                throw new RejectedExecutionException("Preview renderer is busy, try again shortly");
+            }
+        } else {
+            shared.increment();
+        }
+
+        try {
+            return new Preview(pending.get(renderTimeoutSeconds, TimeUnit.SECONDS), "\"" + key + "\"");
+        } catch (TimeoutException e) {
+            // The render keeps going and lands in the cache for the next request
+            throw new RejectedExecutionException("Preview is still rendering, try again shortly");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to render preview: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while rendering preview");
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cacheHits", hits.sum());
+        metrics.put("renders", renders.sum());
+        metrics.put("sharedRenders", shared.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("inFlight", rendering.size());
+        metrics.put("queued", executor.getQueue().size());
+        return metrics;
+    }
+
+    // Trims the least recently used previews once the cache outgrows its budget
+    @Scheduled(cron = "${documents.preview.prune-cron:0 30 * * * *}")
+    public void pruneCache() {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(Paths.get(previewRoot))) {
+            files = listing.filter(path -> path.toString().endsWith(".png")).toList();
+        } catch (IOException e) {
+            log.warn("Failed to list preview cache: {}", e.getMessage());
+            return;
+        }
+
+        List<CachedPreview> entries = new ArrayList<>(files.size());
+        long total = 0;
+        for (Path file : files) {
+            try {
+                long size = Files.size(file);
+                entries.add(new CachedPreview(file, Files.getLastModifiedTime(file), size));
+                total += size;
+            } catch (IOException e) {
+                // removed concurrently
+            }
+        }
+        if (total <= maxCacheBytes) {
+            return;
+        }
+
+        entries.sort(Comparator.comparing(CachedPreview::lastUsed));
+        int removed = 0;
+        for (Iterator<CachedPreview> it = entries.iterator(); it.hasNext() && total > maxCacheBytes * 0.9; ) {
+            CachedPreview entry = it.next();
+            try {
+                Files.deleteIfExists(entry.file());
+                total -= entry.size();
+                removed++;
+            } catch (IOException e) {
+                log.warn("Failed to delete preview {}: {}", entry.file(), e.getMessage());
+            }
+        }
+        log.info("Pruned {} cached previews", removed);
+    }
+
+    private static String cacheKey(VendorDocument document, Variant variant) {
+        return (document.getContentHash() != null ? document.getContentHash() : "doc-" + document.getDocumentId())
+            + "-" + variant.name().toLowerCase();
+    }
+
+    private void render(VendorDocument document, String type, Variant variant, Path target, String key,
+                        CompletableFuture<Path> result) {
+        Path temp = Paths.get(previewRoot, "tmp", UUID.randomUUID() + ".png");
+        try {
+            if (!Files.exists(target)) {
+                int size = variant == Variant.THUMBNAIL ? thumbnailSize : pageSize;
+                BufferedImage image = type.equals(PDF) ? renderPdf(document, size) : renderImage(document, size);
+                if (!ImageIO.write(image, "png", temp.toFile())) {
+                    throw new IOException("No PNG writer available");
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                renders.increment();
+            }
+            result.complete(target);
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Failed to render preview for document {}: {}", document.getDocumentId(), e.getMessage());
+            result.completeExceptionally(e);
+        } finally {
+            // An Error is left to propagate, but waiting requests still need an answer
+            if (!result.isDone()) {
+                failures.increment();
+                result.completeExceptionally(new IOException("Preview render aborted"));
+            }
+            rendering.remove(key, result);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.debug("Failed to delete {}", temp);
+            }
+        }
+    }
+
+    private BufferedImage renderPdf(VendorDocument document, int size) throws IOException {
+        Path source = documentService.getLocalPath(document).orElse(null);
+        Path copy = null;
+        try {
+            if (source == null) {
+                copy = copyToTemp(document);
+                source = copy;
+            }
+            // Parsed from the file with streams cached in temp files, so only the page being drawn is in memory
+            try (PDDocument pdf = Loader.loadPDF(source.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+                if (pdf.getNumberOfPages() == 0) {
+                    throw new IOException("PDF has no pages");
+                }
+                PDPage page = pdf.getPage(0);
+                PDRectangle box = page.getCropBox();
+                float scale = Math.min(size / Math.max(box.getWidth(), box.getHeight()), 4f);
+                if ((long) Math.ceil(box.getWidth() * scale) * (long) Math.ceil(box.getHeight() * scale) > maxImagePixels) {
+                    throw new IOException("Page is too large to preview");
+                }
+                checkImagePixels(page.getResources(), 0);
+
+                PDFRenderer renderer = new PDFRenderer(pdf);
+                renderer.setSubsamplingAllowed(true);
+                return renderer.renderImage(0, scale, ImageType.RGB);
+            }
+        } finally {
+            if (copy != null) {
+                Files.deleteIfExists(copy);
+            }
+        }
+    }
+
+    // Embedded images are decoded at full size before they are scaled onto the page, so one oversized
+    // scan can exhaust the heap however small the preview is; check them before drawing anything
+    private void checkImagePixels(PDResources resources, int depth) throws IOException {
+        if (resources == null || depth > MAX_FORM_DEPTH) {
+            return;
+        }
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (xObject instanceof PDImageXObject image) {
+                if ((long) image.getWidth() * image.getHeight() > maxImagePixels) {
+                    throw new IOException("Embedded image is too large to preview");
+                }
+            } else if (xObject instanceof PDFormXObject form) {
+                checkImagePixels(form.getResources(), depth + 1);
+            }
+        }
+    }
+
+    private BufferedImage renderImage(VendorDocument document, int size) throws IOException {
+        long length = documentService.getContentLength(document);
+        try (InputStream input = documentService.openContent(document, 0, length);
+             ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxImagePixels) {
+                    throw new IOException("Image is too large to preview");
+                }
+                // Subsampling while decoding keeps large scans from being fully materialised
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (size * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return scale(reader.read(0, param), size);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private Path copyToTemp(VendorDocument document) throws IOException {
+        long length = documentService.getContentLength(document);
+        if (length > maxSourceBytes) {
+            throw new IOException("Document is too large to preview");
+        }
+        Path copy = Paths.get(previewRoot, "tmp", UUID.randomUUID() + ".part");
+        try (InputStream input = documentService.openContent(document, 0, length)) {
+            Files.copy(input, copy);
+        }
+        return copy;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static String previewType(VendorDocument document) {
+        String type = document.getDetectedMimeType() != null ? document.getDetectedMimeType() : document.getMimeType();
+        if (type == null) {
+            return null;
+        }
+        type = type.toLowerCase();
+        return type.equals(PDF) || IMAGE_TYPES.contains(type) ? type : null;
+    }
+
+    private static void touch(Path file) {
+        try {
+            FileTime now = FileTime.from(Instant.now());
+            if (Files.getLastModifiedTime(file).toInstant().isBefore(now.toInstant().minus(Duration.ofHours(1)))) {
+                Files.setLastModifiedTime(file, now);
+            }
+        } catch (IOException e) {
+            // cache bookkeeping only
+        }
+    }
+
+    private record CachedPreview(Path file, FileTime lastUsed, long size) {
+    }
+}
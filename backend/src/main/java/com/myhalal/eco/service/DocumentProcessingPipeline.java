@@ -0,0 +1,559 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.VendorDocument;
+import com.myhalal.eco.processing.ArchiveTextReader;
+import com.myhalal.eco.processing.DocumentUploadedEvent;
+import com.myhalal.eco.processing.MimeSniffer;
+import com.myhalal.eco.repository.VendorDocumentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Background checks run after an upload commits: sniff -> validate -> extract -> checksum.
+// Each stage has its own bounded pool and queue; a full downstream queue blocks the upstream
+// worker, and a full intake queue leaves the document QUEUED for the recovery sweep, so
+// request threads never wait on processing.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentProcessingPipeline {
+
+    private static final int HASH_BUFFER_SIZE = 256 * 1024;
+
+    private static final List<VendorDocument.ProcessingStatus> UNFINISHED = List.of(
+        VendorDocument.ProcessingStatus.QUEUED,
+        VendorDocument.ProcessingStatus.SNIFFING,
+        VendorDocument.ProcessingStatus.VALIDATING,
+        VendorDocument.ProcessingStatus.EXTRACTING,
+        VendorDocument.ProcessingStatus.CHECKSUMMING
+    );
+
+    private final VendorDocumentRepository documentRepository;
+    private final DocumentBlobService blobService;
+    private final DocumentSearchService searchService;
+    private final VendorDocumentService documentService;
+
+    private final Map<Stage, ThreadPoolExecutor> executors = new EnumMap<>(Stage.class);
+    private final Map<Stage, StageMetrics> metrics = new EnumMap<>(Stage.class);
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+
+    @Value("${documents.storage.root:uploads/vendor-documents}")
+    private String storageRoot;
+
+    @Value("${documents.processing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${documents.processing.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${documents.processing.sniff.workers:2}")
+    private int sniffWorkers;
+
+    @Value("${documents.processing.validate.workers:2}")
+    private int validateWorkers;
+
+    @Value("${documents.processing.extract.workers:4}")
+    private int extractWorkers;
+
+    @Value("${documents.processing.checksum.workers:2}")
+    private int checksumWorkers;
+
+    @Value("${documents.processing.max-size:2147483648}")
+    private long maxSize;
+
+    @Value("${documents.processing.max-pages:2000}")
+    private int maxPages;
+
+    @Value("${documents.processing.max-inspect-bytes:67108864}")
+    private int maxInspectBytes;
+
+    @Value("${documents.processing.max-text-chars:1000000}")
+    private int maxTextChars;
+
+    @Value("${documents.processing.allowed-types:application/pdf,image/png,image/jpeg,image/gif,image/tiff,image/webp,text/plain,application/zip}")
+    private Set<String> allowedTypes;
+
+    @Value("${documents.processing.recovery-delay-seconds:30}")
+    private long recoveryDelaySeconds;
+
+    @PostConstruct
+    void start() {
+        Map<Stage, Integer> workers = Map.of(
+            Stage.SNIFF, sniffWorkers,
+            Stage.VALIDATE, validateWorkers,
+            Stage.EXTRACT, extractWorkers,
+            Stage.CHECKSUM, checksumWorkers
+        );
+        for (Stage stage : Stage.values()) {
+            int threads = Math.max(1, workers.get(stage));
+            RejectedExecutionHandler overflow = stage == Stage.SNIFF
+                ? new ThreadPoolExecutor.AbortPolicy()
+                : DocumentProcessingPipeline::blockUntilQueued;
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("doc-" + stage.name().toLowerCase()), overflow);
+            executors.put(stage, executor);
+            metrics.put(stage, new StageMetrics());
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDocumentUploaded(DocumentUploadedEvent event) {
+        submit(event.documentId());
+    }
+
+    // Never blocks: if intake is full the document stays QUEUED and the recovery sweep picks it up
+    public boolean submit(Long documentId) {
+        if (!enabled || !inFlight.add(documentId)) {
+            return false;
+        }
+        try {
+            dispatch(Stage.SNIFF, new ProcessingJob(documentId));
+            submitted.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(documentId);
+            deferred.increment();
+            return false;
+        }
+    }
+
+    public Map<String, Object> reprocess(Long documentId) {
+        if (!documentRepository.existsById(documentId)) {
+            throw new RuntimeException("Document not found");
+        }
+        documentRepository.updateProcessingStatus(documentId, VendorDocument.ProcessingStatus.QUEUED, null);
+        boolean accepted = submit(documentId);
+        return Map.of("documentId", documentId, "processingStatus", VendorDocument.ProcessingStatus.QUEUED,
+            "accepted", accepted);
+    }
+
+    @Scheduled(fixedDelayString = "${documents.processing.recovery-interval-ms:30000}")
+    public void recoverUnprocessed() {
+        if (!enabled) {
+            return;
+        }
+        int capacity = executors.get(Stage.SNIFF).getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(recoveryDelaySeconds);
+        List<Long> documentIds = documentRepository.findDocumentIdsByProcessingStatus(
+            UNFINISHED, cutoff, PageRequest.of(0, capacity + inFlight.size()));
+
+        int resubmitted = 0;
+        for (Long documentId : documentIds) {
+            if (resubmitted == capacity) {
+                break;
+            }
+            if (!inFlight.contains(documentId) && submit(documentId)) {
+                resubmitted++;
+            }
+        }
+        if (resubmitted > 0) {
+            log.info("Recovered {} documents awaiting processing", resubmitted);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            stages.put(stage.name().toLowerCase(), metrics.get(stage).snapshot(executors.get(stage)));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("inFlight", inFlight.size());
+        result.put("submitted", submitted.sum());
+        result.put("deferred", deferred.sum());
+        result.put("completed", completed.sum());
+        result.put("rejected", rejected.sum());
+        result.put("retried", retried.sum());
+        result.put("stages", stages);
+        return result;
+    }
+
+    private void dispatch(Stage stage, ProcessingJob job) {
+        job.enqueuedAt = System.nanoTime();
+        executors.get(stage).execute(() -> run(stage, job));
+    }
+
+    private void run(Stage stage, ProcessingJob job) {
+        StageMetrics stageMetrics = metrics.get(stage);
+        long started = System.nanoTime();
+        stageMetrics.waitNanos.add(started - job.enqueuedAt);
+        try {
+            documentRepository.updateProcessingStatus(job.documentId, stage.status, null);
+            switch (stage) {
+                case SNIFF -> sniff(job);
+                case VALIDATE -> validate(job);
+                case EXTRACT -> extract(job);
+                case CHECKSUM -> checksum(job);
+            }
+            stageMetrics.record(System.nanoTime() - started, false);
+
+            Stage next = stage.next();
+            if (next != null) {
+                dispatch(next, job);
+                return;
+            }
+            documentRepository.completeProcessing(job.documentId, VendorDocument.ProcessingStatus.COMPLETED,
+                job.mimeType, job.detectedMimeType, job.pageCount, job.extractedText);
+            completed.increment();
+            inFlight.remove(job.documentId);
+            // Failures are queued and retried by the search service itself
+            searchService.index(job.documentId);
+        } catch (DocumentRejectedException e) {
+            stageMetrics.record(System.nanoTime() - started, true);
+            log.info("Document {} rejected at {} stage: {}", job.documentId, stage, e.getMessage());
+            documentService.rejectProcessing(job.documentId, job.vendorId, job.detectedMimeType,
+                truncate(e.getMessage(), 500));
+            rejected.increment();
+            inFlight.remove(job.documentId);
+        } catch (Exception e) {
+            // Transient failures (store unavailable, shutdown) go back to QUEUED for the recovery sweep
+            stageMetrics.record(System.nanoTime() - started, true);
+            log.warn("Processing of document {} failed at {} stage: {}", job.documentId, stage, e.getMessage());
+            try {
+                documentRepository.updateProcessingStatus(job.documentId, VendorDocument.ProcessingStatus.QUEUED,
+                    truncate(stage + ": " + e.getMessage(), 500));
+            } catch (RuntimeException updateFailure) {
+                log.warn("Failed to requeue document {}: {}", job.documentId, updateFailure.getMessage());
+            }
+            retried.increment();
+            inFlight.remove(job.documentId);
+        }
+    }
+
+    private void sniff(ProcessingJob job) throws IOException {
+        VendorDocument document = documentRepository.findById(job.documentId)
+            .orElseThrow(() -> new DocumentRejectedException("Document no longer exists"));
+        job.vendorId = document.getVendor().getVendorId();
+        job.contentHash = document.getContentHash();
+        job.filePath = document.getFilePath();
+        job.declaredSize = document.getFileSize() != null ? document.getFileSize() : -1;
+        job.mimeType = document.getMimeType();
+
+        if (job.declaredSize == 0) {
+            throw new DocumentRejectedException("Document is empty");
+        }
+
+        byte[] header;
+        try (InputStream input = open(job, MimeSniffer.HEADER_SIZE)) {
+            header = input.readNBytes(MimeSniffer.HEADER_SIZE);
+        }
+        String detected = MimeSniffer.detect(header, header.length);
+        if (detected == null) {
+            throw new DocumentRejectedException("Unrecognised file content");
+        }
+        job.detectedMimeType = detected;
+        if (!allowedTypes.contains(detected)) {
+            throw new DocumentRejectedException("Content type " + detected + " is not accepted");
+        }
+        if (!MimeSniffer.isCompatible(job.mimeType, detected)) {
+            throw new DocumentRejectedException(
+                "Declared type " + job.mimeType + " does not match detected content " + detected);
+        }
+        String declared = MimeSniffer.normalise(job.mimeType);
+        if (declared == null || declared.equals(MimeSniffer.OCTET_STREAM)) {
+            job.mimeType = detected;
+        }
+    }
+
+    private void validate(ProcessingJob job) throws IOException {
+        long actualSize = job.contentHash != null
+            ? blobService.size(job.contentHash)
+            : Files.size(Paths.get(job.filePath));
+        if (job.declaredSize >= 0 && actualSize != job.declaredSize) {
+            throw new DocumentRejectedException("Stored size " + actualSize + " does not match recorded size " + job.declaredSize);
+        }
+        if (actualSize > maxSize) {
+            throw new DocumentRejectedException("Document exceeds the maximum size of " + maxSize + " bytes");
+        }
+        job.declaredSize = actualSize;
+
+        switch (job.detectedMimeType) {
+            case "application/pdf" -> {
+                int pages = withPdf(job, PDDocument::getNumberOfPages);
+                if (pages == 0) {
+                    throw new DocumentRejectedException("PDF has no pages");
+                }
+                if (pages > maxPages) {
+                    throw new DocumentRejectedException("PDF has " + pages + " pages, the limit is " + maxPages);
+                }
+                job.pageCount = pages;
+            }
+            case "image/png", "image/jpeg", "image/gif", "image/webp" -> job.pageCount = 1;
+            default -> {
+            }
+        }
+    }
+
+    private void extract(ProcessingJob job) throws IOException {
+        if (!job.detectedMimeType.equals("application/pdf") && !job.detectedMimeType.equals("text/plain")
+                && !job.detectedMimeType.equals("application/zip")) {
+            return;
+        }
+        String text = switch (job.detectedMimeType) {
+            case "application/pdf" -> withPdf(job, this::pdfText);
+            case "application/zip" -> {
+                try (InputStream input = open(job, Long.MAX_VALUE)) {
+                    yield ArchiveTextReader.read(input, maxInspectBytes, maxTextChars);
+                }
+            }
+            default -> plainText(job);
+        };
+        job.extractedText = text == null || text.isBlank() ? null : text.strip();
+    }
+
+    // Page by page so a long document stops being read once the text budget is spent
+    private String pdfText(PDDocument pdf) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        StringBuilder text = new StringBuilder();
+        for (int page = 1; page <= pdf.getNumberOfPages() && text.length() < maxTextChars; page++) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            text.append(stripper.getText(pdf));
+        }
+        return truncate(text.toString(), maxTextChars);
+    }
+
+    private String plainText(ProcessingJob job) throws IOException {
+        char[] text = new char[(int) Math.min(maxTextChars, Math.max(job.declaredSize, 0))];
+        int length = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                open(job, (long) maxTextChars * 4), StandardCharsets.UTF_8))) {
+            int read;
+            while (length < text.length && (read = reader.read(text, length, text.length - length)) != -1) {
+                length += read;
+            }
+        }
+        return new String(text, 0, length);
+    }
+
+    // PDFBox needs random access, so stored content that is not already a plain local file is streamed
+    // to a temporary copy first; parsing reads from the file and caches streams in temp files, so
+    // neither step holds the document in the heap
+    private <T> T withPdf(ProcessingJob job, PdfOperation<T> operation) throws IOException {
+        Path source = job.contentHash == null
+            ? Paths.get(job.filePath)
+            : blobService.localPath(job.contentHash).filter(Files::exists).orElse(null);
+        Path copy = null;
+        try {
+            if (source == null) {
+                Path tempDir = Paths.get(storageRoot, "tmp");
+                Files.createDirectories(tempDir);
+                copy = tempDir.resolve(UUID.randomUUID() + ".pdf");
+                try (InputStream input = open(job, Long.MAX_VALUE)) {
+                    Files.copy(input, copy);
+                }
+                source = copy;
+            }
+            PDDocument pdf;
+            try {
+                pdf = Loader.loadPDF(source.toFile(), IOUtils.createTempFileOnlyStreamCache());
+            } catch (IOException e) {
+                throw new DocumentRejectedException("PDF could not be parsed: " + e.getMessage());
+            }
+            try (pdf) {
+                return operation.apply(pdf);
+            }
+        } finally {
+            if (copy != null) {
+                Files.deleteIfExists(copy);
+            }
+        }
+    }
+
+    private void checksum(ProcessingJob job) throws IOException {
+        if (job.contentHash == null) {
+            return;
+        }
+        MessageDigest digest = DocumentBlobService.sha256();
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream input = open(job, Long.MAX_VALUE)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        if (!HexFormat.of().formatHex(digest.digest()).equals(job.contentHash)) {
+            throw new DocumentRejectedException("Stored content does not match its checksum");
+        }
+    }
+
+    private InputStream open(ProcessingJob job, long length) throws IOException {
+        try {
+            if (job.contentHash == null) {
+                return Files.newInputStream(Paths.get(job.filePath));
+            }
+            if (length == Long.MAX_VALUE) {
+                return blobService.open(job.contentHash);
+            }
+            long available = job.declaredSize >= 0 ? job.declaredSize : blobService.size(job.contentHash);
+            return blobService.openRange(job.contentHash, 0, Math.min(length, available));
+        } catch (NoSuchFileException e) {
+            throw new DocumentRejectedException("Stored content is missing");
+        }
+    }
+
+    private static void blockUntilQueued(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Document processing is shutting down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private enum Stage {
+        SNIFF(VendorDocument.ProcessingStatus.SNIFFING),
+        VALIDATE(VendorDocument.ProcessingStatus.VALIDATING),
+        EXTRACT(VendorDocument.ProcessingStatus.EXTRACTING),
+        CHECKSUM(VendorDocument.ProcessingStatus.CHECKSUMMING);
+
+        private final VendorDocument.ProcessingStatus status;
+
+        Stage(VendorDocument.ProcessingStatus status) {
+            this.status = status;
+        }
+
+        Stage next() {
+            int next = ordinal() + 1;
+            return next < values().length ? values()[next] : null;
+        }
+    }
+
+    // Mutable state handed from stage to stage; only one worker owns it at a time
+    private static class ProcessingJob {
+        private final Long documentId;
+        private Long vendorId;
+        private String contentHash;
+        private String filePath;
+        private long declaredSize;
+        private String mimeType;
+        private String detectedMimeType;
+        private Integer pageCount;
+        private String extractedText;
+        private long enqueuedAt;
+
+        ProcessingJob(Long documentId) {
+            this.documentId = documentId;
+        }
+    }
+
+    private static class StageMetrics {
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos, boolean failure) {
+            processed.increment();
+            latencyNanos.add(nanos);
+            maxLatencyNanos.accumulate(nanos);
+            if (failure) {
+                failed.increment();
+            }
+        }
+
+        Map<String, Object> snapshot(ThreadPoolExecutor executor) {
+            long count = processed.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("workers", executor.getMaximumPoolSize());
+            snapshot.put("active", executor.getActiveCount());
+            snapshot.put("queued", executor.getQueue().size());
+            snapshot.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+            snapshot.put("processed", count);
+            snapshot.put("failed", failed.sum());
+            snapshot.put("avgLatencyMs", count == 0 ? 0.0 : latencyNanos.sum() / 1_000_000.0 / count);
+            snapshot.put("maxLatencyMs", maxLatencyNanos.get() / 1_000_000.0);
+            snapshot.put("avgQueueWaitMs", count == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / count);
+            return snapshot;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PdfOperation<T> {
+        T apply(PDDocument pdf) throws IOException;
+    }
+
+    private static class DocumentRejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        DocumentRejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.dto.VendorDocumentSummary;
+import com.myhalal.eco.entity.VendorDocument;
+import com.myhalal.eco.index.SearchSource;
+import com.myhalal.eco.repository.VendorDocumentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.MMapDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Lucene index over extracted document text. Segments live in a memory-mapped directory and are
+// merged by the tiered merge policy; searchers are refreshed in the background for near-real-time
+// results. Hits are re-read from the database, so deleted or changed documents never leak out.
+// Each rebuild fills a new generation directory and is swapped in whole, so searches keep using the
+// previous generation until the new one is complete.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentSearchService {
+
+    private static final String ID = "id";
+    private static final String VENDOR_ID = "vendorId";
+    private static final String DOCUMENT_TYPE = "documentType";
+    private static final String DOCUMENT_NAME = "documentName";
+    private static final String CONTENT = "content";
+    private static final String CONTENT_HASH = "contentHash";
+
+    // Offsets in the postings let the highlighter build snippets without re-analysing the text
+    private static final FieldType CONTENT_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        CONTENT_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        CONTENT_TYPE.freeze();
+    }
+
+    private final VendorDocumentRepository documentRepository;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final LongAdder indexedDocuments = new LongAdder();
+    private final LongAdder indexedChars = new LongAdder();
+    private final LongAdder indexNanos = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final LongAccumulator maxQueryNanos = new LongAccumulator(Math::max, 0);
+    private volatile Map<String, Object> lastRebuild = Map.of();
+
+    // Readers and writers of the current generation share the read lock; only the swap takes the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private SearchIndex current;
+
+    // Documents touched while a rebuild scans the database, replayed into the new generation before the swap
+    private Set<Long> rebuildJournal;
+
+    // Documents whose index update failed or whose hits turned out stale; retried in the background
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    @Value("${documents.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${documents.search.index-path:uploads/search-index}")
+    private String indexPath;
+
+    @Value("${documents.search.ram-buffer-mb:32}")
+    private double ramBufferMb;
+
+    @Value("${documents.search.segments-per-tier:10}")
+    private double segmentsPerTier;
+
+    @Value("${documents.search.rebuild-batch-size:100}")
+    private int rebuildBatchSize;
+
+    @Value("${documents.search.max-results:100}")
+    private int maxResults;
+
+    @Value("${documents.search.snippet-passages:3}")
+    private int snippetPassages;
+
+    @Value("${documents.processing.max-text-chars:1000000}")
+    private int maxTextChars;
+
+    @PostConstruct
+    void open() throws IOException {
+        Path root = Paths.get(indexPath);
+        Files.createDirectories(root);
+        long generation = 0;
+        List<Path> generations = new ArrayList<>();
+        try (var entries = Files.list(root)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                if (Files.isDirectory(entry) && entry.getFileName().toString().matches("\\d+")) {
+                    generations.add(entry);
+                } else if (Files.isRegularFile(entry)) {
+                    // Segments from before generations were kept in subdirectories; reconcile rebuilds them
+                    Files.delete(entry);
+                }
+            }
+        }
+        for (Path candidate : generations) {
+            long number = Long.parseLong(candidate.getFileName().toString());
+            try (MMapDirectory dir = new MMapDirectory(candidate)) {
+                if (number > generation && DirectoryReader.indexExists(dir)) {
+                    generation = number;
+                }
+            }
+        }
+        // Anything else is an older generation or a rebuild that never finished
+        for (Path candidate : generations) {
+            if (Long.parseLong(candidate.getFileName().toString()) != generation) {
+                FileSystemUtils.deleteRecursively(candidate);
+            }
+        }
+        current = openIndex(Math.max(generation, 1));
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        swapLock.writeLock().lock();
+        try {
+            current.close();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    // A persistent index can drift from the database (restored backup, fresh schema), so it is
+    // rebuilt whenever the document counts disagree
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        long expected = documentRepository.countByProcessingStatus(VendorDocument.ProcessingStatus.COMPLETED);
+        long indexed;
+        Lock lock = readLock();
+        try {
+            indexed = current.writer().getDocStats().numDocs;
+        } finally {
+            lock.unlock();
+        }
+        if (expected != indexed) {
+            log.info("Search index has {} documents but {} are processed; rebuilding", indexed, expected);
+            rebuildAsync();
+        }
+    }
+
+    public boolean rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException | IOException e) {
+                log.error("Search index rebuild failed: {}", e.getMessage());
+            } finally {
+                rebuilding.set(false);
+            }
+        }, "doc-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    // Called by the processing pipeline once a document's extracted text is committed
+    public void index(Long documentId) {
+        if (enabled) {
+            update(documentId);
+        }
+    }
+
+    public void remove(Long documentId) {
+        if (enabled) {
+            TransactionCallbacks.afterCommit(() -> update(documentId));
+        }
+    }
+
+    // Failed updates are retried until they stick rather than waiting for the next full rebuild
+    @Scheduled(fixedDelayString = "${documents.search.retry-interval-ms:30000}")
+    public void retryPending() {
+        for (Long documentId : List.copyOf(pending)) {
+            pending.remove(documentId);
+            update(documentId);
+        }
+    }
+
+    private void update(Long documentId) {
+        Lock lock = readLock();
+        try {
+            journal(documentId);
+            sync(current, documentId);
+        } catch (IOException | RuntimeException e) {
+            pending.add(documentId);
+            log.warn("Failed to update document {} in search index, will retry: {}", documentId, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Brings one document in line with the database: indexed when processed, absent otherwise
+    private void sync(SearchIndex index, Long documentId) throws IOException {
+        SearchSource source = documentRepository
+            .findSearchSource(documentId, VendorDocument.ProcessingStatus.COMPLETED)
+            .orElse(null);
+        if (source == null) {
+            index.writer().deleteDocuments(new Term(ID, documentId.toString()));
+        } else {
+            write(index, source);
+        }
+    }
+
+    public Map<String, Object> search(String text, Long vendorId, String documentType, int limit) throws IOException {
+        long started = System.nanoTime();
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, Map.of(CONTENT, 1.0f, DOCUMENT_NAME, 2.0f));
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query textQuery = parser.parse(text);
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST);
+        if (vendorId != null) {
+            builder.add(LongPoint.newExactQuery(VENDOR_ID, vendorId), BooleanClause.Occur.FILTER);
+        }
+        if (documentType != null && !documentType.isBlank()) {
+            builder.add(new TermQuery(new Term(DOCUMENT_TYPE, documentType)), BooleanClause.Occur.FILTER);
+        }
+        Query query = builder.build();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        long totalHits;
+        Lock lock = readLock();
+        try {
+            SearcherManager searcherManager = current.searcherManager();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, Math.max(1, Math.min(limit, maxResults)));
+                String[] snippets = UnifiedHighlighter.builder(searcher, analyzer)
+                    .withMaxLength(maxTextChars)
+                    .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", " … ", true))
+                    .build()
+                    .highlight(CONTENT, textQuery, top, snippetPassages);
+
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(top.scoreDocs.length);
+                List<String> hashes = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc hit : top.scoreDocs) {
+                    Document stored = storedFields.document(hit.doc);
+                    ids.add(Long.valueOf(stored.get(ID)));
+                    hashes.add(stored.get(CONTENT_HASH));
+                }
+
+                Map<Long, VendorDocumentSummary> summaries = ids.isEmpty() ? Map.of()
+                    : documentRepository.findSummariesByIds(ids).stream()
+                        .collect(Collectors.toMap(VendorDocumentSummary::documentId, Function.identity()));
+                // Stale hits are left out of the count and queued so the index catches up with the row
+                int stale = 0;
+                for (int i = 0; i < ids.size(); i++) {
+                    VendorDocumentSummary summary = summaries.get(ids.get(i));
+                    if (summary == null || !Objects.equals(summary.contentHash(), hashes.get(i))) {
+                        pending.add(ids.get(i));
+                        stale++;
+                        continue;
+                    }
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("document", summary);
+                    result.put("score", top.scoreDocs[i].score);
+                    result.put("snippet", snippets[i]);
+                    results.add(result);
+                }
+                totalHits = top.totalHits.value - stale;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        long elapsed = System.nanoTime() - started;
+        queries.increment();
+        queryNanos.add(elapsed);
+        maxQueryNanos.accumulate(elapsed);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("query", text);
+        response.put("totalHits", totalHits);
+        response.put("tookMillis", elapsed / 1_000_000.0);
+        response.put("results", results);
+        return response;
+    }
+
+    // Index build rate and query latency, so changes to analysis or merge settings can be compared
+    public Map<String, Object> getMetrics() throws IOException {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        Lock lock = readLock();
+        try {
+            SearchIndex index = current;
+            IndexSearcher searcher = index.searcherManager().acquire();
+            try {
+                metrics.put("documents", searcher.getIndexReader().numDocs());
+                metrics.put("segments", searcher.getIndexReader().leaves().size());
+            } finally {
+                index.searcherManager().release(searcher);
+            }
+            long sizeOnDisk = 0;
+            for (String file : index.directory().listAll()) {
+                try {
+                    sizeOnDisk += index.directory().fileLength(file);
+                } catch (IOException e) {
+                    // merged away while listing
+                }
+            }
+            metrics.put("generation", index.generation());
+            metrics.put("sizeOnDiskBytes", sizeOnDisk);
+        } finally {
+            lock.unlock();
+        }
+        metrics.put("rebuilding", rebuilding.get());
+        metrics.put("pendingUpdates", pending.size());
+
+        long docs = indexedDocuments.sum();
+        double indexSeconds = indexNanos.sum() / 1e9;
+        metrics.put("indexedDocuments", docs);
+        metrics.put("indexDocsPerSecond", indexSeconds > 0 ? docs / indexSeconds : 0.0);
+        metrics.put("indexMBps", indexSeconds > 0 ? indexedChars.sum() / 1_048_576.0 / indexSeconds : 0.0);
+        metrics.put("lastRebuild", lastRebuild);
+
+        long count = queries.sum();
+        metrics.put("queries", count);
+        metrics.put("avgQueryMillis", count > 0 ? queryNanos.sum() / 1e6 / count : 0.0);
+        metrics.put("maxQueryMillis", maxQueryNanos.get() / 1e6);
+        return metrics;
+    }
+
+    @Scheduled(fixedDelayString = "${documents.search.refresh-interval-ms:1000}")
+    public void refresh() throws IOException {
+        Lock lock = readLock();
+        try {
+            current.searcherManager().maybeRefresh();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${documents.search.commit-interval-ms:30000}")
+    public void commit() throws IOException {
+        Lock lock = readLock();
+        try {
+            if (current.writer().hasUncommittedChanges()) {
+                current.writer().commit();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebuild() throws IOException {
+        long started = System.nanoTime();
+        synchronized (this) {
+            rebuildJournal = ConcurrentHashMap.newKeySet();
+        }
+        SearchIndex rebuilt;
+        Lock lock = readLock();
+        try {
+            rebuilt = openIndex(current.generation() + 1);
+        } finally {
+            lock.unlock();
+        }
+
+        SearchIndex previous;
+        int count = 0;
+        try {
+            long afterId = 0;
+            List<SearchSource> batch;
+            do {
+                batch = documentRepository.findSearchSources(VendorDocument.ProcessingStatus.COMPLETED, afterId,
+                    PageRequest.of(0, rebuildBatchSize));
+                for (SearchSource source : batch) {
+                    write(rebuilt, source);
+                    afterId = source.documentId();
+                    count++;
+                }
+            } while (batch.size() == rebuildBatchSize);
+
+            // Most of the journal is replayed while searches continue; the remainder under the swap lock
+            for (Long documentId : drainJournal(false)) {
+                sync(rebuilt, documentId);
+            }
+            swapLock.writeLock().lock();
+            try {
+                for (Long documentId : drainJournal(true)) {
+                    sync(rebuilt, documentId);
+                }
+                rebuilt.writer().commit();
+                rebuilt.searcherManager().maybeRefresh();
+                previous = current;
+                current = rebuilt;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            drainJournal(true);
+            rebuilt.discard();
+            throw e;
+        }
+        previous.close();
+        FileSystemUtils.deleteRecursively(previous.path());
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("documents", count);
+        stats.put("generation", rebuilt.generation());
+        stats.put("seconds", seconds);
+        stats.put("docsPerSecond", seconds > 0 ? count / seconds : 0.0);
+        lastRebuild = stats;
+        log.info("Rebuilt search index generation {} with {} documents in {} ms", rebuilt.generation(), count,
+            Math.round(seconds * 1000));
+    }
+
+    private synchronized void journal(Long documentId) {
+        if (rebuildJournal != null) {
+            rebuildJournal.add(documentId);
+        }
+    }
+
+    private synchronized Set<Long> drainJournal(boolean finish) {
+        Set<Long> drained = rebuildJournal != null ? rebuildJournal : Set.of();
+        rebuildJournal = finish ? null : ConcurrentHashMap.newKeySet();
+        return drained;
+    }
+
+    private Lock readLock() {
+        Lock lock = swapLock.readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private SearchIndex openIndex(long generation) throws IOException {
+        Path path = Paths.get(indexPath, Long.toString(generation));
+        Files.createDirectories(path);
+        MMapDirectory directory = new MMapDirectory(path);
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(segmentsPerTier);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+            .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+            .setRAMBufferSizeMB(ramBufferMb)
+            .setMergePolicy(mergePolicy)
+            .setCommitOnClose(true);
+        IndexWriter writer = new IndexWriter(directory, config);
+        return new SearchIndex(generation, path, directory, writer, new SearcherManager(writer, null));
+    }
+
+    private void write(SearchIndex index, SearchSource source) throws IOException {
+        long started = System.nanoTime();
+        Document document = new Document();
+        document.add(new StringField(ID, source.documentId().toString(), Field.Store.YES));
+        document.add(new LongPoint(VENDOR_ID, source.vendorId()));
+        if (source.documentType() != null) {
+            document.add(new StringField(DOCUMENT_TYPE, source.documentType(), Field.Store.NO));
+        }
+        if (source.documentName() != null) {
+            document.add(new TextField(DOCUMENT_NAME, source.documentName(), Field.Store.NO));
+        }
+        if (source.contentHash() != null) {
+            document.add(new StoredField(CONTENT_HASH, source.contentHash()));
+        }
+        if (source.text() != null) {
+            document.add(new Field(CONTENT, source.text(), CONTENT_TYPE));
+        }
+        index.writer().updateDocument(new Term(ID, source.documentId().toString()), document);
+
+        indexNanos.add(System.nanoTime() - started);
+        indexedDocuments.increment();
+        indexedChars.add(source.text() != null ? source.text().length() : 0);
+    }
+
+    private record SearchIndex(long generation, Path path, MMapDirectory directory, IndexWriter writer,
+                               SearcherManager searcherManager) {
+
+        void close() throws IOException {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+
+        // A rebuild that failed leaves no commit behind, so the directory can simply be dropped
+        void discard() throws IOException {
+            searcherManager.close();
+            writer.rollback();
+            directory.close();
+            FileSystemUtils.deleteRecursively(path);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.dto.VendorDocumentSummary;
+import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.entity.VendorNotification;
+import com.myhalal.eco.entity.VendorVerification;
+import com.myhalal.eco.index.ExpiryEntry;
+import com.myhalal.eco.index.ExpiryIndex;
+import com.myhalal.eco.repository.VendorDocumentRepository;
+import com.myhalal.eco.repository.VendorVerificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// In-memory expiry indexes for documents and verifications. Rebuilt from the database at startup
+// and kept current from the services after each commit; the reminder job only walks the due range.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExpiryTrackingService {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("d MMM yyyy");
+
+    private final VendorDocumentRepository documentRepository;
+    private final VendorVerificationRepository verificationRepository;
+    private final VendorNotificationService notificationService;
+
+    private volatile ExpiryIndexes indexes = new ExpiryIndexes(new ExpiryIndex(), new ExpiryIndex());
+
+    // Updates committed while a rebuild is reading the database, replayed onto the new indexes before they
+    // replace the live ones; guarded by the service monitor
+    private List<Consumer<ExpiryIndexes>> rebuildJournal;
+
+    // Reminders already sent or found in the database, keyed by kind/type/id/expiry
+    private final Map<String, LocalDateTime> notified = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    @Value("${expiry.reminders.enabled:true}")
+    private boolean remindersEnabled;
+
+    @Value("${expiry.reminders.lead-days:30}")
+    private int leadDays;
+
+    @Value("${expiry.reminders.urgent-days:7}")
+    private int urgentDays;
+
+    @Value("${expiry.reminders.catch-up-days:7}")
+    private int catchUpDays;
+
+    @Value("${expiry.reminders.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            rebuildJournal = new ArrayList<>();
+        }
+        ExpiryIndexes rebuilt = new ExpiryIndexes(new ExpiryIndex(), new ExpiryIndex());
+        try {
+            for (ExpiryEntry entry : documentRepository.findExpiryEntries()) {
+                rebuilt.documents().put(entry.id(), entry.vendorId(), entry.expiryDate());
+            }
+            for (ExpiryEntry entry : verificationRepository.findExpiryEntries()) {
+                rebuilt.verifications().put(entry.id(), entry.vendorId(), entry.expiryDate());
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                rebuildJournal = null;
+            }
+            throw e;
+        }
+
+        // Readers keep using the old indexes until the new pair is complete
+        synchronized (this) {
+            rebuildJournal.forEach(update -> update.accept(rebuilt));
+            rebuildJournal = null;
+            indexes = rebuilt;
+        }
+        loaded = true;
+        log.info("Expiry index loaded: {} documents, {} verifications", rebuilt.documents().size(),
+            rebuilt.verifications().size());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void trackDocument(Long documentId, Long vendorId, LocalDateTime expiryDate) {
+        TransactionCallbacks.afterCommit(() -> apply(indexes -> indexes.documents().put(documentId, vendorId, expiryDate)));
+    }
+
+    public void untrackDocument(Long documentId) {
+        TransactionCallbacks.afterCommit(() -> apply(indexes -> indexes.documents().remove(documentId)));
+    }
+
+    public void trackVerification(Long verificationId, Long vendorId, LocalDateTime expiryDate) {
+        TransactionCallbacks.afterCommit(() -> apply(indexes -> indexes.verifications().put(verificationId, vendorId, expiryDate)));
+    }
+
+    private synchronized void apply(Consumer<ExpiryIndexes> update) {
+        update.accept(indexes);
+        if (rebuildJournal != null) {
+            rebuildJournal.add(update);
+        }
+    }
+
+    public List<ExpiryEntry> getExpiringDocuments(LocalDateTime from, LocalDateTime to) {
+        return indexes.documents().range(from, to);
+    }
+
+    public List<ExpiryEntry> getExpiredDocuments(LocalDateTime asOf) {
+        return indexes.documents().range(null, asOf);
+    }
+
+    public List<ExpiryEntry> getExpiringVerifications(LocalDateTime from, LocalDateTime to) {
+        return indexes.verifications().range(from, to);
+    }
+
+    @Scheduled(cron = "${expiry.reminders.cron:0 0 * * * *}")
+    public void sendExpiryReminders() {
+        if (!remindersEnabled || !loaded) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime catchUpStart = now.minusDays(catchUpDays);
+        LocalDateTime windowEnd = now.plusDays(leadDays);
+        notified.values().removeIf(expiry -> expiry.isBefore(catchUpStart));
+
+        int sent = 0;
+        ExpiryIndexes current = indexes;
+        for (Kind kind : Kind.values()) {
+            ExpiryIndex index = kind == Kind.DOCUMENT ? current.documents() : current.verifications();
+            sent += remind(kind, kind.expiredType, index.range(catchUpStart, now), now);
+            sent += remind(kind, kind.expiringType, index.range(now, windowEnd), now);
+        }
+        if (sent > 0) {
+            log.info("Sent {} expiry notifications", sent);
+        }
+    }
+
+    private int remind(Kind kind, String type, List<ExpiryEntry> due, LocalDateTime now) {
+        List<ExpiryEntry> pending = due.stream()
+            .filter(entry -> !notified.containsKey(key(kind, type, entry)))
+            .toList();
+
+        int sent = 0;
+        for (int start = 0; start < pending.size(); start += batchSize) {
+            List<ExpiryEntry> batch = pending.subList(start, Math.min(start + batchSize, pending.size()));
+            Set<Long> ids = batch.stream().map(ExpiryEntry::id).collect(Collectors.toSet());
+
+            // Restarts lose the in-memory set, so the database has the final say on duplicates
+            Set<String> existing = new HashSet<>();
+            for (Object[] row : notificationService.findRelatedDeadlines(type, kind.entityType, ids)) {
+                existing.add(row[0] + "|" + ((LocalDateTime) row[1]).truncatedTo(ChronoUnit.SECONDS));
+            }
+            Map<Long, String> descriptions = describe(kind, ids);
+
+            List<VendorNotification> notifications = new ArrayList<>(batch.size());
+            for (ExpiryEntry entry : batch) {
+                String deadline = entry.id() + "|" + entry.expiryDate().truncatedTo(ChronoUnit.SECONDS);
+                if (existing.contains(deadline) || !descriptions.containsKey(entry.id())) {
+                    continue;
+                }
+                notifications.add(buildNotification(kind, type, entry, descriptions.get(entry.id()), now));
+            }
+
+            if (!notifications.isEmpty()) {
+                notificationService.createNotifications(notifications);
+                sent += notifications.size();
+            }
+            for (ExpiryEntry entry : batch) {
+                notified.put(key(kind, type, entry), entry.expiryDate());
+            }
+        }
+        return sent;
+    }
+
+    private Map<Long, String> describe(Kind kind, Set<Long> ids) {
+        if (kind == Kind.DOCUMENT) {
+            return documentRepository.findSummariesByIds(ids).stream().collect(Collectors.toMap(
+                VendorDocumentSummary::documentId,
+                document -> document.documentType() + " document '" + document.documentName() + "'"));
+        }
+        return verificationRepository.findAllById(ids).stream().collect(Collectors.toMap(
+            VendorVerification::getVerificationId,
+            verification -> verification.getVerificationType() + " verification"));
+    }
+
+    private VendorNotification buildNotification(Kind kind, String type, ExpiryEntry entry, String subject,
+                                                 LocalDateTime now) {
+        boolean expired = type.equals(kind.expiredType);
+        String date = entry.expiryDate().format(DATE_FORMAT);
+
+        VendorNotification notification = new VendorNotification();
+        notification.setVendor(Vendor.builder().vendorId(entry.vendorId()).build());
+        notification.setType(type);
+        notification.setTitle(expired ? kind.label + " expired" : kind.label + " expiring soon");
+        notification.setMessage(expired
+            ? "Your " + subject + " expired on " + date + "."
+            : "Your " + subject + " expires on " + date + ".");
+        notification.setPriority(expired || entry.expiryDate().isBefore(now.plusDays(urgentDays))
+            ? VendorNotification.Priority.HIGH
+            : VendorNotification.Priority.NORMAL);
+        notification.setActionRequired(true);
+        notification.setActionDeadline(entry.expiryDate());
+        notification.setRelatedEntityType(kind.entityType);
+        notification.setRelatedEntityId(entry.id());
+        notification.setCreatedBy("system");
+        return notification;
+    }
+
+    private static String key(Kind kind, String type, ExpiryEntry entry) {
+        return kind.name() + ":" + type + ":" + entry.id() + ":" + entry.expiryDate();
+    }
+
+    private record ExpiryIndexes(ExpiryIndex documents, ExpiryIndex verifications) {
+    }
+
+    private enum Kind {
+        DOCUMENT("VENDOR_DOCUMENT", "DOCUMENT_EXPIRING", "DOCUMENT_EXPIRED", "Document"),
+        VERIFICATION("VENDOR_VERIFICATION", "VERIFICATION_EXPIRING", "VERIFICATION_EXPIRED", "Verification");
+
+        private final String entityType;
+        private final String expiringType;
+        private final String expiredType;
+        private final String label;
+
+        Kind(String entityType, String expiringType, String expiredType, String label) {
+            this.entityType = entityType;
+            this.expiringType = expiringType;
+            this.expiredType = expiredType;
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.SweepCheckpoint;
+import com.myhalal.eco.entity.VendorVerification;
+import com.myhalal.eco.repository.SweepCheckpointRepository;
+import com.myhalal.eco.repository.VendorRepository;
+import com.myhalal.eco.repository.VendorVerificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Opens a re-verification for every vendor whose last verification is older than the interval.
+// Candidates are read as keyset pages of IDs, never as a full entity list; each page is split
+// across a small worker pool and the checkpoint only advances once the whole page is done, so
+// a restart resumes at the first unfinished page. Vendors that already have an open
+// re-verification are skipped, which makes replaying a partly processed page harmless.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReverificationService {
+
+    private static final String SWEEP_NAME = "vendor-reverification";
+
+    // A page's IDs go into one IN list when checking for open re-verifications
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final VendorRepository vendorRepository;
+    private final VendorVerificationRepository verificationRepository;
+    private final SweepCheckpointRepository checkpointRepository;
+    private final VendorVerificationService verificationService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ThreadPoolExecutor executor;
+
+    @Value("${verification.reverification.enabled:true}")
+    private boolean enabled;
+
+    @Value("${verification.reverification.interval-days:30}")
+    private int intervalDays;
+
+    @Value("${verification.reverification.verification-type:REVERIFICATION}")
+    private String verificationType;
+
+    @Value("${verification.reverification.page-size:500}")
+    private int pageSize;
+
+    @Value("${verification.reverification.workers:4}")
+    private int workers;
+
+    @PostConstruct
+    void start() {
+        pageSize = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        int threads = Math.max(1, workers);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads), namedThreads("reverify"), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Scheduled(cron = "${verification.reverification.cron:0 0 3 * * *}")
+    public void sweep() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runSweep();
+        } catch (RuntimeException e) {
+            log.error("Re-verification sweep stopped, will resume from the last checkpoint: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("active", running.get());
+        checkpointRepository.findById(SWEEP_NAME).ifPresent(checkpoint -> {
+            status.put("lastId", checkpoint.getLastId());
+            status.put("cutoffDate", checkpoint.getCutoffDate());
+            status.put("startedDate", checkpoint.getStartedDate());
+            status.put("completedDate", checkpoint.getCompletedDate());
+            status.put("processed", checkpoint.getProcessedCount());
+            status.put("initiated", checkpoint.getInitiatedCount());
+        });
+        return status;
+    }
+
+    private void runSweep() {
+        SweepCheckpoint checkpoint = checkpointRepository.findById(SWEEP_NAME).orElse(null);
+        if (checkpoint == null || !checkpoint.isRunning()) {
+            LocalDateTime now = LocalDateTime.now();
+            checkpoint = checkpoint != null ? checkpoint : SweepCheckpoint.builder().sweepName(SWEEP_NAME).build();
+            checkpoint.setLastId(0L);
+            checkpoint.setCutoffDate(now.minusDays(intervalDays));
+            checkpoint.setStartedDate(now);
+            checkpoint.setCompletedDate(null);
+            checkpoint.setProcessedCount(0L);
+            checkpoint.setInitiatedCount(0L);
+            checkpoint = checkpointRepository.save(checkpoint);
+            log.info("Starting re-verification sweep for vendors verified before {}", checkpoint.getCutoffDate());
+        } else {
+            log.info("Resuming re-verification sweep after vendor ID {}", checkpoint.getLastId());
+        }
+
+        List<Long> page;
+        do {
+            page = vendorRepository.findReverificationCandidateIds(checkpoint.getCutoffDate(), checkpoint.getLastId(),
+                PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            int initiated = processPage(page);
+            checkpoint.setLastId(page.get(page.size() - 1));
+            checkpoint.setProcessedCount(checkpoint.getProcessedCount() + page.size());
+            checkpoint.setInitiatedCount(checkpoint.getInitiatedCount() + initiated);
+            checkpoint = checkpointRepository.save(checkpoint);
+        } while (page.size() == pageSize && !executor.isShutdown());
+
+        if (!executor.isShutdown()) {
+            checkpoint.setCompletedDate(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            log.info("Re-verification sweep finished: {} vendors checked, {} re-verifications opened",
+                checkpoint.getProcessedCount(), checkpoint.getInitiatedCount());
+        }
+    }
+
+    private int processPage(List<Long> vendorIds) {
+        Set<Long> open = new HashSet<>(verificationRepository.findVendorIdsWithVerification(vendorIds,
+            verificationType, VendorVerification.OPEN_STATUSES));
+        List<Long> due = vendorIds.stream().filter(id -> !open.contains(id)).toList();
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        int chunkSize = Math.max(1, (due.size() + executor.getMaximumPoolSize() - 1) / executor.getMaximumPoolSize());
+        List<Future<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < due.size(); start += chunkSize) {
+            List<Long> chunk = due.subList(start, Math.min(start + chunkSize, due.size()));
+            chunks.add(executor.submit(() -> initiateAll(chunk)));
+        }
+        int initiated = 0;
+        try {
+            for (Future<Integer> chunk : chunks) {
+                initiated += chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for re-verification chunk", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Re-verification chunk failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return initiated;
+    }
+
+    // One vendor failing (deleted meanwhile, say) must not hold back the rest of the page
+    private int initiateAll(List<Long> vendorIds) {
+        int initiated = 0;
+        for (Long vendorId : vendorIds) {
+            try {
+                verificationService.initiateVerification(vendorId, verificationType, "system");
+                initiated++;
+            } catch (RuntimeException e) {
+                log.warn("Could not open re-verification for vendor {}: {}", vendorId, e.getMessage());
+            }
+        }
+        return initiated;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,183 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.VendorVerification;
+import com.myhalal.eco.entity.VerificationReviewer;
+import com.myhalal.eco.index.QueuedVerification;
+import com.myhalal.eco.index.ReviewerPool;
+import com.myhalal.eco.repository.VendorVerificationRepository;
+import com.myhalal.eco.repository.VerificationReviewerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Routes new verifications to the least loaded reviewer qualified for their type. Slots are
+// reserved in the in-memory pool before the row is written and handed back if the transaction
+// rolls back; verifications that find every reviewer full wait in the SLA queue and are drained
+// onto reviewers as capacity frees up.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewerAssignmentService {
+
+    private final VerificationReviewerRepository reviewerRepository;
+    private final VendorVerificationRepository verificationRepository;
+    private final VerificationQueueService verificationQueue;
+    private final VerificationMetricsService verificationMetrics;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReviewerPool pool = new ReviewerPool();
+    private final LongAdder drained = new LongAdder();
+
+    private volatile boolean loaded;
+
+    @Value("${verification.auto-assign.enabled:true}")
+    private boolean enabled;
+
+    @Value("${verification.auto-assign.default-capacity:10}")
+    private int defaultCapacity;
+
+    @Value("${verification.auto-assign.drain-batch:100}")
+    private int drainBatch;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        List<VerificationReviewer> reviewers = reviewerRepository.findByActiveTrue();
+        reviewers.forEach(this::register);
+        pool.reset(inFlightCounts());
+        loaded = true;
+        log.info("Reviewer pool loaded with {} active reviewers", reviewers.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled && loaded;
+    }
+
+    @Transactional(readOnly = true)
+    public List<VerificationReviewer> getReviewers() {
+        return reviewerRepository.findAll();
+    }
+
+    @Transactional
+    public VerificationReviewer saveReviewer(String username, VerificationReviewer details) {
+        log.info("Saving verification reviewer: {}", username);
+
+        VerificationReviewer reviewer = reviewerRepository.findById(username).orElseGet(VerificationReviewer::new);
+        reviewer.setUsername(username);
+        reviewer.setVerificationTypes(details.getVerificationTypes());
+        reviewer.setCapacity(details.getCapacity() != null ? details.getCapacity() : defaultCapacity);
+        reviewer.setActive(details.getActive() == null || details.getActive());
+
+        VerificationReviewer saved = reviewerRepository.save(reviewer);
+        TransactionCallbacks.afterCommit(() -> {
+            if (Boolean.TRUE.equals(saved.getActive())) {
+                register(saved);
+            } else {
+                pool.unregister(saved.getUsername());
+            }
+        });
+        return saved;
+    }
+
+    @Transactional
+    public void deactivateReviewer(String username) {
+        log.info("Deactivating verification reviewer: {}", username);
+
+        VerificationReviewer reviewer = reviewerRepository.findById(username)
+            .orElseThrow(() -> new RuntimeException("Reviewer not found"));
+        reviewer.setActive(false);
+        reviewerRepository.save(reviewer);
+        TransactionCallbacks.afterCommit(() -> pool.unregister(username));
+    }
+
+    // Reserves a reviewer for a new verification; the slot is returned if the caller rolls back
+    public String reserve(String verificationType) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String reviewer = pool.acquire(verificationType);
+        if (reviewer != null) {
+            TransactionCallbacks.onRollback(() -> pool.release(reviewer));
+        }
+        return reviewer;
+    }
+
+    // Manual assignments and claims count against the reviewer's load once committed
+    public void assigned(String reviewer) {
+        TransactionCallbacks.afterCommit(() -> pool.forceAcquire(reviewer));
+    }
+
+    public void released(String reviewer) {
+        TransactionCallbacks.afterCommit(() -> pool.release(reviewer));
+    }
+
+    // Hands queued verifications to reviewers with free capacity, most urgent first
+    @Scheduled(fixedDelayString = "${verification.auto-assign.drain-interval-ms:15000}")
+    public void drainQueue() {
+        if (!isEnabled() || !verificationQueue.isLoaded()) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int assigned = 0;
+        for (QueuedVerification entry : verificationQueue.peek(drainBatch)) {
+            String reviewer = pool.acquire(entry.verificationType());
+            if (reviewer == null) {
+                continue;
+            }
+            LocalDateTime assignedDate = LocalDateTime.now();
+            Integer claimed = transaction.execute(status -> verificationRepository.claim(entry.id(), reviewer,
+                assignedDate, VendorVerification.VerificationStatus.PENDING,
+                VendorVerification.VerificationStatus.IN_PROGRESS));
+            if (claimed != null && claimed == 1) {
+                verificationQueue.remove(entry.id());
+                verificationMetrics.assigned(entry.verificationType(), reviewer, entry.initiatedDate(), assignedDate);
+                assigned++;
+            } else {
+                pool.release(reviewer);
+            }
+        }
+        if (assigned > 0) {
+            drained.add(assigned);
+            log.info("Assigned {} queued verifications to reviewers", assigned);
+        }
+    }
+
+    public List<Map<String, Object>> getReviewerLoads() {
+        return pool.loads();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(pool.getMetrics());
+        metrics.put("enabled", isEnabled());
+        metrics.put("drainedFromQueue", drained.sum());
+        metrics.put("queued", verificationQueue.size());
+        return metrics;
+    }
+
+    private void register(VerificationReviewer reviewer) {
+        int capacity = reviewer.getCapacity() != null ? reviewer.getCapacity() : defaultCapacity;
+        pool.register(reviewer.getUsername(), reviewer.getSkills(), capacity);
+    }
+
+    private Map<String, Integer> inFlightCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Object[] row : verificationRepository.countAssignedByReviewer(
+                VendorVerification.VerificationStatus.IN_PROGRESS)) {
+            counts.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+}
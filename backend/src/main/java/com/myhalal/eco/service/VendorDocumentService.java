@@ -1,13 +1,18 @@
 package com.myhalal.eco.service;
 
+import com.myhalal.eco.dto.VendorDocumentSummary;
+import com.myhalal.eco.entity.DocumentBlob;
 import com.myhalal.eco.entity.VendorDocument;
 import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.export.ExportFormat;
+import com.myhalal.eco.export.RecordStreamWriter;
+import com.myhalal.eco.index.ExpiryEntry;
+import com.myhalal.eco.processing.DocumentUploadedEvent;
 import com.myhalal.eco.repository.VendorDocumentRepository;
 import com.myhalal.eco.repository.VendorRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -15,14 +20,19 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -30,10 +40,17 @@ import java.util.UUID;
 @Slf4j
 public class VendorDocumentService {
 
+    private static final int ID_CHUNK_SIZE = 1000;
+
     private final VendorDocumentRepository documentRepository;
     private final VendorRepository vendorRepository;
-    
-    private final String uploadDir = "uploads/vendor-documents/";
+    private final DocumentBlobService blobService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExpiryTrackingService expiryTracking;
+    private final DocumentSearchService searchService;
+    private final DocumentCounterService counterService;
+    private final ComplianceService complianceService;
+    private final RecordStreamWriter recordStreamWriter;
 
     public VendorDocument uploadDocument(MultipartFile file, Long vendorId, String documentType) {
         log.info("Uploading document for vendor ID: {}, type: {}", vendorId, documentType);
@@ -45,115 +62,186 @@ public class VendorDocumentService {
             throw new RuntimeException("File is empty");
         }
         
-        try {
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-            
-            Path filePath = uploadPath.resolve(uniqueFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            VendorDocument document = new VendorDocument();
-            document.setVendor(vendor);
-            document.setDocumentType(documentType);
-            document.setDocumentName(originalFilename);
-            document.setFilePath(filePath.toString());
-            document.setFileSize(file.getSize());
-            document.setMimeType(file.getContentType());
-            document.setStatus(VendorDocument.DocumentStatus.PENDING);
-            document.setVerificationStatus(VendorDocument.VerificationStatus.NOT_VERIFIED);
-            
-            VendorDocument savedDocument = documentRepository.save(document);
-            log.info("Document uploaded successfully with ID: {}", savedDocument.getDocumentId());
-            
-            return savedDocument;
-            
+        try (InputStream input = file.getInputStream()) {
+            DocumentBlob blob = blobService.store(input);
+            return createDocument(vendor, documentType, file.getOriginalFilename(), file.getContentType(), blob);
         } catch (IOException e) {
             log.error("Error uploading file: {}", e.getMessage());
             throw new RuntimeException("Failed to upload file: " + e.getMessage());
         }
     }
 
+    public VendorDocument registerDocument(Long vendorId, String documentType, String documentName,
+                                           String mimeType, DocumentBlob blob) {
+        Vendor vendor = vendorRepository.findById(vendorId)
+            .orElseThrow(() -> new RuntimeException("Vendor not found"));
+        return createDocument(vendor, documentType, documentName, mimeType, blob);
+    }
+
+    private VendorDocument createDocument(Vendor vendor, String documentType, String documentName,
+                                          String mimeType, DocumentBlob blob) {
+        VendorDocument document = new VendorDocument();
+        document.setVendor(vendor);
+        document.setDocumentType(documentType);
+        document.setDocumentName(documentName);
+        document.setFilePath(blob.getStoragePath());
+        document.setContentHash(blob.getContentHash());
+        document.setFileSize(blob.getSize());
+        document.setMimeType(mimeType);
+        document.setStatus(VendorDocument.DocumentStatus.PENDING);
+        document.setVerificationStatus(VendorDocument.VerificationStatus.NOT_VERIFIED);
+        document.setProcessingStatus(VendorDocument.ProcessingStatus.QUEUED);
+        
+        VendorDocument savedDocument = documentRepository.save(document);
+        eventPublisher.publishEvent(new DocumentUploadedEvent(savedDocument.getDocumentId()));
+        expiryTracking.trackDocument(savedDocument.getDocumentId(), vendor.getVendorId(), savedDocument.getExpiryDate());
+        counterService.documentCreated(vendor.getVendorId(), savedDocument.getVerificationStatus());
+        complianceService.vendorChanged(vendor.getVendorId());
+        log.info("Document uploaded successfully with ID: {}", savedDocument.getDocumentId());
+        
+        return savedDocument;
+    }
+
     @Transactional(readOnly = true)
     public VendorDocument getDocument(Long documentId) {
         return documentRepository.findById(documentId)
             .orElseThrow(() -> new RuntimeException("Document not found"));
     }
 
-    @Transactional(readOnly = true)
-    public Resource downloadDocument(Long documentId) {
-        VendorDocument document = getDocument(documentId);
-        
+    public Optional<Path> getLocalPath(VendorDocument document) {
+        if (document.getContentHash() == null) {
+            return Optional.of(Paths.get(document.getFilePath()));
+        }
+        return blobService.localPath(document.getContentHash());
+    }
+
+    public long getContentLength(VendorDocument document) {
         try {
-            Path filePath = Paths.get(document.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new RuntimeException("File not found or not readable");
+            if (document.getContentHash() == null) {
+                return Files.size(Paths.get(document.getFilePath()));
             }
-        } catch (Exception e) {
-            log.error("Error downloading document {}: {}", documentId, e.getMessage());
-            throw new RuntimeException("Failed to download file: " + e.getMessage());
+            return blobService.size(document.getContentHash());
+        } catch (IOException e) {
+            throw new RuntimeException("File not found or not readable");
+        }
+    }
+
+    public InputStream openContent(VendorDocument document, long offset, long length) throws IOException {
+        if (document.getContentHash() == null) {
+            InputStream input = Files.newInputStream(Paths.get(document.getFilePath()));
+            input.skipNBytes(offset);
+            return input;
         }
+        return blobService.openRange(document.getContentHash(), offset, length);
     }
 
     @Transactional(readOnly = true)
-    public List<VendorDocument> getVendorDocuments(Long vendorId) {
-        return documentRepository.findByVendorId(vendorId);
+    public List<VendorDocumentSummary> getVendorDocuments(Long vendorId) {
+        return documentRepository.findSummariesByVendorId(vendorId);
     }
 
     @Transactional(readOnly = true)
-    public List<VendorDocument> getVendorDocumentsByType(Long vendorId, String documentType) {
-        return documentRepository.findByVendor_VendorIdAndDocumentType(vendorId, documentType);
+    public List<VendorDocumentSummary> getVendorDocumentsByType(Long vendorId, String documentType) {
+        return documentRepository.findSummariesByVendorIdAndDocumentType(vendorId, documentType);
     }
 
     public VendorDocument verifyDocument(Long documentId, String verifiedBy, String notes) {
         log.info("Verifying document ID: {} by {}", documentId, verifiedBy);
         
         VendorDocument document = getDocument(documentId);
+        counterService.statusChanged(document.getVendor().getVendorId(), document.getVerificationStatus(),
+            VendorDocument.VerificationStatus.VERIFIED);
         document.setVerificationStatus(VendorDocument.VerificationStatus.VERIFIED);
         document.setStatus(VendorDocument.DocumentStatus.APPROVED);
         document.setVerifiedBy(verifiedBy);
         document.setVerifiedDate(LocalDateTime.now());
         document.setNotes(notes);
         
-        return documentRepository.save(document);
+        VendorDocument savedDocument = documentRepository.save(document);
+        expiryTracking.trackDocument(documentId, savedDocument.getVendor().getVendorId(), savedDocument.getExpiryDate());
+        complianceService.vendorChanged(savedDocument.getVendor().getVendorId());
+        return savedDocument;
     }
 
     public VendorDocument rejectDocument(Long documentId, String rejectedBy, String reason) {
         log.info("Rejecting document ID: {} by {}", documentId, rejectedBy);
         
         VendorDocument document = getDocument(documentId);
+        counterService.statusChanged(document.getVendor().getVendorId(), document.getVerificationStatus(),
+            VendorDocument.VerificationStatus.FAILED);
         document.setVerificationStatus(VendorDocument.VerificationStatus.FAILED);
         document.setStatus(VendorDocument.DocumentStatus.REJECTED);
         document.setVerifiedBy(rejectedBy);
         document.setVerifiedDate(LocalDateTime.now());
         document.setNotes(reason);
         
-        return documentRepository.save(document);
+        VendorDocument savedDocument = documentRepository.save(document);
+        expiryTracking.trackDocument(documentId, savedDocument.getVendor().getVendorId(), savedDocument.getExpiryDate());
+        complianceService.vendorChanged(savedDocument.getVendor().getVendorId());
+        return savedDocument;
+    }
+
+    // A processing stage rejected the content. Only a still-pending, unverified document changes state, but
+    // counters and compliance follow it the same way as a manual reject.
+    public void rejectProcessing(Long documentId, Long vendorId, String detectedMimeType, String reason) {
+        documentRepository.failProcessing(documentId, VendorDocument.ProcessingStatus.FAILED, detectedMimeType,
+            reason, VendorDocument.DocumentStatus.PENDING, VendorDocument.DocumentStatus.REJECTED);
+        if (documentRepository.changeVerificationStatus(documentId,
+                VendorDocument.VerificationStatus.NOT_VERIFIED, VendorDocument.VerificationStatus.FAILED) > 0) {
+            counterService.statusChanged(vendorId, VendorDocument.VerificationStatus.NOT_VERIFIED,
+                VendorDocument.VerificationStatus.FAILED);
+        }
+        complianceService.vendorChanged(vendorId);
     }
 
     @Transactional(readOnly = true)
-    public Page<VendorDocument> getPendingVerificationDocuments(Pageable pageable) {
-        return documentRepository.findAll(pageable);
+    public Page<VendorDocumentSummary> getPendingVerificationDocuments(Pageable pageable) {
+        return documentRepository.findSummariesByVerificationStatus(
+            VendorDocument.VerificationStatus.NOT_VERIFIED, pageable);
     }
 
     @Transactional(readOnly = true)
-    public List<VendorDocument> getExpiringDocuments(int daysThreshold) {
-        LocalDateTime thresholdDate = LocalDateTime.now().plusDays(daysThreshold);
-        return documentRepository.findExpiringDocuments(null, LocalDateTime.now(), thresholdDate);
+    public List<VendorDocumentSummary> getExpiringDocuments(int daysThreshold) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime thresholdDate = now.plusDays(daysThreshold);
+        if (!expiryTracking.isLoaded()) {
+            return documentRepository.findExpiringSummaries(now, thresholdDate);
+        }
+        return loadSummaries(expiryTracking.getExpiringDocuments(now, thresholdDate));
     }
 
     @Transactional(readOnly = true)
-    public List<VendorDocument> getExpiredDocuments() {
-        return documentRepository.findExpiredDocuments(LocalDateTime.now());
+    public List<VendorDocumentSummary> getExpiredDocuments() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!expiryTracking.isLoaded()) {
+            return documentRepository.findExpiredSummaries(now);
+        }
+        return loadSummaries(expiryTracking.getExpiredDocuments(now));
+    }
+
+    @Transactional(readOnly = true)
+    public long exportExpiredDocuments(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<VendorDocumentSummary> rows = documentRepository.streamExpiredSummaries(LocalDateTime.now())) {
+            return recordStreamWriter.write(rows, VendorDocumentSummary.class, format, output);
+        }
+    }
+
+    // Index entries come back in expiry order; primary-key lookups in chunks keep that order
+    private List<VendorDocumentSummary> loadSummaries(List<ExpiryEntry> entries) {
+        List<VendorDocumentSummary> summaries = new ArrayList<>(entries.size());
+        for (int start = 0; start < entries.size(); start += ID_CHUNK_SIZE) {
+            List<ExpiryEntry> chunk = entries.subList(start, Math.min(start + ID_CHUNK_SIZE, entries.size()));
+            Map<Long, VendorDocumentSummary> byId = documentRepository
+                .findSummariesByIds(chunk.stream().map(ExpiryEntry::id).toList()).stream()
+                .collect(Collectors.toMap(VendorDocumentSummary::documentId, Function.identity()));
+            for (ExpiryEntry entry : chunk) {
+                VendorDocumentSummary summary = byId.get(entry.id());
+                if (summary != null) {
+                    summaries.add(summary);
+                }
+            }
+        }
+        return summaries;
     }
 
     public VendorDocument updateDocument(Long documentId, VendorDocument updatedDocument) {
@@ -166,13 +254,26 @@ public class VendorDocumentService {
         existingDocument.setExpiryDate(updatedDocument.getExpiryDate());
         existingDocument.setNotes(updatedDocument.getNotes());
         
-        return documentRepository.save(existingDocument);
+        VendorDocument savedDocument = documentRepository.save(existingDocument);
+        expiryTracking.trackDocument(documentId, savedDocument.getVendor().getVendorId(), savedDocument.getExpiryDate());
+        complianceService.vendorChanged(savedDocument.getVendor().getVendorId());
+        return savedDocument;
     }
 
     public void deleteDocument(Long documentId) {
         log.info("Deleting document ID: {}", documentId);
         
         VendorDocument document = getDocument(documentId);
+        documentRepository.delete(document);
+        expiryTracking.untrackDocument(documentId);
+        counterService.documentDeleted(document.getVendor().getVendorId(), document.getVerificationStatus());
+        complianceService.vendorChanged(document.getVendor().getVendorId());
+        searchService.remove(documentId);
+        
+        if (document.getContentHash() != null) {
+            blobService.release(document.getContentHash());
+            return;
+        }
         
         try {
             Path filePath = Paths.get(document.getFilePath());
@@ -180,30 +281,25 @@ public class VendorDocumentService {
         } catch (IOException e) {
             log.warn("Failed to delete physical file: {}", e.getMessage());
         }
-        
-        documentRepository.delete(document);
     }
 
-    @Transactional(readOnly = true)
     public Map<String, Long> getVendorDocumentStats(Long vendorId) {
-        Long total = (long) documentRepository.findByVendorId(vendorId).size();
-        Long verified = documentRepository.countVerifiedDocuments(vendorId);
+        Map<VendorDocument.VerificationStatus, Long> counts = counterService.getVendorCounts(vendorId);
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        long verified = counts.get(VendorDocument.VerificationStatus.VERIFIED);
         
         return Map.of(
             "total", total,
-            "verified", verified != null ? verified : 0L,
-            "pending", total - (verified != null ? verified : 0L)
+            "verified", verified,
+            "pending", total - verified
         );
     }
 
-    @Transactional(readOnly = true)
     public Map<String, Long> getVerificationStats() {
-        Long pending = (long) documentRepository.findByVerificationStatus(
-            VendorDocument.VerificationStatus.NOT_VERIFIED).size();
-        Long verified = (long) documentRepository.findByVerificationStatus(
-            VendorDocument.VerificationStatus.VERIFIED).size();
-        Long rejected = (long) documentRepository.findByVerificationStatus(
-            VendorDocument.VerificationStatus.FAILED).size();
+        Map<VendorDocument.VerificationStatus, Long> counts = counterService.getGlobalCounts();
+        long pending = counts.get(VendorDocument.VerificationStatus.NOT_VERIFIED);
+        long verified = counts.get(VendorDocument.VerificationStatus.VERIFIED);
+        long rejected = counts.get(VendorDocument.VerificationStatus.FAILED);
         
         return Map.of(
             "pending", pending,
@@ -0,0 +1,458 @@
+package com.myhalal.eco.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.repository.VendorRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Streams a CSV or NDJSON vendor registry into the database. The request thread reads records
+// into fixed-size batches; parsing and bean validation run on a worker pool, with at most a few
+// batches in flight so memory stays flat however long the file is. Batches are deduplicated and
+// inserted strictly in file order, each in its own transaction using pooled IDs and JDBC batching.
+// Known emails are held in a hash set seeded once from the database, replacing the per-row lookup
+// that createVendor does; only one import runs at a time so that set stays authoritative.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VendorImportService {
+
+    private static final String DUPLICATE_EMAIL = "Vendor with this email already exists";
+
+    private final VendorRepository vendorRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PlatformTransactionManager transactionManager;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, ImportProgress> imports = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${vendors.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${vendors.import.workers:4}")
+    private int workers;
+
+    @Value("${vendors.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${vendors.import.history-size:20}")
+    private int historySize;
+
+    @PostConstruct
+    void start() {
+        int threads = Math.max(1, workers);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads), namedThreads("vendor-import"), new ThreadPoolExecutor.CallerRunsPolicy());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public Map<String, Object> importVendors(InputStream input, String format, String importedBy) throws IOException {
+        boolean csv = parseFormat(format);
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A vendor import is already running");
+        }
+        ImportProgress progress = new ImportProgress(UUID.randomUUID().toString(), csv ? "csv" : "ndjson");
+        track(progress);
+        try {
+            Set<String> emails = loadKnownEmails();
+            log.info("Vendor import {} started, {} existing emails loaded", progress.importId, emails.size());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+            String[] header = csv ? readHeader(reader) : null;
+
+            Deque<Future<List<ParsedRow>>> inFlight = new ArrayDeque<>();
+            int window = executor.getMaximumPoolSize() * 2;
+            long rowNumber = csv ? 1 : 0;
+            List<RawRow> batch = new ArrayList<>(batchSize);
+            String record;
+            while ((record = csv ? readCsvRecord(reader) : reader.readLine()) != null) {
+                rowNumber++;
+                if (record.isBlank()) {
+                    continue;
+                }
+                batch.add(new RawRow(rowNumber, record));
+                if (batch.size() == batchSize) {
+                    List<RawRow> rows = batch;
+                    inFlight.add(executor.submit(() -> parse(rows, header, importedBy)));
+                    batch = new ArrayList<>(batchSize);
+                    if (inFlight.size() >= window) {
+                        store(await(inFlight.poll()), emails, progress);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                List<RawRow> rows = batch;
+                inFlight.add(executor.submit(() -> parse(rows, header, importedBy)));
+            }
+            while (!inFlight.isEmpty()) {
+                store(await(inFlight.poll()), emails, progress);
+            }
+            progress.finish(null);
+            log.info("Vendor import {} finished: {} rows, {} imported, {} duplicates, {} failed in {} ms",
+                progress.importId, progress.rows.sum(), progress.imported.sum(), progress.duplicates.sum(),
+                progress.failed.sum(), progress.elapsed().toMillis());
+            return progress.toStatus(true);
+        } catch (IOException | RuntimeException e) {
+            progress.finish(e.getMessage());
+            log.error("Vendor import {} stopped after {} rows: {}", progress.importId, progress.rows.sum(), e.getMessage());
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public List<Map<String, Object>> getImports() {
+        return imports.values().stream()
+            .sorted((a, b) -> b.startedDate.compareTo(a.startedDate))
+            .map(progress -> progress.toStatus(false))
+            .toList();
+    }
+
+    public Map<String, Object> getImport(String importId) {
+        ImportProgress progress = imports.get(importId);
+        if (progress == null) {
+            throw new RuntimeException("Import not found");
+        }
+        return progress.toStatus(true);
+    }
+
+    private static boolean parseFormat(String format) {
+        String value = format != null ? format.toLowerCase(Locale.ROOT) : "";
+        if (value.contains("csv")) {
+            return true;
+        }
+        if (value.contains("json")) {
+            return false;
+        }
+        throw new RuntimeException("Unsupported import format, expected csv or ndjson");
+    }
+
+    private Set<String> loadKnownEmails() {
+        Set<String> emails = new HashSet<>();
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = vendorRepository.findContactEmailsAfter(afterId, PageRequest.of(0, batchSize));
+            for (Object[] row : page) {
+                afterId = (Long) row[0];
+                if (row[1] != null) {
+                    emails.add(VendorService.normalizeEmail((String) row[1]));
+                }
+            }
+        } while (page.size() == batchSize);
+        return emails;
+    }
+
+    // Runs on a worker: turns raw records into vendors and collects validation failures
+    private List<ParsedRow> parse(List<RawRow> rows, String[] header, String importedBy) {
+        List<ParsedRow> parsed = new ArrayList<>(rows.size());
+        for (RawRow row : rows) {
+            try {
+                Vendor vendor = header != null
+                    ? objectMapper.convertValue(toFields(header, splitCsv(row.record())), Vendor.class)
+                    : objectMapper.readValue(row.record(), Vendor.class);
+                VendorService.applyNewVendorDefaults(vendor);
+                vendor.setContactEmail(VendorService.normalizeEmail(vendor.getContactEmail()));
+                vendor.setVendorId(null);
+                vendor.setVerifiedDate(null);
+                vendor.setVerifiedBy(null);
+                vendor.setCreatedBy(importedBy);
+                Set<ConstraintViolation<Vendor>> violations = validator.validate(vendor);
+                parsed.add(violations.isEmpty()
+                    ? new ParsedRow(row.rowNumber(), vendor, null)
+                    : new ParsedRow(row.rowNumber(), null, violations.stream()
+                        .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "))));
+            } catch (IOException | RuntimeException e) {
+                parsed.add(new ParsedRow(row.rowNumber(), null, "Invalid row: " + firstLine(e.getMessage())));
+            }
+        }
+        return parsed;
+    }
+
+    // Runs on the request thread in file order, so the first occurrence of an email always wins
+    private void store(List<ParsedRow> rows, Set<String> emails, ImportProgress progress) {
+        List<ParsedRow> accepted = new ArrayList<>(rows.size());
+        for (ParsedRow row : rows) {
+            progress.rows.increment();
+            if (row.vendor() == null) {
+                progress.reject(progress.failed, row.rowNumber(), row.error(), maxErrors);
+            } else if (!emails.add(row.vendor().getContactEmail())) {
+                progress.reject(progress.duplicates, row.rowNumber(), DUPLICATE_EMAIL, maxErrors);
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                vendorRepository.saveAll(accepted.stream().map(ParsedRow::vendor).toList()));
+            progress.imported.add(accepted.size());
+        } catch (RuntimeException e) {
+            // Something in the batch was rejected by the database; find it row by row
+            log.warn("Vendor import {} batch at row {} failed, retrying rows individually: {}",
+                progress.importId, accepted.get(0).rowNumber(), e.getMessage());
+            for (ParsedRow row : accepted) {
+                try {
+                    row.vendor().setVendorId(null);
+                    row.vendor().setVersion(null);
+                    transactionTemplate.executeWithoutResult(status -> vendorRepository.save(row.vendor()));
+                    progress.imported.increment();
+                } catch (DataIntegrityViolationException rowError) {
+                    // Only the email is unique, so this is a vendor created outside the import meanwhile
+                    progress.reject(progress.duplicates, row.rowNumber(), DUPLICATE_EMAIL, maxErrors);
+                } catch (RuntimeException rowError) {
+                    emails.remove(row.vendor().getContactEmail());
+                    progress.reject(progress.failed, row.rowNumber(), firstLine(rowError.getMessage()), maxErrors);
+                }
+            }
+        }
+    }
+
+    private List<ParsedRow> await(Future<List<ParsedRow>> batch) {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for import batch", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Import batch failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void track(ImportProgress progress) {
+        imports.put(progress.importId, progress);
+        if (imports.size() > historySize) {
+            imports.values().stream()
+                .filter(old -> old.finishedDate != null)
+                .min((a, b) -> a.startedDate.compareTo(b.startedDate))
+                .ifPresent(oldest -> imports.remove(oldest.importId));
+        }
+    }
+
+    private static String[] readHeader(BufferedReader reader) throws IOException {
+        String record = readCsvRecord(reader);
+        if (record == null || record.isBlank()) {
+            throw new RuntimeException("CSV import is missing its header row");
+        }
+        List<String> names = splitCsv(record);
+        String[] header = new String[names.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = names.get(i).trim().replace("\uFEFF", "");
+        }
+        return header;
+    }
+
+    // One logical CSV record; a quoted field may span several physical lines. Each line is scanned
+    // once and flips the open-quote state, so a long multi-line field stays linear
+    private static String readCsvRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        boolean open = oddQuotes(line);
+        if (!open) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (open) {
+            String next = reader.readLine();
+            if (next == null) {
+                throw new RuntimeException("CSV import ends inside a quoted field");
+            }
+            record.append('\n').append(next);
+            open ^= oddQuotes(next);
+        }
+        return record.toString();
+    }
+
+    private static boolean oddQuotes(String line) {
+        boolean odd = false;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    private static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Empty cells are left unset rather than bound as empty strings
+    private static Map<String, String> toFields(String[] header, List<String> values) {
+        if (values.size() > header.length) {
+            throw new RuntimeException("Row has " + values.size() + " fields but the header has " + header.length);
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                fields.put(header[i], values.get(i));
+            }
+        }
+        return fields;
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "Unknown error";
+        }
+        int end = message.indexOf('\n');
+        return end >= 0 ? message.substring(0, end).trim() : message;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record RawRow(long rowNumber, String record) {
+    }
+
+    private record ParsedRow(long rowNumber, Vendor vendor, String error) {
+    }
+
+    private static class ImportProgress {
+        private final String importId;
+        private final String format;
+        private final LocalDateTime startedDate = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder imported = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        private volatile LocalDateTime finishedDate;
+        private volatile long elapsedNanos = -1;
+        private volatile String abortedReason;
+
+        ImportProgress(String importId, String format) {
+            this.importId = importId;
+            this.format = format;
+        }
+
+        synchronized void reject(LongAdder counter, long rowNumber, String error, int maxErrors) {
+            counter.increment();
+            if (errors.size() < maxErrors) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("row", rowNumber);
+                entry.put("error", error);
+                errors.add(entry);
+            }
+        }
+
+        void finish(String reason) {
+            abortedReason = reason;
+            elapsedNanos = System.nanoTime() - startNanos;
+            finishedDate = LocalDateTime.now();
+        }
+
+        Duration elapsed() {
+            long nanos = elapsedNanos;
+            return Duration.ofNanos(nanos >= 0 ? nanos : System.nanoTime() - startNanos);
+        }
+
+        synchronized Map<String, Object> toStatus(boolean withErrors) {
+            long elapsedMs = elapsed().toMillis();
+            long rowCount = rows.sum();
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("importId", importId);
+            status.put("format", format);
+            status.put("state", finishedDate == null ? "RUNNING" : abortedReason == null ? "COMPLETED" : "ABORTED");
+            status.put("startedDate", startedDate);
+            status.put("finishedDate", finishedDate);
+            status.put("rows", rowCount);
+            status.put("imported", imported.sum());
+            status.put("duplicates", duplicates.sum());
+            status.put("failed", failed.sum());
+            status.put("elapsedMs", elapsedMs);
+            status.put("rowsPerSecond", elapsedMs > 0 ? rowCount * 1000 / elapsedMs : rowCount);
+            if (abortedReason != null) {
+                status.put("error", abortedReason);
+            }
+            if (withErrors) {
+                status.put("errors", List.copyOf(errors));
+                status.put("errorsTruncated", failed.sum() + duplicates.sum() > errors.size());
+            }
+            return status;
+        }
+    }
+}
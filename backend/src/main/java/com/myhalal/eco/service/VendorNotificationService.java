@@ -1,20 +1,30 @@
 package com.myhalal.eco.service;
 
+import com.myhalal.eco.entity.SweepCheckpoint;
 import com.myhalal.eco.entity.VendorNotification;
+import com.myhalal.eco.entity.VendorNotificationTombstone;
 import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.index.ChangeSeqWindow;
+import com.myhalal.eco.repository.SweepCheckpointRepository;
 import com.myhalal.eco.repository.VendorNotificationRepository;
+import com.myhalal.eco.repository.VendorNotificationTombstoneRepository;
 import com.myhalal.eco.repository.VendorRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +33,20 @@ public class VendorNotificationService {
 
     private final VendorNotificationRepository notificationRepository;
     private final VendorRepository vendorRepository;
+    private final VendorNotificationTombstoneRepository tombstoneRepository;
+    private final SweepCheckpointRepository checkpointRepository;
+
+    // LAST_ID holds the highest change seq whose tombstone has been purged
+    private static final String RETENTION_CHECKPOINT = "notification-retention";
+
+    private final ChangeSeqWindow changeSeqWindow = new ChangeSeqWindow();
+
+    private volatile boolean changeSeqSeeded;
+
+    private volatile long retentionFloor;
+
+    @Value("${notifications.retention.months:12}")
+    private int retentionMonths;
 
     @Transactional
     public VendorNotification createNotification(VendorNotification notification) {
@@ -34,10 +58,29 @@ public class VendorNotificationService {
         notification.setVendor(vendor);
         notification.setStatus(VendorNotification.NotificationStatus.UNREAD);
         notification.setCreatedDate(LocalDateTime.now());
+        notification.setChangeSeq(nextChangeSeq());
         
         return notificationRepository.save(notification);
     }
 
+    // Bulk path for system-generated notices; vendors are attached by reference, not loaded
+    @Transactional
+    public List<VendorNotification> createNotifications(List<VendorNotification> notifications) {
+        LocalDateTime now = LocalDateTime.now();
+        for (VendorNotification notification : notifications) {
+            notification.setVendor(vendorRepository.getReferenceById(notification.getVendor().getVendorId()));
+            notification.setStatus(VendorNotification.NotificationStatus.UNREAD);
+            notification.setCreatedDate(now);
+            notification.setChangeSeq(nextChangeSeq());
+        }
+        return notificationRepository.saveAll(notifications);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Object[]> findRelatedDeadlines(String type, String relatedEntityType, Collection<Long> relatedEntityIds) {
+        return notificationRepository.findRelatedDeadlines(type, relatedEntityType, relatedEntityIds);
+    }
+
     @Transactional(readOnly = true)
     public VendorNotification getNotification(Long notificationId) {
         return notificationRepository.findById(notificationId)
@@ -58,21 +101,21 @@ public class VendorNotificationService {
     public VendorNotification markAsRead(Long notificationId) {
         log.info("Marking notification as read: {}", notificationId);
         
-        notificationRepository.markAsRead(notificationId, LocalDateTime.now());
+        notificationRepository.markAsRead(notificationId, LocalDateTime.now(), nextChangeSeq());
         return getNotification(notificationId);
     }
 
     @Transactional
     public void markAllAsRead(Long vendorId) {
         log.info("Marking all notifications as read for vendor: {}", vendorId);
-        notificationRepository.markAllAsRead(vendorId, LocalDateTime.now());
+        notificationRepository.markAllAsRead(vendorId, LocalDateTime.now(), nextChangeSeq());
     }
 
     @Transactional
     public VendorNotification markActionCompleted(Long notificationId) {
         log.info("Marking action completed for notification: {}", notificationId);
         
-        notificationRepository.markActionCompleted(notificationId, LocalDateTime.now());
+        notificationRepository.markActionCompleted(notificationId, LocalDateTime.now(), nextChangeSeq());
         return getNotification(notificationId);
     }
 
@@ -112,5 +155,163 @@ public class VendorNotificationService {
         
         VendorNotification notification = getNotification(notificationId);
         notificationRepository.delete(notification);
+        
+        VendorNotificationTombstone tombstone = new VendorNotificationTombstone();
+        tombstone.setVendorId(notification.getVendor().getVendorId());
+        tombstone.setNotificationId(notificationId);
+        tombstone.setDeletedDate(LocalDateTime.now());
+        // The tombstone's CHANGE_SEQ is drawn on save, so the reservation has to be open before it
+        holdUntilCompletion(changeSeqWindow.open());
+        changeSeqWindow.allocated(tombstoneRepository.save(tombstone).getChangeSeq());
+    }
+
+    // Deliberately not read-only: a replica may not have applied everything below the safe mark yet
+    @Transactional
+    public Map<String, Object> getChangesSince(Long vendorId, long since, int limit) {
+        seedChangeSeq();
+        // Deletes at or below the floor are gone, so a client behind it can no longer be brought up to date
+        if (since > 0 && since < retentionFloor) {
+            Map<String, Object> changes = new LinkedHashMap<>();
+            changes.put("since", since);
+            changes.put("resyncRequired", true);
+            changes.put("retentionFloor", retentionFloor);
+            return changes;
+        }
+        // Taken before the queries run; nothing at or below it can still commit afterwards, as long as
+        // every write goes through this node (see ChangeSeqWindow)
+        long safeMark = changeSeqWindow.safeHighWaterMark();
+        Pageable window = PageRequest.of(0, limit);
+        List<Long> upsertSeqs = safeMark > since
+            ? notificationRepository.findChangeSeqsSince(vendorId, since, safeMark, window) : List.of();
+        List<Long> deleteSeqs = safeMark > since
+            ? tombstoneRepository.findChangeSeqsSince(vendorId, since, safeMark, window) : List.of();
+        
+        // A full window means more changes may follow; stop at the lower of the two window ends so
+        // upserts and deletes stay consistent. Bulk read-all shares one seq, so the range is inclusive.
+        boolean hasMore = upsertSeqs.size() == limit || deleteSeqs.size() == limit;
+        long watermark = since;
+        if (hasMore) {
+            watermark = Long.MAX_VALUE;
+            if (upsertSeqs.size() == limit) {
+                watermark = upsertSeqs.get(upsertSeqs.size() - 1);
+            }
+            if (deleteSeqs.size() == limit) {
+                watermark = Math.min(watermark, deleteSeqs.get(deleteSeqs.size() - 1));
+            }
+        } else {
+            if (!upsertSeqs.isEmpty()) {
+                watermark = Math.max(watermark, upsertSeqs.get(upsertSeqs.size() - 1));
+            }
+            if (!deleteSeqs.isEmpty()) {
+                watermark = Math.max(watermark, deleteSeqs.get(deleteSeqs.size() - 1));
+            }
+        }
+        
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("since", since);
+        changes.put("resyncRequired", false);
+        changes.put("watermark", watermark);
+        changes.put("hasMore", hasMore);
+        if (watermark == since) {
+            changes.put("upserted", List.of());
+            changes.put("deleted", List.of());
+            return changes;
+        }
+        changes.put("upserted", notificationRepository.findChangedNotifications(vendorId, since, watermark));
+        changes.put("deleted", tombstoneRepository.findDeletedNotificationIds(vendorId, since, watermark));
+        return changes;
+    }
+
+    @Scheduled(cron = "${notifications.retention.cron:0 30 3 * * *}")
+    @Transactional
+    public void runScheduledRetention() {
+        purgePartitions(retentionMonths);
+    }
+
+    @Transactional
+    public Map<String, Object> purgeReadPartitions(int olderThanMonths) {
+        if (olderThanMonths < 1) {
+            throw new RuntimeException("Retention must be at least one month");
+        }
+        return purgePartitions(olderThanMonths);
+    }
+
+    private Map<String, Object> purgePartitions(int olderThanMonths) {
+        seedChangeSeq();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusMonths(olderThanMonths).withDayOfMonth(1);
+        int cutoffMonth = VendorNotification.partitionOf(cutoff);
+        
+        // Purged rows leave tombstones behind like any other delete, so synced clients drop them too
+        List<Integer> partitions = List.of();
+        int purged = 0;
+        Long purgeUpTo = notificationRepository.findMaxPurgeableChangeSeq(cutoffMonth);
+        if (purgeUpTo != null) {
+            partitions = notificationRepository.findPurgeablePartitions(cutoffMonth, purgeUpTo);
+            holdUntilCompletion(changeSeqWindow.open());
+            purged = notificationRepository.purgeReadPartitionsBefore(cutoffMonth, purgeUpTo, now);
+            Long highest = tombstoneRepository.findMaxChangeSeq();
+            changeSeqWindow.allocated(highest != null ? highest : 0L);
+        }
+        
+        int tombstones = 0;
+        Long floor = tombstoneRepository.findMaxChangeSeqOlderThan(cutoff);
+        if (floor != null) {
+            tombstones = tombstoneRepository.deleteOlderThan(cutoff, floor);
+            raiseRetentionFloor(floor);
+        }
+        
+        log.info("Notification retention purged {} read notifications across partitions {} and {} tombstones",
+                purged, partitions, tombstones);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("cutoffMonth", cutoffMonth);
+        result.put("partitions", partitions);
+        result.put("purgedNotifications", purged);
+        result.put("purgedTombstones", tombstones);
+        result.put("retentionFloor", retentionFloor);
+        return result;
+    }
+
+    // Raised before commit; if the purge rolls back, clients just resync once more than they needed to
+    private void raiseRetentionFloor(long floor) {
+        SweepCheckpoint checkpoint = checkpointRepository.findById(RETENTION_CHECKPOINT).orElseGet(() -> {
+            SweepCheckpoint created = new SweepCheckpoint();
+            created.setSweepName(RETENTION_CHECKPOINT);
+            return created;
+        });
+        checkpoint.setLastId(Math.max(checkpoint.getLastId(), floor));
+        checkpoint.setCompletedDate(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        retentionFloor = Math.max(retentionFloor, checkpoint.getLastId());
+    }
+
+    private long nextChangeSeq() {
+        holdUntilCompletion(changeSeqWindow.open());
+        long seq = notificationRepository.nextChangeSeq();
+        changeSeqWindow.allocated(seq);
+        return seq;
+    }
+
+    private void holdUntilCompletion(ChangeSeqWindow.Reservation reservation) {
+        TransactionCallbacks.afterCompletion(() -> changeSeqWindow.close(reservation));
+    }
+
+    // After a restart nothing is in flight, so the highest committed number is a safe starting point
+    private void seedChangeSeq() {
+        if (changeSeqSeeded) {
+            return;
+        }
+        synchronized (changeSeqWindow) {
+            if (!changeSeqSeeded) {
+                Long notifications = notificationRepository.findMaxChangeSeq();
+                Long tombstones = tombstoneRepository.findMaxChangeSeq();
+                changeSeqWindow.allocated(Math.max(notifications != null ? notifications : 0L,
+                    tombstones != null ? tombstones : 0L));
+                retentionFloor = checkpointRepository.findById(RETENTION_CHECKPOINT)
+                    .map(SweepCheckpoint::getLastId).orElse(0L);
+                changeSeqSeeded = true;
+            }
+        }
     }
 }
@@ -1,6 +1,9 @@
 package com.myhalal.eco.service;
 
+import com.myhalal.eco.dto.VendorSummary;
 import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.export.ExportFormat;
+import com.myhalal.eco.export.RecordStreamWriter;
 import com.myhalal.eco.repository.VendorRepository;
 import com.myhalal.eco.repository.VendorDocumentRepository;
 import com.myhalal.eco.repository.VendorReviewRepository;
@@ -8,15 +11,21 @@ import com.myhalal.eco.repository.VendorVerificationRepository;
 import com.myhalal.eco.repository.VendorNotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -24,37 +33,61 @@ import java.util.Optional;
 @Slf4j
 public class VendorService {
 
+    private static final String DUPLICATE_EMAIL = "Vendor with this email already exists";
+
     private final VendorRepository vendorRepository;
     private final VendorDocumentRepository vendorDocumentRepository;
     private final VendorReviewRepository vendorReviewRepository;
     private final VendorVerificationRepository vendorVerificationRepository;
     private final VendorNotificationRepository vendorNotificationRepository;
+    private final ComplianceService complianceService;
+    private final RecordStreamWriter recordStreamWriter;
 
     public Vendor createVendor(Vendor vendor) {
         log.info("Creating new vendor: {}", vendor.getName());
         
         // Validation
+        vendor.setContactEmail(normalizeEmail(vendor.getContactEmail()));
         if (vendorRepository.findByContactEmail(vendor.getContactEmail()).isPresent()) {
-            throw new RuntimeException("Vendor with this email already exists");
+            throw new RuntimeException(DUPLICATE_EMAIL);
         }
         
-        // Set default values
+        applyNewVendorDefaults(vendor);
+        
+        Vendor savedVendor = saveChecked(vendor);
+        log.info("Vendor created successfully with ID: {}", savedVendor.getVendorId());
+        
+        return savedVendor;
+    }
+
+    // Shared with the bulk import so both paths start vendors in the same state
+    static void applyNewVendorDefaults(Vendor vendor) {
+        vendor.setVersion(null);
         vendor.setStatus(Vendor.VendorStatus.PENDING);
         vendor.setIsVerified(false);
         vendor.setAverageRating(BigDecimal.ZERO);
         vendor.setTotalReviews(0);
         vendor.setTotalSales(0);
         vendor.setTotalRevenue(BigDecimal.ZERO);
-        
-        Vendor savedVendor = vendorRepository.save(vendor);
-        log.info("Vendor created successfully with ID: {}", savedVendor.getVendorId());
-        
-        return savedVendor;
+    }
+
+    // Trimmed and lower-cased, so the unique constraint catches case and whitespace variants
+    static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    // The lookup above misses a concurrent insert of the same email; the constraint does not
+    private Vendor saveChecked(Vendor vendor) {
+        try {
+            return vendorRepository.saveAndFlush(vendor);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException(DUPLICATE_EMAIL, e);
+        }
     }
 
     @Transactional(readOnly = true)
-    public List<Vendor> getAllVendors() {
-        return vendorRepository.findAll();
+    public List<VendorSummary> getAllVendors() {
+        return vendorRepository.findAll().stream().map(VendorSummary::from).toList();
     }
 
     @Transactional(readOnly = true)
@@ -70,7 +103,12 @@ public class VendorService {
         
         // Update fields
         existingVendor.setName(updatedVendor.getName());
-        existingVendor.setContactEmail(updatedVendor.getContactEmail());
+        String contactEmail = normalizeEmail(updatedVendor.getContactEmail());
+        if (!Objects.equals(contactEmail, existingVendor.getContactEmail())
+                && vendorRepository.findByContactEmail(contactEmail).isPresent()) {
+            throw new RuntimeException(DUPLICATE_EMAIL);
+        }
+        existingVendor.setContactEmail(contactEmail);
         existingVendor.setPhone(updatedVendor.getPhone());
         existingVendor.setWebsite(updatedVendor.getWebsite());
         existingVendor.setStreetAddress(updatedVendor.getStreetAddress());
@@ -87,7 +125,7 @@ public class VendorService {
         existingVendor.setInstagramUrl(updatedVendor.getInstagramUrl());
         existingVendor.setTwitterUrl(updatedVendor.getTwitterUrl());
         
-        return vendorRepository.save(existingVendor);
+        return saveChecked(existingVendor);
     }
 
     public Vendor updateVendorStatus(Long id, Vendor.VendorStatus status) {
@@ -121,43 +159,68 @@ public class VendorService {
             vendor.setStatus(Vendor.VendorStatus.ACTIVE);
         }
         
+        complianceService.vendorChanged(id);
         return vendorRepository.save(vendor);
     }
 
     @Transactional(readOnly = true)
-    public List<Vendor> getRecentVendors(int limit) {
-        return vendorRepository.findRecentVendors(limit);
+    public List<VendorSummary> getRecentVendors(int limit) {
+        return vendorRepository.findRecentVendors(limit).stream().map(VendorSummary::from).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Page<VendorSummary> getVendorsByCategory(String category, Pageable pageable) {
+        return vendorRepository.findByBusinessCategory(category, pageable).map(VendorSummary::from);
+    }
+
+    @Transactional(readOnly = true)
+    public List<VendorSummary> getVerifiedVendors() {
+        return vendorRepository.findByIsVerifiedTrue().stream().map(VendorSummary::from).toList();
     }
 
     @Transactional(readOnly = true)
-    public Page<Vendor> getVendorsByCategory(String category, Pageable pageable) {
-        return vendorRepository.findByBusinessCategory(category, pageable);
+    public List<VendorSummary> getTopRatedVendors(BigDecimal minRating) {
+        return vendorRepository.findByMinimumRating(minRating).stream().map(VendorSummary::from).toList();
+    }
+
+    // Export variants stream rows straight from the cursor to the response instead of building a list
+    @Transactional(readOnly = true)
+    public long exportAllVendors(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<VendorSummary> rows = vendorRepository.streamAllSummaries()) {
+            return recordStreamWriter.write(rows, VendorSummary.class, format, output);
+        }
     }
 
     @Transactional(readOnly = true)
-    public List<Vendor> getVerifiedVendors() {
-        return vendorRepository.findByIsVerifiedTrue();
+    public long exportVerifiedVendors(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<VendorSummary> rows = vendorRepository.streamVerifiedSummaries()) {
+            return recordStreamWriter.write(rows, VendorSummary.class, format, output);
+        }
     }
 
     @Transactional(readOnly = true)
-    public List<Vendor> getTopRatedVendors(BigDecimal minRating) {
-        return vendorRepository.findByMinimumRating(minRating);
+    public long exportTopRatedVendors(BigDecimal minRating, ExportFormat format, OutputStream output)
+            throws IOException {
+        try (Stream<VendorSummary> rows = vendorRepository.streamSummariesByMinimumRating(minRating)) {
+            return recordStreamWriter.write(rows, VendorSummary.class, format, output);
+        }
     }
 
     @Transactional(readOnly = true)
-    public Page<Vendor> getTopPerformingVendors(Pageable pageable) {
-        return vendorRepository.findTopPerformingVendors(pageable);
+    public Page<VendorSummary> getTopPerformingVendors(Pageable pageable) {
+        return vendorRepository.findTopPerformingVendors(pageable).map(VendorSummary::from);
     }
 
     @Transactional(readOnly = true)
-    public Page<Vendor> searchVendors(String searchTerm, Pageable pageable) {
-        return vendorRepository.searchVendors(searchTerm, pageable);
+    public Page<VendorSummary> searchVendors(String searchTerm, Pageable pageable) {
+        return vendorRepository.searchVendors(searchTerm, pageable).map(VendorSummary::from);
     }
 
     @Transactional(readOnly = true)
-    public Page<Vendor> getVendorsWithFilters(String category, BigDecimal minRating, 
-                                            String city, String state, Pageable pageable) {
-        return vendorRepository.findVendorsWithFilters(category, minRating, city, state, pageable);
+    public Page<VendorSummary> getVendorsWithFilters(String category, BigDecimal minRating, 
+                                                   String city, String state, Pageable pageable) {
+        return vendorRepository.findVendorsWithFilters(category, minRating, city, state, pageable)
+            .map(VendorSummary::from);
     }
 
     @Transactional(readOnly = true)
@@ -194,26 +257,14 @@ public class VendorService {
                 vendorId, averageRating, totalReviews);
     }
 
-    @Transactional(readOnly = true)
     public boolean isVendorFullyVerified(Long vendorId) {
-        Vendor vendor = vendorRepository.findById(vendorId)
-            .orElseThrow(() -> new RuntimeException("Vendor not found"));
-        
-        if (!vendor.getIsVerified()) {
-            return false;
-        }
-        
-        // Check if required documents are verified
-        Long verifiedDocs = vendorDocumentRepository.countVerifiedDocuments(vendorId);
-        Long completedVerifications = vendorVerificationRepository.countCompletedVerifications(vendorId);
-        
-        return verifiedDocs > 0 && completedVerifications > 0;
+        return complianceService.isCompliant(vendorId);
     }
 
     @Transactional(readOnly = true)
-    public List<Vendor> getVendorsNeedingAttention() {
+    public Page<VendorSummary> getVendorsNeedingAttention(Pageable pageable) {
         LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        return vendorRepository.findVendorsNeedingReverification(thirtyDaysAgo);
+        return vendorRepository.findVendorsNeedingReverification(thirtyDaysAgo, pageable).map(VendorSummary::from);
     }
 
     public void deleteVendor(Long id) {
@@ -1,29 +1,77 @@
 package com.myhalal.eco.service;
 
+import com.myhalal.eco.dto.BulkCompleteRequest;
+import com.myhalal.eco.dto.BulkInitiateRequest;
+import com.myhalal.eco.dto.VendorVerificationSummary;
 import com.myhalal.eco.entity.VendorVerification;
 import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.export.ExportFormat;
+import com.myhalal.eco.export.RecordStreamWriter;
+import com.myhalal.eco.index.ExpiryEntry;
+import com.myhalal.eco.index.QueuedVerification;
 import com.myhalal.eco.repository.VendorVerificationRepository;
 import com.myhalal.eco.repository.VendorRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class VendorVerificationService {
 
+    private static final int ID_CHUNK_SIZE = 1000;
+
     private final VendorVerificationRepository verificationRepository;
     private final VendorRepository vendorRepository;
     private final VendorService vendorService;
+    private final ExpiryTrackingService expiryTracking;
+    private final VerificationQueueService verificationQueue;
+    private final ReviewerAssignmentService reviewerAssignment;
+    private final VerificationMetricsService verificationMetrics;
+    private final ComplianceService complianceService;
+    private final RecordStreamWriter recordStreamWriter;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${verification.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${verification.bulk.max-items:10000}")
+    private int bulkMaxItems;
+
+    @Value("${verification.transition.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${verification.transition.retry-backoff-ms:5}")
+    private long retryBackoffMs;
 
     @Transactional
     public VendorVerification initiateVerification(Long vendorId, String verificationType, String initiatedBy) {
@@ -32,15 +80,98 @@ public class VendorVerificationService {
         Vendor vendor = vendorRepository.findById(vendorId)
             .orElseThrow(() -> new RuntimeException("Vendor not found"));
         
+        VendorVerification verification = newVerification(vendor, verificationType, initiatedBy,
+            VendorVerification.Priority.MEDIUM);
+        VendorVerification savedVerification = verificationRepository.save(verification);
+        placed(savedVerification);
+        return savedVerification;
+    }
+
+    // One transaction per chunk: vendors are loaded with a single IN query and the rows go out as
+    // JDBC batches using pooled sequence values. Vendors that are missing or already have an open
+    // verification of the same type are reported per item rather than failing the request.
+    public Map<String, Object> initiateVerifications(BulkInitiateRequest request) {
+        checkBulkSize(request.vendorIds().size());
+        log.info("Bulk initiating {} verifications of type: {}", request.vendorIds().size(), request.verificationType());
+        
+        VendorVerification.Priority priority = request.priority() != null
+            ? request.priority()
+            : VendorVerification.Priority.MEDIUM;
+        Set<Long> seen = new HashSet<>();
+        List<Map<String, Object>> results = new ArrayList<>(request.vendorIds().size());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int start = 0; start < request.vendorIds().size(); start += bulkChunkSize) {
+            List<Long> chunk = request.vendorIds().subList(start,
+                Math.min(start + bulkChunkSize, request.vendorIds().size()));
+            results.addAll(transaction.execute(status -> initiateChunk(chunk, seen, request, priority)));
+        }
+        return bulkSummary(results);
+    }
+
+    private List<Map<String, Object>> initiateChunk(List<Long> vendorIds, Set<Long> seen, BulkInitiateRequest request,
+                                                    VendorVerification.Priority priority) {
+        Map<Long, Vendor> vendors = vendorRepository.findAllById(vendorIds).stream()
+            .collect(Collectors.toMap(Vendor::getVendorId, Function.identity()));
+        Set<Long> open = new HashSet<>(verificationRepository.findVendorIdsWithVerification(vendorIds,
+            request.verificationType(), VendorVerification.OPEN_STATUSES));
+        
+        List<Map<String, Object>> results = new ArrayList<>(vendorIds.size());
+        List<VendorVerification> verifications = new ArrayList<>(vendorIds.size());
+        for (Long vendorId : vendorIds) {
+            Vendor vendor = vendorId != null ? vendors.get(vendorId) : null;
+            if (vendorId == null || !seen.add(vendorId)) {
+                results.add(itemError("vendorId", vendorId, "Duplicate vendor ID"));
+            } else if (vendor == null) {
+                results.add(itemError("vendorId", vendorId, "Vendor not found"));
+            } else if (open.contains(vendorId)) {
+                results.add(itemError("vendorId", vendorId, "Verification already open"));
+            } else {
+                verifications.add(newVerification(vendor, request.verificationType(), request.initiatedBy(), priority));
+                results.add(null);
+            }
+        }
+        
+        verificationRepository.saveAllAndFlush(verifications);
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                VendorVerification verification = verifications.get(next++);
+                placed(verification);
+                results.set(i, itemResult("vendorId", verification.getVendor().getVendorId(), verification));
+            }
+        }
+        return results;
+    }
+
+    private VendorVerification newVerification(Vendor vendor, String verificationType, String initiatedBy,
+                                               VendorVerification.Priority priority) {
         VendorVerification verification = new VendorVerification();
         verification.setVendor(vendor);
         verification.setVerificationType(verificationType);
         verification.setStatus(VendorVerification.VerificationStatus.PENDING);
-        verification.setPriority(VendorVerification.Priority.MEDIUM);
+        verification.setPriority(priority);
         verification.setInitiatedBy(initiatedBy);
         verification.setInitiatedDate(LocalDateTime.now());
+        verification.setEstimatedCompletionTimeHours(verificationQueue.slaHours(priority));
         
-        return verificationRepository.save(verification);
+        // Goes straight to a reviewer with spare capacity; otherwise waits in the queue
+        String reviewer = reviewerAssignment.reserve(verificationType);
+        if (reviewer != null) {
+            verification.setAssignedTo(reviewer);
+            verification.setStatus(VendorVerification.VerificationStatus.IN_PROGRESS);
+            verification.setAssignedDate(verification.getInitiatedDate());
+        }
+        return verification;
+    }
+
+    private void placed(VendorVerification verification) {
+        if (verification.getAssignedTo() == null) {
+            verificationQueue.enqueue(verification);
+        } else {
+            log.info("Verification ID: {} auto-assigned to: {}", verification.getVerificationId(),
+                verification.getAssignedTo());
+            recordAssignment(verification);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -54,47 +185,191 @@ public class VendorVerificationService {
         return verificationRepository.findByVendorId(vendorId);
     }
 
-    @Transactional
     public VendorVerification assignVerification(Long verificationId, String assignedTo) {
         log.info("Assigning verification ID: {} to: {}", verificationId, assignedTo);
         
-        VendorVerification verification = getVerification(verificationId);
-        verification.setAssignedTo(assignedTo);
-        verification.setStatus(VendorVerification.VerificationStatus.IN_PROGRESS);
-        verification.setAssignedDate(LocalDateTime.now());
-        
-        return verificationRepository.save(verification);
+        return withRetry(verificationId, () -> {
+            VendorVerification verification = getVerification(verificationId);
+            String previous = activeReviewer(verification);
+            boolean firstAssignment = verification.isPending();
+            verification.transitionTo(VendorVerification.VerificationStatus.IN_PROGRESS);
+            verification.setAssignedTo(assignedTo);
+            verification.setAssignedDate(LocalDateTime.now());
+            
+            VendorVerification savedVerification = verificationRepository.saveAndFlush(verification);
+            if (!assignedTo.equals(previous)) {
+                reviewerAssignment.released(previous);
+                reviewerAssignment.assigned(assignedTo);
+            }
+            verificationQueue.dequeue(verificationId);
+            if (firstAssignment) {
+                recordAssignment(savedVerification);
+            }
+            return savedVerification;
+        });
     }
 
+    // Hands the most urgent unassigned verification to the reviewer, skipping entries another
+    // reviewer or node claimed first. Polled entries go back in the queue if this transaction rolls back.
     @Transactional
-    public VendorVerification completeVerification(Long verificationId, boolean approved, String verifiedBy, String notes) {
+    public Optional<VendorVerification> claimNextVerification(String reviewer) {
+        QueuedVerification next;
+        while ((next = verificationQueue.poll()) != null) {
+            int claimed = verificationRepository.claim(next.id(), reviewer, LocalDateTime.now(),
+                VendorVerification.VerificationStatus.PENDING, VendorVerification.VerificationStatus.IN_PROGRESS);
+            if (claimed == 1) {
+                reviewerAssignment.assigned(reviewer);
+                log.info("Verification ID: {} claimed by: {}", next.id(), reviewer);
+                VendorVerification claimedVerification = getVerification(next.id());
+                recordAssignment(claimedVerification);
+                return Optional.of(claimedVerification);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<Map<String, Object>> getVerificationQueue(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        return verificationQueue.peek(limit).stream()
+            .map(entry -> verificationQueue.describe(entry, now))
+            .toList();
+    }
+
+    // Only the transaction that moves the row out of its open state commits, so the vendor is
+    // verified once however many reviewers complete the same verification concurrently
+    public VendorVerification completeVerification(Long verificationId, boolean approved, String verifiedBy,
+                                                   String notes, LocalDateTime expiryDate) {
         log.info("Completing verification ID: {} by: {}", verificationId, verifiedBy);
         
-        VendorVerification verification = getVerification(verificationId);
-        verification.setStatus(approved ? 
-            VendorVerification.VerificationStatus.COMPLETED : 
-            VendorVerification.VerificationStatus.REJECTED);
-        verification.setCompletedBy(verifiedBy);
-        verification.setCompletedDate(LocalDateTime.now());
-        verification.setNotes(notes);
+        return withRetry(verificationId, () -> {
+            VendorVerification verification = getVerification(verificationId);
+            String reviewer = activeReviewer(verification);
+            verification.transitionTo(approved ? 
+                VendorVerification.VerificationStatus.COMPLETED : 
+                VendorVerification.VerificationStatus.REJECTED);
+            applyCompletion(verification, verifiedBy, notes, approved ? expiryDate : null, LocalDateTime.now());
+            
+            VendorVerification completedVerification = verificationRepository.saveAndFlush(verification);
+            afterCompletion(completedVerification, reviewer, verifiedBy);
+            
+            // An approved re-verification always refreshes verifiedDate. It is only skipped when another
+            // approval stamped the vendor after this one was opened; re-stamping would contend on the row
+            if (approved && !verifiedSince(verification.getVendor(), verification.getInitiatedDate())) {
+                vendorService.verifyVendor(verification.getVendor().getVendorId(), verifiedBy);
+            }
+            
+            return completedVerification;
+        });
+    }
+
+    // Completes a chunk per transaction with batched versioned updates, then marks the chunk's
+    // vendors verified in one set update. A chunk that hits a concurrent change is replayed item by
+    // item through completeVerification, which retries conflicts on its own.
+    public Map<String, Object> completeVerifications(BulkCompleteRequest request) {
+        checkBulkSize(request.verificationIds().size());
+        log.info("Bulk completing {} verifications by: {}", request.verificationIds().size(), request.verifiedBy());
         
-        VendorVerification completedVerification = verificationRepository.save(verification);
+        Set<Long> seen = new HashSet<>();
+        List<Map<String, Object>> results = new ArrayList<>(request.verificationIds().size());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int start = 0; start < request.verificationIds().size(); start += bulkChunkSize) {
+            List<Long> chunk = request.verificationIds().subList(start,
+                Math.min(start + bulkChunkSize, request.verificationIds().size()));
+            Set<Long> seenBefore = new HashSet<>(seen);
+            try {
+                results.addAll(transaction.execute(status -> completeChunk(chunk, seen, request)));
+            } catch (OptimisticLockingFailureException e) {
+                log.debug("Conflict in bulk completion chunk, completing items individually");
+                seen.clear();
+                seen.addAll(seenBefore);
+                for (Long verificationId : chunk) {
+                    results.add(completeOne(verificationId, seen, request));
+                }
+            }
+        }
+        return bulkSummary(results);
+    }
+
+    private List<Map<String, Object>> completeChunk(List<Long> verificationIds, Set<Long> seen,
+                                                    BulkCompleteRequest request) {
+        Map<Long, VendorVerification> byId = verificationRepository.findAllWithVendorByIdIn(verificationIds).stream()
+            .collect(Collectors.toMap(VendorVerification::getVerificationId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
         
-        if (approved) {
-            vendorService.verifyVendor(verification.getVendor().getVendorId(), verifiedBy);
+        List<Map<String, Object>> results = new ArrayList<>(verificationIds.size());
+        List<VendorVerification> completed = new ArrayList<>(verificationIds.size());
+        List<String> reviewers = new ArrayList<>(verificationIds.size());
+        for (Long verificationId : verificationIds) {
+            VendorVerification verification = verificationId != null ? byId.get(verificationId) : null;
+            if (verificationId == null || !seen.add(verificationId)) {
+                results.add(itemError("verificationId", verificationId, "Duplicate verification ID"));
+                continue;
+            }
+            if (verification == null) {
+                results.add(itemError("verificationId", verificationId, "Verification not found"));
+                continue;
+            }
+            String reviewer = activeReviewer(verification);
+            try {
+                verification.transitionTo(request.approved() ?
+                    VendorVerification.VerificationStatus.COMPLETED :
+                    VendorVerification.VerificationStatus.REJECTED);
+            } catch (RuntimeException e) {
+                results.add(itemError("verificationId", verificationId, e.getMessage()));
+                continue;
+            }
+            applyCompletion(verification, request.verifiedBy(), request.notes(),
+                request.approved() ? request.expiryDate() : null, now);
+            completed.add(verification);
+            reviewers.add(reviewer);
+            results.add(itemResult("verificationId", verificationId, verification));
         }
         
-        return completedVerification;
+        verificationRepository.saveAllAndFlush(completed);
+        Set<Long> vendorIds = new HashSet<>();
+        for (int i = 0; i < completed.size(); i++) {
+            VendorVerification verification = completed.get(i);
+            afterCompletion(verification, reviewers.get(i), request.verifiedBy());
+            if (request.approved() && !verifiedSince(verification.getVendor(), verification.getInitiatedDate())) {
+                vendorIds.add(verification.getVendor().getVendorId());
+            }
+        }
+        if (!vendorIds.isEmpty()) {
+            vendorRepository.markVendorsAsVerified(vendorIds, request.verifiedBy(), now,
+                Vendor.VendorStatus.APPROVED, Vendor.VendorStatus.ACTIVE);
+        }
+        return results;
+    }
+
+    private Map<String, Object> completeOne(Long verificationId, Set<Long> seen, BulkCompleteRequest request) {
+        if (verificationId == null || !seen.add(verificationId)) {
+            return itemError("verificationId", verificationId, "Duplicate verification ID");
+        }
+        try {
+            VendorVerification verification = completeVerification(verificationId, request.approved(),
+                request.verifiedBy(), request.notes(), request.expiryDate());
+            return itemResult("verificationId", verificationId, verification);
+        } catch (RuntimeException e) {
+            return itemError("verificationId", verificationId, e.getMessage());
+        }
     }
 
-    @Transactional
     public VendorVerification updatePriority(Long verificationId, VendorVerification.Priority priority) {
         log.info("Updating priority for verification ID: {} to: {}", verificationId, priority);
         
-        VendorVerification verification = getVerification(verificationId);
-        verification.setPriority(priority);
-        
-        return verificationRepository.save(verification);
+        return withRetry(verificationId, () -> {
+            VendorVerification verification = getVerification(verificationId);
+            verification.setPriority(priority);
+            if (verification.isPending()) {
+                verification.setEstimatedCompletionTimeHours(verificationQueue.slaHours(priority));
+            }
+            
+            VendorVerification savedVerification = verificationRepository.saveAndFlush(verification);
+            if (savedVerification.isPending()) {
+                verificationQueue.enqueue(savedVerification);
+            }
+            return savedVerification;
+        });
     }
 
     @Transactional(readOnly = true)
@@ -102,16 +377,48 @@ public class VendorVerificationService {
         return verificationRepository.findOverdueVerifications(LocalDateTime.now());
     }
 
+    @Transactional(readOnly = true)
+    public long exportOverdueVerifications(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<VendorVerificationSummary> rows = verificationRepository.streamOverdueSummaries(LocalDateTime.now())) {
+            return recordStreamWriter.write(rows, VendorVerificationSummary.class, format, output);
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<VendorVerification> getExpiringVerifications(int daysThreshold) {
         LocalDateTime startDate = LocalDateTime.now();
         LocalDateTime endDate = startDate.plusDays(daysThreshold);
-        return verificationRepository.findExpiringVerifications(startDate, endDate);
+        if (!expiryTracking.isLoaded()) {
+            return verificationRepository.findExpiringVerifications(startDate, endDate);
+        }
+
+        List<ExpiryEntry> entries = expiryTracking.getExpiringVerifications(startDate, endDate);
+        List<VendorVerification> verifications = new ArrayList<>(entries.size());
+        for (int start = 0; start < entries.size(); start += ID_CHUNK_SIZE) {
+            List<ExpiryEntry> chunk = entries.subList(start, Math.min(start + ID_CHUNK_SIZE, entries.size()));
+            Map<Long, VendorVerification> byId = verificationRepository
+                .findAllById(chunk.stream().map(ExpiryEntry::id).toList()).stream()
+                .collect(Collectors.toMap(VendorVerification::getVerificationId, Function.identity()));
+            for (ExpiryEntry entry : chunk) {
+                VendorVerification verification = byId.get(entry.id());
+                if (verification != null) {
+                    verifications.add(verification);
+                }
+            }
+        }
+        return verifications;
     }
 
+    // Served in queue order (SLA due date) rather than the PRIORITY column, which sorts alphabetically
     @Transactional(readOnly = true)
     public List<VendorVerification> getHighPriorityVerifications(int limit) {
-        return verificationRepository.findHighPriorityPendingVerifications(limit);
+        if (!verificationQueue.isLoaded()) {
+            return verificationRepository.findHighPriorityPendingVerifications(limit);
+        }
+        List<Long> ids = verificationQueue.peek(limit).stream().map(QueuedVerification::id).toList();
+        Map<Long, VendorVerification> byId = verificationRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(VendorVerification::getVerificationId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
     @Transactional(readOnly = true)
@@ -131,16 +438,131 @@ public class VendorVerificationService {
         return stats;
     }
 
-    @Transactional
     public void cancelVerification(Long verificationId, String cancelledBy, String reason) {
         log.info("Cancelling verification ID: {} by: {}", verificationId, cancelledBy);
         
-        VendorVerification verification = getVerification(verificationId);
-        verification.setStatus(VendorVerification.VerificationStatus.CANCELLED);
-        verification.setNotes(reason);
-        verification.setUpdatedBy(cancelledBy);
-        verification.setUpdatedDate(LocalDateTime.now());
-        
-        verificationRepository.save(verification);
+        withRetry(verificationId, () -> {
+            VendorVerification verification = getVerification(verificationId);
+            String reviewer = activeReviewer(verification);
+            verification.transitionTo(VendorVerification.VerificationStatus.CANCELLED);
+            verification.setNotes(reason);
+            verification.setUpdatedBy(cancelledBy);
+            verification.setUpdatedDate(LocalDateTime.now());
+            
+            trackExpiry(verificationRepository.saveAndFlush(verification));
+            reviewerAssignment.released(reviewer);
+            verificationQueue.dequeue(verificationId);
+            return null;
+        });
+    }
+
+    public Map<String, Object> getSlaMetrics(Integer windowMinutes) {
+        return verificationMetrics.getMetrics(windowMinutes);
+    }
+
+    private static void applyCompletion(VendorVerification verification, String verifiedBy, String notes,
+                                        LocalDateTime expiryDate, LocalDateTime completedDate) {
+        verification.setCompletedBy(verifiedBy);
+        verification.setCompletedDate(completedDate);
+        verification.setActualCompletionTimeHours(elapsedHours(verification.getInitiatedDate(), completedDate));
+        verification.setNotes(notes);
+        if (expiryDate != null) {
+            verification.setExpiryDate(expiryDate);
+        }
+    }
+
+    private void afterCompletion(VendorVerification verification, String reviewer, String verifiedBy) {
+        reviewerAssignment.released(reviewer);
+        trackExpiry(verification);
+        verificationQueue.dequeue(verification.getVerificationId());
+        complianceService.vendorChanged(verification.getVendor().getVendorId());
+        verificationMetrics.completed(verification.getVerificationType(),
+            verification.getAssignedTo() != null ? verification.getAssignedTo() : verifiedBy,
+            verification.getInitiatedDate(), verification.getAssignedDate(), verification.getCompletedDate());
+    }
+
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxItems) {
+            throw new RuntimeException("Bulk requests are limited to " + bulkMaxItems + " items");
+        }
+    }
+
+    private static Map<String, Object> itemResult(String key, Long id, VendorVerification verification) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(key, id);
+        result.put("verificationId", verification.getVerificationId());
+        result.put("status", verification.getStatus());
+        result.put("assignedTo", verification.getAssignedTo());
+        return result;
+    }
+
+    private static Map<String, Object> itemError(String key, Long id, String error) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(key, id);
+        result.put("error", error);
+        return result;
+    }
+
+    private static Map<String, Object> bulkSummary(List<Map<String, Object>> results) {
+        long failed = results.stream().filter(result -> result.containsKey("error")).count();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requested", results.size());
+        summary.put("succeeded", results.size() - failed);
+        summary.put("failed", failed);
+        summary.put("results", results);
+        return summary;
+    }
+
+    // Runs a read-modify-write in its own transaction; the @Version check turns a concurrent update
+    // into a conflict, and the whole unit is retried against fresh state. Status rules are checked
+    // again on every attempt, so a retry can fail with a transition error but never repeats work.
+    // Inside a caller's transaction there is nothing safe to retry, so it runs once.
+    private <T> T withRetry(Long verificationId, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Giving up on verification ID: {} after {} conflicting updates", verificationId, attempt);
+                    throw new RuntimeException("Verification was modified concurrently, please retry");
+                }
+                log.debug("Conflicting update on verification ID: {}, retrying (attempt {})", verificationId, attempt);
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(1, retryBackoffMs * 1_000_000L * attempt + 2));
+            }
+        }
+    }
+
+    private void recordAssignment(VendorVerification verification) {
+        verificationMetrics.assigned(verification.getVerificationType(), verification.getAssignedTo(),
+            verification.getInitiatedDate(), verification.getAssignedDate());
+    }
+
+    // Whole hours, rounded up so a verification finished within the first hour reports 1
+    private static Integer elapsedHours(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            return null;
+        }
+        long millis = Math.max(0, from.until(to, ChronoUnit.MILLIS));
+        return (int) Math.min(Integer.MAX_VALUE, (millis + 3_599_999) / 3_600_000);
+    }
+
+    private static boolean verifiedSince(Vendor vendor, LocalDateTime since) {
+        return Boolean.TRUE.equals(vendor.getIsVerified()) && vendor.getVerifiedDate() != null
+            && since != null && !vendor.getVerifiedDate().isBefore(since);
+    }
+
+    private static String activeReviewer(VendorVerification verification) {
+        return verification.getStatus() == VendorVerification.VerificationStatus.IN_PROGRESS
+            ? verification.getAssignedTo()
+            : null;
+    }
+
+    private void trackExpiry(VendorVerification verification) {
+        expiryTracking.trackVerification(verification.getVerificationId(),
+            verification.getVendor().getVendorId(), verification.getExpiryDate());
     }
 }
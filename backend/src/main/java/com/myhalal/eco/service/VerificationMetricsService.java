@@ -0,0 +1,189 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.index.LatencyHistogram;
+import com.myhalal.eco.index.RollingCounter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// SLA timings for verifications: time waiting for a reviewer (initiated to assigned) and time
+// under review (assigned to completed), per verification type and per reviewer, plus completion
+// throughput over a rolling window. Samples are recorded once the transaction commits.
+@Service
+public class VerificationMetricsService {
+
+    private static final String UNKNOWN = "UNASSIGNED";
+
+    private final SlaStats overall = new SlaStats();
+    private final Map<String, SlaStats> byType = new ConcurrentHashMap<>();
+    private final Map<String, SlaStats> byReviewer = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<PendingSamples> pending = ThreadLocal.withInitial(PendingSamples::new);
+
+    @Value("${verification.metrics.throughput-window-minutes:15}")
+    private int defaultWindowMinutes;
+
+    public void assigned(String verificationType, String reviewer, LocalDateTime initiatedDate,
+                         LocalDateTime assignedDate) {
+        if (initiatedDate == null || assignedDate == null) {
+            return;
+        }
+        record(false, stats(byType, verificationType), stats(byReviewer, reviewer),
+            initiatedDate.until(assignedDate, ChronoUnit.MILLIS));
+    }
+
+    // Review time runs from assignment, or from initiation for verifications completed unassigned
+    public void completed(String verificationType, String reviewer, LocalDateTime initiatedDate,
+                          LocalDateTime assignedDate, LocalDateTime completedDate) {
+        LocalDateTime started = assignedDate != null ? assignedDate : initiatedDate;
+        if (started == null || completedDate == null) {
+            return;
+        }
+        record(true, stats(byType, verificationType), stats(byReviewer, reviewer),
+            started.until(completedDate, ChronoUnit.MILLIS));
+    }
+
+    // Inside a transaction the sample waits in this thread's pending buffer until commit
+    private void record(boolean completion, SlaStats type, SlaStats reviewer, long millis) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.get().add(completion, type, reviewer, millis);
+        } else {
+            apply(completion, type, reviewer, millis, System.currentTimeMillis());
+        }
+    }
+
+    private void apply(boolean completion, SlaStats type, SlaStats reviewer, long millis, long now) {
+        if (completion) {
+            overall.record(millis, now);
+            type.record(millis, now);
+            reviewer.record(millis, now);
+        } else {
+            overall.assignment.record(millis);
+            type.assignment.record(millis);
+            reviewer.assignment.record(millis);
+        }
+    }
+
+    public Map<String, Object> getMetrics(Integer windowMinutes) {
+        int window = Math.min(Math.max(windowMinutes != null ? windowMinutes : defaultWindowMinutes, 1),
+            RollingCounter.MAX_WINDOW_MINUTES);
+        long now = System.currentTimeMillis();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("windowMinutes", window);
+        metrics.put("overall", overall.snapshot(now, window));
+        metrics.put("byType", snapshot(byType, now, window));
+        metrics.put("byReviewer", snapshot(byReviewer, now, window));
+        return metrics;
+    }
+
+    // Lookups for existing keys never allocate; the map only grows on a new type or reviewer
+    private static SlaStats stats(Map<String, SlaStats> stats, String key) {
+        String name = key != null ? key : UNKNOWN;
+        SlaStats existing = stats.get(name);
+        return existing != null ? existing : stats.computeIfAbsent(name, ignored -> new SlaStats());
+    }
+
+    private static Map<String, Object> snapshot(Map<String, SlaStats> stats, long now, int window) {
+        Map<String, Object> snapshot = new TreeMap<>();
+        stats.forEach((key, value) -> snapshot.put(key, value.snapshot(now, window)));
+        return snapshot;
+    }
+
+    // Samples recorded by one thread's current transaction. The buffer registers itself once per
+    // transaction and is reused for the next, so recording a sample allocates nothing; a suspended
+    // transaction keeps its buffer and the inner one gets a fresh one until it resumes.
+    private final class PendingSamples implements TransactionSynchronization {
+
+        private static final int INITIAL_CAPACITY = 16;
+        private static final int MAX_RETAINED_CAPACITY = 1024;
+
+        private boolean[] completions = new boolean[INITIAL_CAPACITY];
+        private SlaStats[] types = new SlaStats[INITIAL_CAPACITY];
+        private SlaStats[] reviewers = new SlaStats[INITIAL_CAPACITY];
+        private long[] millis = new long[INITIAL_CAPACITY];
+        private int size;
+        private boolean registered;
+
+        private void add(boolean completion, SlaStats type, SlaStats reviewer, long sampleMillis) {
+            if (!registered) {
+                TransactionSynchronizationManager.registerSynchronization(this);
+                registered = true;
+            }
+            if (size == millis.length) {
+                resize(size * 2);
+            }
+            completions[size] = completion;
+            types[size] = type;
+            reviewers[size] = reviewer;
+            millis[size] = sampleMillis;
+            size++;
+        }
+
+        @Override
+        public void suspend() {
+            pending.remove();
+        }
+
+        @Override
+        public void resume() {
+            pending.set(this);
+        }
+
+        @Override
+        public void afterCommit() {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < size; i++) {
+                apply(completions[i], types[i], reviewers[i], millis[i], now);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            Arrays.fill(types, 0, size, null);
+            Arrays.fill(reviewers, 0, size, null);
+            if (millis.length > MAX_RETAINED_CAPACITY) {
+                resize(INITIAL_CAPACITY);
+            }
+            size = 0;
+            registered = false;
+        }
+
+        private void resize(int capacity) {
+            completions = Arrays.copyOf(completions, capacity);
+            types = Arrays.copyOf(types, capacity);
+            reviewers = Arrays.copyOf(reviewers, capacity);
+            millis = Arrays.copyOf(millis, capacity);
+        }
+    }
+
+    private static final class SlaStats {
+
+        private final LatencyHistogram assignment = new LatencyHistogram();
+        private final LatencyHistogram review = new LatencyHistogram();
+        private final RollingCounter completions = new RollingCounter();
+
+        private void record(long reviewMillis, long now) {
+            review.record(reviewMillis);
+            completions.increment(now);
+        }
+
+        private Map<String, Object> snapshot(long now, int window) {
+            long completed = completions.sum(now, window);
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("initiatedToAssigned", assignment.snapshot());
+            snapshot.put("assignedToCompleted", review.snapshot());
+            snapshot.put("completedInWindow", completed);
+            snapshot.put("completionsPerHour", Math.round(completed * 60.0 / window * 10) / 10.0);
+            return snapshot;
+        }
+    }
+}
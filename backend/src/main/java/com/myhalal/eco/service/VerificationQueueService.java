@@ -0,0 +1,138 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.VendorVerification;
+import com.myhalal.eco.index.QueuedVerification;
+import com.myhalal.eco.index.VerificationQueue;
+import com.myhalal.eco.repository.VendorVerificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// In-memory backlog of PENDING verifications, ordered by SLA due date. Kept current from the
+// verification service after each commit and resynced from the database on a schedule; claims
+// are confirmed with a conditional update, so a stale entry is skipped rather than double-assigned.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VerificationQueueService {
+
+    private final VendorVerificationRepository verificationRepository;
+
+    private final VerificationQueue queue = new VerificationQueue();
+
+    private volatile boolean loaded;
+
+    @Value("${verification.sla-hours.urgent:4}")
+    private long urgentSlaHours;
+
+    @Value("${verification.sla-hours.high:24}")
+    private long highSlaHours;
+
+    @Value("${verification.sla-hours.medium:72}")
+    private long mediumSlaHours;
+
+    @Value("${verification.sla-hours.low:168}")
+    private long lowSlaHours;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${verification.queue.resync-cron:0 */10 * * * *}")
+    public void resync() {
+        LocalDateTime snapshotStart = LocalDateTime.now();
+        List<Object[]> rows = verificationRepository.findQueueEntries(VendorVerification.VerificationStatus.PENDING);
+        Set<Long> ids = new HashSet<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            QueuedVerification entry = entry((Long) row[0], (Long) row[1], (String) row[2],
+                (VendorVerification.Priority) row[3], (LocalDateTime) row[4]);
+            queue.put(entry);
+            ids.add(entry.id());
+        }
+        queue.retainAll(ids, snapshotStart);
+        if (!loaded) {
+            loaded = true;
+            log.info("Verification queue loaded with {} pending verifications", queue.size());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void enqueue(VendorVerification verification) {
+        QueuedVerification entry = entry(verification.getVerificationId(), verification.getVendor().getVendorId(),
+            verification.getVerificationType(), verification.getPriority(), verification.getInitiatedDate());
+        TransactionCallbacks.afterCommit(() -> queue.put(entry));
+    }
+
+    public void dequeue(Long verificationId) {
+        TransactionCallbacks.afterCommit(() -> queue.remove(verificationId));
+    }
+
+    // Takes the most urgent entry out of the queue; it goes back in if the caller's transaction rolls back
+    public QueuedVerification poll() {
+        QueuedVerification next = queue.poll();
+        if (next != null) {
+            TransactionCallbacks.onRollback(() -> queue.put(next));
+        }
+        return next;
+    }
+
+    // Immediate removal for callers that have already claimed the row themselves
+    public void remove(Long verificationId) {
+        queue.remove(verificationId);
+    }
+
+    public List<QueuedVerification> peek(int limit) {
+        return queue.peek(limit);
+    }
+
+    public Map<String, Object> describe(QueuedVerification entry, LocalDateTime now) {
+        Duration sla = slaFor(entry.priority());
+        Duration age = Duration.between(entry.initiatedDate(), now);
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("verificationId", entry.id());
+        view.put("vendorId", entry.vendorId());
+        view.put("verificationType", entry.verificationType());
+        view.put("priority", entry.priority());
+        view.put("initiatedDate", entry.initiatedDate());
+        view.put("dueDate", entry.dueDate());
+        view.put("slaConsumed", Math.round(age.toMillis() * 1000.0 / sla.toMillis()) / 1000.0);
+        view.put("overdue", now.isAfter(entry.dueDate()));
+        return view;
+    }
+
+    public int slaHours(VendorVerification.Priority priority) {
+        return (int) slaFor(priority != null ? priority : VendorVerification.Priority.MEDIUM).toHours();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private QueuedVerification entry(Long id, Long vendorId, String verificationType,
+                                     VendorVerification.Priority priority, LocalDateTime initiatedDate) {
+        VendorVerification.Priority effective = priority != null ? priority : VendorVerification.Priority.MEDIUM;
+        return new QueuedVerification(id, vendorId, verificationType, effective, initiatedDate,
+            initiatedDate.plus(slaFor(effective)));
+    }
+
+    private Duration slaFor(VendorVerification.Priority priority) {
+        return Duration.ofHours(switch (priority) {
+            case URGENT -> urgentSlaHours;
+            case HIGH -> highSlaHours;
+            case MEDIUM -> mediumSlaHours;
+            case LOW -> lowSlaHours;
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.myhalal.eco.storage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CompressionStats {
+
+    private final LongAdder decodedBytes = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAdder decodedFrames = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+
+    public void recordDecode(long bytes, long nanos) {
+        decodedBytes.add(bytes);
+        decodeNanos.add(nanos);
+        decodedFrames.increment();
+    }
+
+    public void recordEncode(long bytes, long nanos) {
+        encodedBytes.add(bytes);
+        encodeNanos.add(nanos);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("decodedBytes", decodedBytes.sum());
+        snapshot.put("decodedFrames", decodedFrames.sum());
+        snapshot.put("decodeMBps", throughput(decodedBytes.sum(), decodeNanos.sum()));
+        snapshot.put("encodedBytes", encodedBytes.sum());
+        snapshot.put("encodeMBps", throughput(encodedBytes.sum(), encodeNanos.sum()));
+        return snapshot;
+    }
+
+    private static double throughput(long bytes, long nanos) {
+        return nanos == 0 ? 0.0 : bytes / (1024.0 * 1024.0) / (nanos / 1_000_000_000.0);
+    }
+}
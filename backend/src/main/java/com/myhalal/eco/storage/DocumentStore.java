@@ -0,0 +1,36 @@
+package com.myhalal.eco.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface DocumentStore {
+
+    // May move the staged file into place; callers delete it afterwards if it is still there
+    void put(String key, Path stagedFile) throws IOException;
+
+    void put(String key, InputStream content, long size) throws IOException;
+
+    InputStream get(String key) throws IOException;
+
+    InputStream getRange(String key, long offset, long length) throws IOException;
+
+    // Throws NoSuchFileException when the key is absent
+    long size(String key) throws IOException;
+
+    boolean exists(String key);
+
+    void delete(String key) throws IOException;
+
+    String location(String key);
+
+    // Set only by stores backed by the local filesystem, which enables zero-copy reads
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    static String shardedKey(String key) {
+        return key.substring(0, 2) + "/" + key.substring(2, 4) + "/" + key;
+    }
+}
@@ -0,0 +1,282 @@
+package com.myhalal.eco.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Seekable compressed layout: a fixed header, one int per frame with its compressed length
+// (negative when the frame was stored raw because it did not shrink), then the frames.
+// Every frame is an independent raw-deflate stream, so a range read only inflates the frames it covers.
+public final class FramedCompression {
+
+    private static final int MAGIC = 0x4D485A31;
+    public static final int HEADER_SIZE = 24;
+
+    private FramedCompression() {
+    }
+
+    public static long compress(Path source, long size, Path target, int level, int frameSize) throws IOException {
+        int frameCount = (int) ((size + frameSize - 1) / frameSize);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 4 * frameCount);
+        header.putInt(MAGIC).put((byte) level).put(new byte[3]).putInt(frameSize).putLong(size).putInt(frameCount);
+
+        byte[] input = new byte[frameSize];
+        byte[] output = new byte[frameSize];
+        Deflater deflater = new Deflater(level, true);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            out.position(header.capacity());
+            for (int frame = 0; frame < frameCount; frame++) {
+                int length = readFully(in, input, (int) Math.min(frameSize, size - (long) frame * frameSize));
+
+                int compressed = deflateFrame(deflater, input, length, output);
+                if (compressed < length) {
+                    header.putInt(compressed);
+                    writeFully(out, ByteBuffer.wrap(output, 0, compressed));
+                } else {
+                    header.putInt(-length);
+                    writeFully(out, ByteBuffer.wrap(input, 0, length));
+                }
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                out.write(header, header.position());
+            }
+            out.force(false);
+            return out.size();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Fraction of bytes saved by compressing up to sampleFrames frames spread evenly across the source,
+    // counting frames that would be stored raw at full size; a cheap forecast of what compress achieves
+    public static double sampleSavings(Path source, long size, int level, int frameSize, int sampleFrames)
+            throws IOException {
+        int frameCount = (int) ((size + frameSize - 1) / frameSize);
+        int samples = Math.min(sampleFrames, frameCount);
+        byte[] input = new byte[frameSize];
+        byte[] output = new byte[frameSize];
+        long original = 0;
+        long stored = 0;
+        Deflater deflater = new Deflater(level, true);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            for (int sample = 0; sample < samples; sample++) {
+                long offset = (long) sample * frameCount / samples * frameSize;
+                in.position(offset);
+                int length = readFully(in, input, (int) Math.min(frameSize, size - offset));
+                original += length;
+                stored += deflateFrame(deflater, input, length, output);
+            }
+        } finally {
+            deflater.end();
+        }
+        return original == 0 ? 0.0 : 1.0 - (double) stored / original;
+    }
+
+    public static Index readIndex(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(input);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a framed compressed object");
+        }
+        int level = data.readUnsignedByte();
+        data.skipNBytes(3);
+        int frameSize = data.readInt();
+        long originalSize = data.readLong();
+        int frameCount = data.readInt();
+        int[] lengths = new int[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            lengths[i] = data.readInt();
+        }
+        return new Index(level, frameSize, originalSize, lengths);
+    }
+
+    // Two small ranged reads: the fixed header tells how long the frame table is
+    public static Index readIndex(DocumentStore store, String key) throws IOException {
+        byte[] header;
+        try (InputStream input = store.getRange(key, 0, HEADER_SIZE)) {
+            header = input.readNBytes(HEADER_SIZE);
+        }
+        int frameCount = ByteBuffer.wrap(header, HEADER_SIZE - 4, 4).getInt();
+        try (InputStream table = store.getRange(key, HEADER_SIZE, 4L * frameCount)) {
+            return readIndex(new SequenceInputStream(new ByteArrayInputStream(header), table));
+        }
+    }
+
+    // Decodes from a stream positioned at firstFrame, dropping skip bytes and stopping after length bytes
+    public static InputStream decode(InputStream frames, Index index, int firstFrame, long skip, long length,
+                                     CompressionStats stats) {
+        return new FrameInputStream(frames, index, firstFrame, skip, length, stats);
+    }
+
+    public record Index(int level, int frameSize, long originalSize, int[] lengths) {
+
+        public long dataStart() {
+            return HEADER_SIZE + 4L * lengths.length;
+        }
+
+        public long storedLength(int frame) {
+            return Math.abs((long) lengths[frame]);
+        }
+
+        // Offset of a frame relative to dataStart
+        public long frameOffset(int frame) {
+            long offset = 0;
+            for (int i = 0; i < frame; i++) {
+                offset += storedLength(i);
+            }
+            return offset;
+        }
+
+        public long storedSpan(int firstFrame, int lastFrame) {
+            long span = 0;
+            for (int i = firstFrame; i <= lastFrame; i++) {
+                span += storedLength(i);
+            }
+            return span;
+        }
+    }
+
+    // Compressed length of the frame in output, or length when it did not shrink and is stored raw
+    private static int deflateFrame(Deflater deflater, byte[] input, int length, byte[] output) {
+        deflater.reset();
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+        int compressed = 0;
+        while (!deflater.finished() && compressed < length) {
+            compressed += deflater.deflate(output, compressed, length - compressed);
+        }
+        return deflater.finished() && compressed < length ? compressed : length;
+    }
+
+    private static int readFully(FileChannel channel, byte[] buffer, int length) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target) == -1) {
+                throw new EOFException("Source shorter than declared size");
+            }
+        }
+        return length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class FrameInputStream extends InputStream {
+
+        private final InputStream source;
+        private final Index index;
+        private final CompressionStats stats;
+        private final Inflater inflater = new Inflater(true);
+        private final byte[] frame;
+        private byte[] compressed = new byte[0];
+        private int nextFrame;
+        private int position;
+        private int limit;
+        private long skip;
+        private long remaining;
+
+        FrameInputStream(InputStream source, Index index, int firstFrame, long skip, long length,
+                         CompressionStats stats) {
+            this.source = source;
+            this.index = index;
+            this.stats = stats;
+            this.frame = new byte[(int) Math.min(index.frameSize(), Math.max(index.originalSize(), 1))];
+            this.nextFrame = firstFrame;
+            this.skip = skip;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            while (position == limit) {
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            int count = (int) Math.min(Math.min(length, limit - position), remaining);
+            System.arraycopy(frame, position, buffer, offset, count);
+            position += count;
+            remaining -= count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            if (nextFrame >= index.lengths().length) {
+                return false;
+            }
+            int stored = (int) index.storedLength(nextFrame);
+            boolean raw = index.lengths()[nextFrame] < 0;
+            int expected = (int) Math.min(index.frameSize(), index.originalSize() - (long) nextFrame * index.frameSize());
+            nextFrame++;
+
+            long started = System.nanoTime();
+            if (raw) {
+                readStored(frame, stored);
+            } else {
+                if (compressed.length < stored) {
+                    compressed = new byte[stored];
+                }
+                readStored(compressed, stored);
+                inflater.reset();
+                inflater.setInput(compressed, 0, stored);
+                try {
+                    int inflated = 0;
+                    while (inflated < expected && !inflater.finished()) {
+                        int count = inflater.inflate(frame, inflated, expected - inflated);
+                        if (count == 0 && inflater.needsInput()) {
+                            break;
+                        }
+                        inflated += count;
+                    }
+                    if (inflated != expected) {
+                        throw new IOException("Corrupt compressed frame");
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupt compressed frame", e);
+                }
+            }
+            stats.recordDecode(expected, System.nanoTime() - started);
+
+            int drop = (int) Math.min(skip, expected);
+            skip -= drop;
+            position = drop;
+            limit = expected;
+            return true;
+        }
+
+        private void readStored(byte[] target, int length) throws IOException {
+            if (source.readNBytes(target, 0, length) != length) {
+                throw new EOFException("Truncated compressed object");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            source.close();
+        }
+    }
+}
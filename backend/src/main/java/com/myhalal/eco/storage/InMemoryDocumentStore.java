@@ -0,0 +1,140 @@
+package com.myhalal.eco.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps blobs in direct buffers outside the Java heap; intended for tests and benchmarks
+public class InMemoryDocumentStore implements DocumentStore {
+
+    private final Map<String, ByteBuffer> blobs = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final long maxBytes;
+
+    public InMemoryDocumentStore(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void put(String key, Path stagedFile) throws IOException {
+        try (FileChannel source = FileChannel.open(stagedFile, StandardOpenOption.READ)) {
+            store(key, source, source.size());
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        store(key, Channels.newChannel(content), size);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return new ByteBufferInputStream(buffer(key).duplicate());
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        ByteBuffer view = buffer(key).duplicate();
+        int start = (int) Math.min(offset, view.limit());
+        view.position(start);
+        view.limit((int) Math.min((long) start + length, view.limit()));
+        return new ByteBufferInputStream(view);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return buffer(key).capacity();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return blobs.containsKey(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        ByteBuffer removed = blobs.remove(key);
+        if (removed != null) {
+            usedBytes.addAndGet(-removed.capacity());
+        }
+    }
+
+    @Override
+    public String location(String key) {
+        return "memory:" + key;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    private void store(String key, ReadableByteChannel source, long size) throws IOException {
+        if (blobs.containsKey(key)) {
+            return;
+        }
+        if (size > Integer.MAX_VALUE || usedBytes.addAndGet(size) > maxBytes) {
+            usedBytes.addAndGet(size > Integer.MAX_VALUE ? 0 : -size);
+            throw new IOException("In-memory document store is full");
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer) == -1) {
+                break;
+            }
+        }
+        if (buffer.hasRemaining()) {
+            usedBytes.addAndGet(-size);
+            throw new IOException("Stream ended before " + size + " bytes were read");
+        }
+        buffer.flip();
+        if (blobs.putIfAbsent(key, buffer.asReadOnlyBuffer()) != null) {
+            usedBytes.addAndGet(-size);
+        }
+    }
+
+    private ByteBuffer buffer(String key) throws NoSuchFileException {
+        ByteBuffer buffer = blobs.get(key);
+        if (buffer == null) {
+            throw new NoSuchFileException(location(key));
+        }
+        return buffer;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.myhalal.eco.storage;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+// Works against AWS S3 or any S3-compatible server (MinIO, LocalStack) via an endpoint override
+public class S3DocumentStore implements DocumentStore {
+
+    private final S3Client client;
+    private final String bucket;
+    private final String prefix;
+
+    public S3DocumentStore(S3Client client, String bucket, String prefix) {
+        this.client = client;
+        this.bucket = bucket;
+        this.prefix = prefix == null || prefix.isEmpty() ? "" : prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    @Override
+    public void put(String key, Path stagedFile) throws IOException {
+        try {
+            client.putObject(putRequest(key), RequestBody.fromFile(stagedFile));
+        } catch (S3Exception e) {
+            throw new IOException("Failed to store " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        try {
+            client.putObject(putRequest(key), RequestBody.fromInputStream(content, size));
+        } catch (S3Exception e) {
+            throw new IOException("Failed to store " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return getObject(GetObjectRequest.builder().bucket(bucket).key(objectKey(key)).build(), key);
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        return getObject(GetObjectRequest.builder()
+            .bucket(bucket)
+            .key(objectKey(key))
+            .range("bytes=" + offset + "-" + (offset + length - 1))
+            .build(), key);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        try {
+            return client.headObject(HeadObjectRequest.builder().bucket(bucket).key(objectKey(key)).build())
+                .contentLength();
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(location(key));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(location(key));
+            }
+            throw new IOException("Failed to stat " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        try {
+            size(key);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(objectKey(key)).build());
+        } catch (S3Exception e) {
+            throw new IOException("Failed to delete " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String location(String key) {
+        return "s3://" + bucket + "/" + objectKey(key);
+    }
+
+    private InputStream getObject(GetObjectRequest request, String key) throws IOException {
+        try {
+            return client.getObject(request);
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(location(key));
+        } catch (S3Exception e) {
+            throw new IOException("Failed to read " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    private PutObjectRequest putRequest(String key) {
+        return PutObjectRequest.builder().bucket(bucket).key(objectKey(key)).build();
+    }
+
+    private String objectKey(String key) {
+        return prefix + DocumentStore.shardedKey(key);
+    }
+}
@@ -0,0 +1,117 @@
+package com.myhalal.eco.config;
+
+import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.service.VendorService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The replica database is left without a schema, so any statement routed there fails with a missing
+// table. A request keeps one entity manager open across its transactions, as open-in-view does; a
+// write after a read-only call must still reach the primary rather than reuse the replica connection.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+    "spring.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+    "documents.search.index-path=target/test-data/search-index-routing"
+})
+@ActiveProfiles("test")
+class ReadWriteRoutingTest {
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final OpenEntityManagerInViewInterceptor openInView = new OpenEntityManagerInViewInterceptor();
+
+    private ServletWebRequest request;
+
+    @BeforeEach
+    void beginRequest() {
+        request = new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(request.getRequest(), request.getResponse()));
+        openInView.setEntityManagerFactory(entityManagerFactory);
+        openInView.preHandle(request);
+    }
+
+    @AfterEach
+    void endRequest() {
+        openInView.afterCompletion(request, null);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void writeAfterReadOnlyCallInTheSameRequestGoesToThePrimary() {
+        assertThat(dataSource).isInstanceOf(ReadWriteRoutingDataSource.class);
+        long replicaConnections = stat("replicaConnections");
+
+        assertThatThrownBy(() -> vendorService.getAllVendors())
+            .isInstanceOf(DataAccessException.class)
+            .hasMessageContaining("not found");
+        assertThat(stat("replicaConnections")).isEqualTo(replicaConnections + 1);
+
+        long primaryConnections = stat("primaryConnections");
+        Vendor vendor = new Vendor();
+        vendor.setName("Routing Vendor");
+        vendor.setContactEmail("routing-" + UUID.randomUUID() + "@example.com");
+        vendor.setBusinessCategory("ROUTING_TEST");
+
+        assertThat(vendorService.createVendor(vendor).getVendorId()).isNotNull();
+        assertThat(stat("primaryConnections")).isEqualTo(primaryConnections + 1);
+        assertThat(stat("replicaConnections")).isEqualTo(replicaConnections + 1);
+    }
+
+    @Test
+    void onlyAPlausibleLastWriteCookiePinsReadsToThePrimary() {
+        long now = System.currentTimeMillis();
+        long pinned = stat("readsPinnedToPrimary");
+
+        withLastWriteCookie(Long.toString(now - 100));
+        assertThat(vendorService.getVendorCount()).isNotNull();
+        assertThat(stat("readsPinnedToPrimary")).isEqualTo(pinned + 1);
+
+        for (String forged : new String[] {Long.toString(now + 86_400_000L), Long.toString(Long.MAX_VALUE),
+                Long.toString(Long.MIN_VALUE), "soon"}) {
+            withLastWriteCookie(forged);
+            long replicaConnections = stat("replicaConnections");
+            assertThatThrownBy(() -> vendorService.getVendorCount()).isInstanceOf(DataAccessException.class);
+            assertThat(stat("replicaConnections")).isEqualTo(replicaConnections + 1);
+        }
+        assertThat(stat("readsPinnedToPrimary")).isEqualTo(pinned + 1);
+    }
+
+    // A fresh request, since the cookie is read once per request
+    private void withLastWriteCookie(String value) {
+        MockHttpServletRequest cookieRequest = new MockHttpServletRequest();
+        cookieRequest.setCookies(new Cookie("ECO_LAST_WRITE", value));
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(cookieRequest, new MockHttpServletResponse()));
+    }
+
+    private long stat(String name) {
+        return (Long) ((ReadWriteRoutingDataSource) dataSource).getStats().get(name);
+    }
+}
@@ -0,0 +1,53 @@
+package com.myhalal.eco.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecordStreamWriterTest {
+
+    record Row(String name, BigDecimal balance, Integer count) {
+    }
+
+    private final RecordStreamWriter writer = new RecordStreamWriter(new ObjectMapper());
+
+    @Test
+    void prefixesTextCellsThatSpreadsheetsWouldEvaluate() throws IOException {
+        String csv = csv(
+            new Row("=HYPERLINK(\"http://evil\",\"x\")", null, null),
+            new Row("+1+1", null, null),
+            new Row("-2+3", null, null),
+            new Row("@SUM(A1)", null, null),
+            new Row("\tTAB", null, null));
+
+        assertThat(csv.split("\r\n")).containsExactly(
+            "name,balance,count",
+            "\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\",,",
+            "'+1+1,,",
+            "'-2+3,,",
+            "'@SUM(A1),,",
+            "'\tTAB,,");
+    }
+
+    @Test
+    void leavesNumbersAndOrdinaryTextAlone() throws IOException {
+        String csv = csv(new Row("Halal Foods, Ltd", new BigDecimal("-12.50"), -3));
+
+        assertThat(csv.split("\r\n")).containsExactly(
+            "name,balance,count",
+            "\"Halal Foods, Ltd\",-12.50,-3");
+    }
+
+    private String csv(Row... rows) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.write(Stream.of(rows), Row.class, ExportFormat.CSV, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package com.myhalal.eco.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewerPoolTest {
+
+    @Test
+    void reactivatedReviewerKeepsWorkAssignedBeforeDeactivation() {
+        ReviewerPool pool = new ReviewerPool();
+        pool.register("amina", Set.of(), 2);
+        assertThat(pool.acquire("HALAL_CERT")).isEqualTo("amina");
+        assertThat(pool.acquire("HALAL_CERT")).isEqualTo("amina");
+
+        pool.unregister("amina");
+        pool.register("amina", Set.of(), 2);
+
+        assertThat(pool.acquire("HALAL_CERT")).isNull();
+        assertThat(inFlight(pool, "amina")).isEqualTo(2);
+    }
+
+    @Test
+    void releasesWhileDeactivatedAreNotLost() {
+        ReviewerPool pool = new ReviewerPool();
+        pool.register("amina", Set.of(), 1);
+        pool.forceAcquire("amina");
+        pool.forceAcquire("amina");
+
+        pool.unregister("amina");
+        pool.release("amina");
+        pool.release("amina");
+        pool.register("amina", Set.of(), 1);
+
+        assertThat(pool.acquire("HALAL_CERT")).isEqualTo("amina");
+    }
+
+    @Test
+    void resetCoversReviewersOutsideTheRoster() {
+        ReviewerPool pool = new ReviewerPool();
+        pool.register("amina", Set.of(), 3);
+        pool.reset(Map.of("amina", 1, "bilal", 2));
+
+        pool.register("bilal", Set.of(), 3);
+
+        assertThat(inFlight(pool, "amina")).isEqualTo(1);
+        assertThat(inFlight(pool, "bilal")).isEqualTo(2);
+    }
+
+    private static Object inFlight(ReviewerPool pool, String username) {
+        return pool.loads().stream()
+            .filter(load -> username.equals(load.get("username")))
+            .findFirst()
+            .map(load -> load.get("inFlight"))
+            .orElseThrow();
+    }
+}
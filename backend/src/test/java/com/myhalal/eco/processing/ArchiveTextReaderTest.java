@@ -0,0 +1,71 @@
+package com.myhalal.eco.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveTextReaderTest {
+
+    private static final String DOCX_BODY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+        + "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><w:body>"
+        + "<w:p><w:r><w:t>Halal</w:t></w:r><w:r><w:tab/><w:t>certificate &amp; licence</w:t></w:r></w:p>"
+        + "<w:p><w:r><w:t>Expires 2027</w:t></w:r></w:p>"
+        + "</w:body></w:document>";
+
+    @Test
+    void readsParagraphTextFromWordDocuments() throws IOException {
+        byte[] docx = zip("[Content_Types].xml", "<Types/>", "word/document.xml", DOCX_BODY);
+
+        String text = ArchiveTextReader.read(new ByteArrayInputStream(docx), 1_000_000, 10_000);
+
+        assertThat(text).isEqualTo("Halal certificate & licence\nExpires 2027\n");
+    }
+
+    @Test
+    void ignoresEntriesThatDoNotHoldBodyText() throws IOException {
+        byte[] zip = zip("notes.xml", "<a><b>secret</b></a>", "image.png", "not xml");
+
+        assertThat(ArchiveTextReader.read(new ByteArrayInputStream(zip), 1_000_000, 10_000)).isNull();
+    }
+
+    @Test
+    void stopsAtTheCharacterLimitAndTheDecodedByteBudget() throws IOException {
+        String longBody = "<w:document xmlns:w=\"w\"><w:body><w:p><w:t>" + "x".repeat(50_000)
+            + "</w:t></w:p></w:body></w:document>";
+        byte[] docx = zip("word/document.xml", longBody);
+
+        assertThat(ArchiveTextReader.read(new ByteArrayInputStream(docx), 1_000_000, 100)).hasSize(100);
+        String budgeted = ArchiveTextReader.read(new ByteArrayInputStream(docx), 1_000, 1_000_000);
+        assertThat(budgeted == null ? 0 : budgeted.length()).isLessThan(1_000);
+    }
+
+    @Test
+    void rejectsExternalEntities() throws IOException {
+        String hostile = "<?xml version=\"1.0\"?><!DOCTYPE d [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+            + "<w:document xmlns:w=\"w\"><w:p><w:t>&x;</w:t></w:p></w:document>";
+        byte[] docx = zip("word/document.xml", hostile);
+
+        String text = ArchiveTextReader.read(new ByteArrayInputStream(docx), 1_000_000, 10_000);
+
+        assertThat(text == null ? "" : text).doesNotContain("root:");
+    }
+
+    private static byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
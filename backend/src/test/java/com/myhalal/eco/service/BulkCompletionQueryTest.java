@@ -0,0 +1,83 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.dto.BulkCompleteRequest;
+import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.repository.VendorRepository;
+import com.myhalal.eco.support.SqlCapture;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A bulk completion chunk reads its verifications and their vendors up front; the number of SELECTs
+// must not grow with the number of distinct vendors in the chunk
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Import(SqlCapture.Config.class)
+class BulkCompletionQueryTest {
+
+    @Autowired
+    private VendorVerificationService verificationService;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    @Test
+    void chunkSelectsDoNotGrowWithItsVendors() {
+        long few = selectsToComplete(2);
+        long many = selectsToComplete(12);
+
+        assertThat(many).isEqualTo(few);
+    }
+
+    // Completes one verification for each of a set of new vendors, with the vendor cache cold
+    private long selectsToComplete(int vendors) {
+        List<Long> verificationIds = new ArrayList<>();
+        for (int i = 0; i < vendors; i++) {
+            verificationIds.add(verificationService.initiateVerification(createVendor(), "BULK-QUERY", "tester")
+                .getVerificationId());
+        }
+        entityManagerFactory.getCache().evictAll();
+        sqlCapture.clear();
+
+        Object completed = verificationService.completeVerifications(
+            new BulkCompleteRequest(verificationIds, true, "bulk-reviewer", "ok", null)).get("succeeded");
+
+        assertThat(completed).isEqualTo((long) vendors);
+        return sqlCapture.statements().stream()
+            .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith("select"))
+            .count();
+    }
+
+    private Long createVendor() {
+        String suffix = UUID.randomUUID().toString();
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Vendor vendor = new Vendor();
+            vendor.setName("Bulk Vendor " + suffix);
+            vendor.setContactEmail("bulk-" + suffix + "@example.com");
+            vendor.setBusinessCategory("BULK_TEST");
+            VendorService.applyNewVendorDefaults(vendor);
+            return vendorRepository.save(vendor).getVendorId();
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.entity.VendorDocument;
+import com.myhalal.eco.repository.VendorDocumentRepository;
+import com.myhalal.eco.repository.VendorRepository;
+import com.myhalal.eco.support.SqlCapture;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// List and summary paths must never select the LOB columns, or every page drags the full document
+// bytes and license text through the persistence context
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Import(SqlCapture.Config.class)
+class LazyLobLoadingTest {
+
+    private static final List<String> LOB_COLUMNS = List.of("business_license", "document_content", "extracted_text");
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private VendorDocumentService documentService;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private VendorDocumentRepository documentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    private Long vendorId;
+
+    @BeforeEach
+    void createVendorWithLargeLobs() {
+        String suffix = UUID.randomUUID().toString();
+        vendorId = new TransactionTemplate(transactionManager).execute(status -> {
+            Vendor vendor = new Vendor();
+            vendor.setName("Lob Vendor " + suffix);
+            vendor.setContactEmail("lob-" + suffix + "@example.com");
+            vendor.setBusinessCategory("LOB_TEST");
+            vendor.setBusinessLicense("L".repeat(200_000));
+            VendorService.applyNewVendorDefaults(vendor);
+            vendor = vendorRepository.save(vendor);
+
+            for (int i = 0; i < 3; i++) {
+                VendorDocument document = new VendorDocument();
+                document.setVendor(vendor);
+                document.setDocumentType("LICENSE");
+                document.setDocumentName("license-" + i + ".pdf");
+                document.setDocumentContent(new byte[500_000]);
+                document.setExtractedText("T".repeat(100_000));
+                document.setProcessingStatus(VendorDocument.ProcessingStatus.COMPLETED);
+                documentRepository.save(document);
+            }
+            return vendor.getVendorId();
+        });
+        sqlCapture.clear();
+    }
+
+    @Test
+    void vendorListsDoNotSelectTheLicenseLob() {
+        assertThat(vendorService.getAllVendors()).isNotEmpty();
+        assertThat(vendorService.getVendorsByCategory("LOB_TEST", PageRequest.of(0, 20))).isNotEmpty();
+        vendorService.getRecentVendors(10);
+        vendorService.searchVendors("Lob Vendor", PageRequest.of(0, 20));
+
+        assertNoLobSelects();
+    }
+
+    @Test
+    void documentSummariesDoNotSelectContentOrText() {
+        assertThat(documentService.getVendorDocuments(vendorId)).hasSize(3);
+        assertThat(documentService.getVendorDocumentsByType(vendorId, "LICENSE")).hasSize(3);
+        assertThat(documentService.getPendingVerificationDocuments(PageRequest.of(0, 20))).isNotEmpty();
+        documentService.getExpiringDocuments(30);
+
+        assertNoLobSelects();
+    }
+
+    @Test
+    void loadingAnEntityLeavesItsLobsUnloadedUntilRead() {
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Vendor vendor = vendorRepository.findById(vendorId).orElseThrow();
+            assertThat(vendor.toString()).doesNotContain("LLLL");
+            assertNoLobSelects();
+
+            assertThat(vendor.getBusinessLicense()).hasSize(200_000);
+            assertThat(sqlCapture.statements()).anyMatch(sql -> sql.toLowerCase(Locale.ROOT).contains("business_license"));
+        });
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    private void assertNoLobSelects() {
+        List<String> selects = sqlCapture.statements().stream()
+            .map(sql -> sql.toLowerCase(Locale.ROOT))
+            .filter(sql -> sql.startsWith("select"))
+            .toList();
+        assertThat(selects).isNotEmpty();
+        for (String column : LOB_COLUMNS) {
+            assertThat(selects).noneMatch(sql -> sql.contains(column));
+        }
+    }
+}
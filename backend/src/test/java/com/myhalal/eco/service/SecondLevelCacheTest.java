@@ -0,0 +1,108 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.repository.VendorRepository;
+import com.myhalal.eco.support.SqlCapture;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cached vendors and cached counts must never outlive a change to the rows behind them, whether the
+// change goes through the entity or through a bulk JPQL update that bypasses the persistence context.
+// Imports SqlCapture only to share LazyLobLoadingTest's context and its search index.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Import(SqlCapture.Config.class)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long vendorId;
+
+    @BeforeEach
+    void createVendor() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String suffix = UUID.randomUUID().toString();
+        vendorId = new TransactionTemplate(transactionManager).execute(status -> {
+            Vendor vendor = new Vendor();
+            vendor.setName("Cache Vendor " + suffix);
+            vendor.setContactEmail("cache-" + suffix + "@example.com");
+            vendor.setBusinessCategory("CACHE_TEST");
+            VendorService.applyNewVendorDefaults(vendor);
+            return vendorRepository.save(vendor).getVendorId();
+        });
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void entityUpdateReplacesTheCachedVendorAndInvalidatesCachedCounts() {
+        long pending = cachedCount(Vendor.VendorStatus.PENDING);
+        load();
+        assertThat(entityManagerFactory.getCache().contains(Vendor.class, vendorId)).isTrue();
+
+        vendorService.updateVendorStatus(vendorId, Vendor.VendorStatus.UNDER_REVIEW);
+
+        long hits = statistics.getSecondLevelCacheHitCount();
+        assertThat(load().getStatus()).isEqualTo(Vendor.VendorStatus.UNDER_REVIEW);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(hits + 1);
+        assertThat(cachedCount(Vendor.VendorStatus.PENDING)).isEqualTo(pending - 1);
+    }
+
+    @Test
+    void bulkUpdateEvictsTheVendorRegionAndCachedCounts() {
+        vendorService.updateVendorStatus(vendorId, Vendor.VendorStatus.APPROVED);
+        long active = cachedCount(Vendor.VendorStatus.ACTIVE);
+        load();
+        assertThat(entityManagerFactory.getCache().contains(Vendor.class, vendorId)).isTrue();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            vendorRepository.markVendorsAsVerified(List.of(vendorId), "cache-test", LocalDateTime.now(),
+                Vendor.VendorStatus.APPROVED, Vendor.VendorStatus.ACTIVE));
+
+        assertThat(entityManagerFactory.getCache().contains(Vendor.class, vendorId)).isFalse();
+        Vendor vendor = load();
+        assertThat(vendor.getIsVerified()).isTrue();
+        assertThat(vendor.getStatus()).isEqualTo(Vendor.VendorStatus.ACTIVE);
+        assertThat(cachedCount(Vendor.VendorStatus.ACTIVE)).isEqualTo(active + 1);
+    }
+
+    private Vendor load() {
+        return new TransactionTemplate(transactionManager).execute(status ->
+            vendorRepository.findById(vendorId).orElseThrow());
+    }
+
+    // Runs the count twice so the second call proves the result is being served from the query cache
+    private long cachedCount(Vendor.VendorStatus status) {
+        long count = vendorRepository.countByStatus(status);
+        long hits = statistics.getQueryCacheHitCount();
+        assertThat(vendorRepository.countByStatus(status)).isEqualTo(count);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+        return count;
+    }
+}
@@ -0,0 +1,202 @@
+package com.myhalal.eco.service;
+
+import com.myhalal.eco.entity.Vendor;
+import com.myhalal.eco.entity.VendorVerification;
+import com.myhalal.eco.repository.VendorRepository;
+import com.myhalal.eco.repository.VendorVerificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Transitions race on the @Version column; withRetry must turn every conflict into either a clean
+// retry or a transition error, never a lost update or a repeated side effect
+// Own database and index: the retry budget override gives this class a context of its own, which
+// lives alongside the shared one in the context cache
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "verification.transition.max-attempts=100",
+    "spring.datasource.url=jdbc:h2:mem:concurrency;DB_CLOSE_DELAY=-1",
+    "documents.search.index-path=target/test-data/search-index-concurrency"
+})
+@ActiveProfiles("test")
+class VerificationConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private VendorVerificationService verificationService;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private VendorVerificationRepository verificationRepository;
+
+    @Autowired
+    private VerificationQueueService verificationQueue;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long vendorId;
+
+    @BeforeEach
+    void createVendor() {
+        String suffix = UUID.randomUUID().toString();
+        vendorId = new TransactionTemplate(transactionManager).execute(status -> {
+            Vendor vendor = new Vendor();
+            vendor.setName("Race Vendor " + suffix);
+            vendor.setContactEmail("race-" + suffix + "@example.com");
+            vendor.setBusinessCategory("RACE_TEST");
+            VendorService.applyNewVendorDefaults(vendor);
+            return vendorRepository.save(vendor).getVendorId();
+        });
+    }
+
+    @Test
+    void concurrentCompletionsOfOneVerificationSucceedOnceAndVerifyTheVendorOnce() throws Exception {
+        Long verificationId = initiate();
+        long vendorVersion = vendor().getVersion();
+
+        List<Future<VendorVerification>> completions = race(THREADS, i -> () ->
+            verificationService.completeVerification(verificationId, true, "reviewer-" + i, "ok", null));
+
+        int succeeded = 0;
+        for (Future<VendorVerification> completion : completions) {
+            try {
+                completion.get();
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(RuntimeException.class);
+            }
+        }
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(verificationRepository.findById(verificationId).orElseThrow().getStatus())
+            .isEqualTo(VendorVerification.VerificationStatus.COMPLETED);
+        Vendor vendor = vendor();
+        assertThat(vendor.getIsVerified()).isTrue();
+        assertThat(vendor.getVersion()).isEqualTo(vendorVersion + 1);
+    }
+
+    @Test
+    void conflictingReassignmentsAreRetriedUntilEveryOneApplies() throws Exception {
+        Long verificationId = initiate();
+        long version = verificationRepository.findById(verificationId).orElseThrow().getVersion();
+
+        for (Future<VendorVerification> update : race(THREADS, i -> () ->
+                verificationService.assignVerification(verificationId, "reviewer-" + i))) {
+            update.get();
+        }
+
+        // Every update committed on its own version; a lost update would leave a gap
+        assertThat(verificationRepository.findById(verificationId).orElseThrow().getVersion())
+            .isEqualTo(version + THREADS);
+    }
+
+    @Test
+    void completionsRacingPriorityUpdatesKeepBothChanges() throws Exception {
+        List<Long> verificationIds = new ArrayList<>();
+        for (int i = 0; i < THREADS / 2; i++) {
+            verificationIds.add(initiate());
+        }
+
+        for (Future<VendorVerification> result : race(THREADS, i -> {
+            Long verificationId = verificationIds.get(i / 2);
+            return i % 2 == 0
+                ? () -> verificationService.completeVerification(verificationId, true, "reviewer", "ok", null)
+                : () -> verificationService.updatePriority(verificationId, VendorVerification.Priority.URGENT);
+        })) {
+            result.get();
+        }
+
+        for (Long verificationId : verificationIds) {
+            VendorVerification verification = verificationRepository.findById(verificationId).orElseThrow();
+            assertThat(verification.getStatus()).isEqualTo(VendorVerification.VerificationStatus.COMPLETED);
+            assertThat(verification.getPriority()).isEqualTo(VendorVerification.Priority.URGENT);
+        }
+    }
+
+    @Test
+    void approvedReverificationRefreshesAnOldVerifiedDate() {
+        LocalDateTime stale = LocalDateTime.now().minusDays(400);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Vendor vendor = vendorRepository.findById(vendorId).orElseThrow();
+            vendor.setIsVerified(true);
+            vendor.setVerifiedDate(stale);
+        });
+        Long first = initiate();
+        Long second = initiate();
+
+        verificationService.completeVerification(first, true, "reviewer", "ok", null);
+        Vendor refreshed = vendor();
+        assertThat(refreshed.getVerifiedDate()).isAfter(stale);
+
+        // The second approval was opened before the first landed, so it has nothing newer to stamp
+        verificationService.completeVerification(second, true, "reviewer", "ok", null);
+        assertThat(vendor().getVersion()).isEqualTo(refreshed.getVersion());
+    }
+
+    @Test
+    void claimRolledBackBeforeCommitLeavesTheVerificationQueued() {
+        initiate();
+        int queued = verificationQueue.size();
+
+        Long claimed = new TransactionTemplate(transactionManager).execute(status -> {
+            Long verificationId = verificationService.claimNextVerification("reviewer").orElseThrow().getVerificationId();
+            status.setRollbackOnly();
+            return verificationId;
+        });
+
+        assertThat(verificationQueue.size()).isEqualTo(queued);
+        assertThat(verificationService.claimNextVerification("reviewer").orElseThrow().getVerificationId())
+            .isEqualTo(claimed);
+    }
+
+    private Long initiate() {
+        return verificationService.initiateVerification(vendorId, "RACE-" + UUID.randomUUID(), "tester")
+            .getVerificationId();
+    }
+
+    private Vendor vendor() {
+        return vendorRepository.findById(vendorId).orElseThrow();
+    }
+
+    private static <T> List<Future<T>> race(int threads, TaskFactory<T> tasks) {
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<T> task = tasks.create(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            return futures;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TaskFactory<T> {
+        Callable<T> create(int index);
+    }
+}
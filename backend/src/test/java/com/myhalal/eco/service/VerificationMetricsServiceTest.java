@@ -0,0 +1,113 @@
+package com.myhalal.eco.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Samples count only once their transaction commits, and recording one inside a transaction must not
+// allocate: bulk completion records hundreds per transaction
+class VerificationMetricsServiceTest {
+
+    private static final LocalDateTime INITIATED = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+    private final VerificationMetricsService metrics = new VerificationMetricsService();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void samplesCountOnlyWhenTheirTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        complete("rolled-back");
+        finish(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        TransactionSynchronizationManager.initSynchronization();
+        complete("committed");
+        complete("committed");
+        finish(TransactionSynchronization.STATUS_COMMITTED);
+
+        complete("no-transaction");
+
+        assertThat(reviewCount("rolled-back")).isZero();
+        assertThat(reviewCount("committed")).isEqualTo(2);
+        assertThat(reviewCount("no-transaction")).isEqualTo(1);
+    }
+
+    @Test
+    void suspendedTransactionKeepsItsSamplesApart() {
+        TransactionSynchronizationManager.initSynchronization();
+        complete("outer");
+        List<TransactionSynchronization> outer = TransactionSynchronizationManager.getSynchronizations();
+        outer.forEach(TransactionSynchronization::suspend);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        complete("inner");
+        finish(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        TransactionSynchronizationManager.initSynchronization();
+        outer.forEach(TransactionSynchronization::resume);
+        outer.forEach(TransactionSynchronizationManager::registerSynchronization);
+        finish(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(reviewCount("outer")).isEqualTo(1);
+        assertThat(reviewCount("inner")).isZero();
+    }
+
+    @Test
+    void recordingInsideATransactionDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        LocalDateTime assigned = INITIATED.plusMinutes(5);
+        LocalDateTime completed = INITIATED.plusHours(2);
+        for (int round = 0; round < 3; round++) {
+            TransactionSynchronizationManager.initSynchronization();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 500; i++) {
+                metrics.assigned("HALAL", "reviewer", INITIATED, assigned);
+                metrics.completed("HALAL", "reviewer", INITIATED, assigned, completed);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            finish(TransactionSynchronization.STATUS_COMMITTED);
+
+            // The first round grows the buffer; a chunk's worth of samples stays within what it retains
+            if (round > 0) {
+                assertThat(allocated).isLessThan(1024);
+            }
+        }
+        assertThat(reviewCount("HALAL")).isEqualTo(1500);
+    }
+
+    private void complete(String verificationType) {
+        metrics.completed(verificationType, "reviewer", INITIATED, INITIATED.plusMinutes(5), INITIATED.plusHours(1));
+    }
+
+    private static void finish(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long reviewCount(String verificationType) {
+        Map<String, Object> byType = (Map<String, Object>) metrics.getMetrics(15).get("byType");
+        Map<String, Object> stats = (Map<String, Object>) byType.get(verificationType);
+        return stats == null ? 0 : (Long) ((Map<String, Object>) stats.get("assignedToCompleted")).get("count");
+    }
+}
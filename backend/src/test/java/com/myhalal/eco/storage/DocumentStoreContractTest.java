@@ -0,0 +1,92 @@
+package com.myhalal.eco.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Behaviour every DocumentStore implementation must share; subclasses supply the store
+abstract class DocumentStoreContractTest {
+
+    static final String KEY = "3f2a9c0d7e4b1a6f8c5d2e9b0a7f4c1d3e6b9a2f5c8d1e4b7a0f3c6d9e2b5a8f";
+
+    @TempDir
+    Path tempDir;
+
+    abstract DocumentStore store();
+
+    @Test
+    void putFromFileThenReadBack() throws IOException {
+        byte[] content = content(300_000);
+        store().put(KEY, stage(content));
+
+        assertThat(store().exists(KEY)).isTrue();
+        assertThat(store().size(KEY)).isEqualTo(content.length);
+        try (InputStream in = store().get(KEY)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void putFromStreamThenReadBack() throws IOException {
+        byte[] content = content(70_000);
+        store().put(KEY, new ByteArrayInputStream(content), content.length);
+
+        try (InputStream in = store().get(KEY)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void rangeReadsReturnExactlyTheRequestedBytes() throws IOException {
+        byte[] content = content(100_000);
+        store().put(KEY, stage(content));
+
+        try (InputStream in = store().getRange(KEY, 12_345, 4_096)) {
+            byte[] range = in.readAllBytes();
+            assertThat(range).hasSize(4_096);
+            assertThat(range).isEqualTo(Arrays.copyOfRange(content, 12_345, 12_345 + 4_096));
+        }
+        try (InputStream in = store().getRange(KEY, content.length - 10, 10)) {
+            assertThat(in.readAllBytes()).hasSize(10);
+        }
+    }
+
+    @Test
+    void missingKeysAreReportedAsNoSuchFile() {
+        assertThat(store().exists(KEY)).isFalse();
+        assertThatThrownBy(() -> store().size(KEY)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void deleteRemovesTheObjectAndIsIdempotent() throws IOException {
+        store().put(KEY, stage(content(1_000)));
+
+        store().delete(KEY);
+        store().delete(KEY);
+
+        assertThat(store().exists(KEY)).isFalse();
+    }
+
+    Path stage(byte[] content) throws IOException {
+        Path staged = Files.createTempFile(tempDir, "staged", ".bin");
+        Files.write(staged, content);
+        return staged;
+    }
+
+    static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+}
@@ -0,0 +1,64 @@
+package com.myhalal.eco.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSystemDocumentStoreTest extends DocumentStoreContractTest {
+
+    private FileSystemDocumentStore store;
+
+    @BeforeEach
+    void createStore() throws IOException {
+        store = new FileSystemDocumentStore(Files.createDirectory(tempDir.resolve("root")).toString());
+    }
+
+    @Override
+    DocumentStore store() {
+        return store;
+    }
+
+    @Test
+    void concurrentStreamPutsOfTheSameKeyDoNotCollide() throws Exception {
+        byte[] content = content(2_000_000);
+        int writers = 8;
+        CyclicBarrier start = new CyclicBarrier(writers);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> puts = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                puts.add(executor.submit(() -> {
+                    start.await();
+                    store.put(KEY, new ByteArrayInputStream(content), content.length);
+                    return null;
+                }));
+            }
+            for (Future<?> put : puts) {
+                put.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (InputStream in = store.get(KEY)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        try (Stream<Path> files = Files.list(store.localPath(KEY).orElseThrow().getParent())) {
+            assertThat(files).containsExactly(store.localPath(KEY).orElseThrow());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.myhalal.eco.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FramedCompressionTest {
+
+    private static final int FRAME_SIZE = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sampleForecastsIncompressibleContent() throws IOException {
+        byte[] content = new byte[64 * FRAME_SIZE];
+        new Random(42).nextBytes(content);
+        Path source = Files.write(dir.resolve("random.bin"), content);
+
+        assertThat(FramedCompression.sampleSavings(source, content.length, 1, FRAME_SIZE, 8)).isEqualTo(0.0);
+    }
+
+    @Test
+    void sampleMatchesFullCompressionOfUniformContent() throws IOException {
+        byte[] content = "halal certificate line\n".repeat(64 * FRAME_SIZE / 23).getBytes(StandardCharsets.US_ASCII);
+        Path source = Files.write(dir.resolve("text.txt"), content);
+
+        double sampled = FramedCompression.sampleSavings(source, content.length, 1, FRAME_SIZE, 8);
+        long stored = FramedCompression.compress(source, content.length, dir.resolve("text.hz"), 1, FRAME_SIZE);
+        double actual = 1.0 - (double) stored / content.length;
+
+        assertThat(sampled).isGreaterThan(0.9);
+        assertThat(sampled).isCloseTo(actual, within(0.02));
+    }
+}
@@ -0,0 +1,18 @@
+package com.myhalal.eco.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+
+class InMemoryDocumentStoreTest extends DocumentStoreContractTest {
+
+    private InMemoryDocumentStore store;
+
+    @BeforeEach
+    void createStore() {
+        store = new InMemoryDocumentStore(16L * 1024 * 1024);
+    }
+
+    @Override
+    DocumentStore store() {
+        return store;
+    }
+}
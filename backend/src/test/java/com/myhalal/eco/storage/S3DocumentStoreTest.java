@@ -0,0 +1,94 @@
+package com.myhalal.eco.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MinIOContainer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Runs against a MinIO container, or against the S3-compatible server named by -Ds3.test.endpoint
+// (with s3.test.access-key / s3.test.secret-key) when Docker is not available
+class S3DocumentStoreTest extends DocumentStoreContractTest {
+
+    private static MinIOContainer minio;
+    private static S3Client client;
+
+    private String bucket;
+    private S3DocumentStore store;
+
+    @BeforeAll
+    static void startServer() {
+        String endpoint = System.getProperty("s3.test.endpoint", "");
+        String accessKey = System.getProperty("s3.test.access-key", "test");
+        String secretKey = System.getProperty("s3.test.secret-key", "test");
+        if (endpoint.isEmpty()) {
+            assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is not available");
+            minio = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+            minio.start();
+            endpoint = minio.getS3URL();
+            accessKey = minio.getUserName();
+            secretKey = minio.getPassword();
+        }
+        client = S3Client.builder()
+            .region(Region.US_EAST_1)
+            .endpointOverride(URI.create(endpoint))
+            .forcePathStyle(true)
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+            .build();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        if (client != null) {
+            client.close();
+        }
+        if (minio != null) {
+            minio.stop();
+        }
+    }
+
+    @BeforeEach
+    void createBucket() {
+        bucket = "documents-" + UUID.randomUUID();
+        client.createBucket(request -> request.bucket(bucket));
+        store = new S3DocumentStore(client, bucket, "blobs");
+    }
+
+    @AfterEach
+    void deleteBucket() {
+        for (S3Object object : client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucket).build()).contents()) {
+            client.deleteObject(request -> request.bucket(bucket).key(object.key()));
+        }
+        client.deleteBucket(request -> request.bucket(bucket));
+    }
+
+    @Override
+    DocumentStore store() {
+        return store;
+    }
+
+    @Test
+    void objectsAreWrittenUnderThePrefixWithShardedKeys() throws IOException {
+        store.put(KEY, stage(content(1_000)));
+
+        assertThat(client.listObjectsV2(request -> request.bucket(bucket)).contents())
+            .extracting(S3Object::key)
+            .containsExactly("blobs/3f/2a/" + KEY);
+        assertThat(store.location(KEY)).isEqualTo("s3://" + bucket + "/blobs/3f/2a/" + KEY);
+    }
+}
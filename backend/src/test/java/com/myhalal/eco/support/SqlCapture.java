@@ -0,0 +1,53 @@
+package com.myhalal.eco.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Records every SQL statement Hibernate prepares. DatabaseConfig builds its own entity manager factory,
+// so the inspector is added to its JPA properties before the factory is initialised.
+public class SqlCapture implements StatementInspector {
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    public List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        public static SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        public static BeanPostProcessor sqlCaptureInstaller(SqlCapture sqlCapture) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof LocalContainerEntityManagerFactoryBean factory) {
+                        factory.getJpaPropertyMap().put("hibernate.session_factory.statement_inspector", sqlCapture);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}